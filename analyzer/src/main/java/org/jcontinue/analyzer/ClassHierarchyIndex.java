@@ -0,0 +1,226 @@
+package org.jcontinue.analyzer;
+
+import org.jcontinue.base.ClassBodyResolver;
+import org.jcontinue.base.ClassHeader;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class ClassHierarchyIndex {
+
+    public static class Entry {
+        private final ClassHeader header;
+        // ancestors[0] is java.lang.Object, ancestors[depth] is this entry
+        private final Entry[] ancestors;
+        // all super interfaces including inherited ones, resolved on first use
+        private volatile Entry[] interfaces;
+
+        private Entry(ClassHeader header, Entry superEntry) {
+            this.header = header;
+            if (superEntry == null) {
+                ancestors = new Entry[] {this};
+            } else {
+                int depth = superEntry.ancestors.length;
+                ancestors = new Entry[depth + 1];
+                System.arraycopy(superEntry.ancestors, 0, ancestors, 0, depth);
+                ancestors[depth] = this;
+            }
+        }
+
+        public ClassHeader getHeader() {
+            return header;
+        }
+
+        public String getClassName() {
+            return header.getClassName();
+        }
+
+        public int getAccess() {
+            return header.getAccess();
+        }
+
+        public boolean isInterface() {
+            return header.isInterface();
+        }
+
+        public int getDepth() {
+            return ancestors.length - 1;
+        }
+
+        public Entry getSuperClass() {
+            int depth = getDepth();
+            return depth == 0 ? null : ancestors[depth - 1];
+        }
+
+        public boolean isSubClass(Entry superClass) {
+            int superClassDepth = superClass.getDepth();
+            return superClassDepth < ancestors.length && ancestors[superClassDepth] == superClass;
+        }
+
+        public Entry getCommonSuperClass(Entry other) {
+            int depth = Math.min(getDepth(), other.getDepth());
+            while (ancestors[depth] != other.ancestors[depth]) {
+                depth--;
+            }
+            return ancestors[depth];
+        }
+
+        @Override
+        public String toString() {
+            return header.getClassName();
+        }
+    }
+
+    private final ClassBodyResolver classBodyResolver;
+    private final CommonSuperClassCache commonSuperClassCache;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Entry objectEntry;
+
+    public ClassHierarchyIndex(ClassBodyResolver classBodyResolver, CommonSuperClassCache commonSuperClassCache) {
+        Objects.requireNonNull(classBodyResolver);
+        this.classBodyResolver = classBodyResolver;
+        this.commonSuperClassCache = commonSuperClassCache;
+        String objectClassName = Object.class.getName();
+        objectEntry = new Entry(
+                new ClassHeader(objectClassName, null, new String[0], Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER), null);
+        objectEntry.interfaces = new Entry[0];
+        entries.put(objectClassName, objectEntry);
+    }
+
+    public ClassHierarchyIndex(ClassBodyResolver classBodyResolver) {
+        this(classBodyResolver, new CommonSuperClassCache());
+    }
+
+    public ClassBodyResolver getClassBodyResolver() {
+        return classBodyResolver;
+    }
+
+    public CommonSuperClassCache getCommonSuperClassCache() {
+        return commonSuperClassCache;
+    }
+
+    public Entry getObjectEntry() {
+        return objectEntry;
+    }
+
+    public Entry getEntry(String className) {
+        Entry result = entries.get(className);
+        if (result == null) {
+            ClassHeader header = classBodyResolver.getClassHeader(className);
+            if (header == null) {
+                throw new IllegalArgumentException("class " + className + " not found");
+            }
+            if (header.getSuperName() == null) {
+                throw new IllegalArgumentException("class " + className + " has no super class");
+            }
+            // super entries are resolved before the insertion, so computeIfAbsent never recurses into the map
+            Entry superEntry = getEntry(header.getSuperName());
+            result = entries.computeIfAbsent(className, name -> new Entry(header, superEntry));
+        }
+        return result;
+    }
+
+    public Entry[] getInterfaces(Entry entry) {
+        Entry[] result = entry.interfaces;
+        if (result == null) {
+            Set<Entry> interfaces = new LinkedHashSet<>();
+            Entry superClass = entry.getSuperClass();
+            if (superClass != null) {
+                for (Entry superClassInterface : getInterfaces(superClass)) {
+                    interfaces.add(superClassInterface);
+                }
+            }
+            ClassHeader header = entry.header;
+            for (int i = 0; i < header.getInterfacesNumber(); i++) {
+                Entry interfaceEntry = getEntry(header.getInterfaceName(i));
+                interfaces.add(interfaceEntry);
+                for (Entry superInterface : getInterfaces(interfaceEntry)) {
+                    interfaces.add(superInterface);
+                }
+            }
+            result = interfaces.toArray(new Entry[interfaces.size()]);
+            entry.interfaces = result;
+        }
+        return result;
+    }
+
+    public boolean isSubType(Entry type, Entry superType) {
+        if (type == superType || superType == objectEntry) {
+            return true;
+        }
+        if (superType.isInterface()) {
+            for (Entry typeInterface : getInterfaces(type)) {
+                if (typeInterface == superType) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return !type.isInterface() && type.isSubClass(superType);
+    }
+
+    public Entry getCommonSuperClass(Entry entry1, Entry entry2) {
+        return entry1.getCommonSuperClass(entry2);
+    }
+
+    public Entry getCommonSuperType(Entry entry1, Entry entry2) {
+        if (entry1 == entry2) {
+            return entry1;
+        }
+        if (commonSuperClassCache == null) {
+            return computeCommonSuperType(entry1, entry2);
+        }
+        return commonSuperClassCache.getCommonSuperClass(entry1, entry2, this::computeCommonSuperType);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // private methods
+
+    private Entry computeCommonSuperType(Entry entry1, Entry entry2) {
+        if (isSubType(entry1, entry2)) {
+            return entry2;
+        }
+        if (isSubType(entry2, entry1)) {
+            return entry1;
+        }
+        Entry commonSuperClass = entry1.getCommonSuperClass(entry2);
+        if (commonSuperClass != objectEntry) {
+            return commonSuperClass;
+        }
+        // the interfaces of the both types; only a single most specific one can be a join
+        List<Entry> commonInterfaces = new ArrayList<>();
+        for (Entry candidate : getInterfaces(entry1)) {
+            if (isSubType(entry2, candidate)) {
+                commonInterfaces.add(candidate);
+            }
+        }
+        Entry result = objectEntry;
+        for (Entry candidate : commonInterfaces) {
+            if (isMostSpecific(candidate, commonInterfaces)) {
+                if (result != objectEntry) {
+                    return objectEntry;
+                }
+                result = candidate;
+            }
+        }
+        return result;
+    }
+
+    private boolean isMostSpecific(Entry candidate, List<Entry> interfaces) {
+        for (Entry other : interfaces) {
+            if (other != candidate && isSubType(other, candidate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package org.jcontinue.analyzer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.function.BinaryOperator;
+
+public class CommonSuperClassCache {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 16384;
+
+    private final Cache<Key, ClassHierarchyIndex.Entry> cache;
+
+    public CommonSuperClassCache(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize cannot be " + maximumSize);
+        }
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public CommonSuperClassCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public ClassHierarchyIndex.Entry getCommonSuperClass(ClassHierarchyIndex.Entry entry1,
+            ClassHierarchyIndex.Entry entry2, BinaryOperator<ClassHierarchyIndex.Entry> computation) {
+        Key key = new Key(entry1, entry2);
+        ClassHierarchyIndex.Entry result = cache.getIfPresent(key);
+        if (result == null) {
+            result = computation.apply(entry1, entry2);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    // private methods
+
+    // unordered pair, entries are canonical within an index so they are compared by identity
+    private static class Key {
+        private final ClassHierarchyIndex.Entry entry1, entry2;
+
+        private Key(ClassHierarchyIndex.Entry entry1, ClassHierarchyIndex.Entry entry2) {
+            this.entry1 = entry1;
+            this.entry2 = entry2;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return (entry1 == that.entry1 && entry2 == that.entry2) || (entry1 == that.entry2 && entry2 == that.entry1);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(entry1) + System.identityHashCode(entry2);
+        }
+    }
+}
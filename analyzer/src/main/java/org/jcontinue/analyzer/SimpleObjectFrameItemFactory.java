@@ -1,78 +1,78 @@
 package org.jcontinue.analyzer;
 
 import org.jcontinue.base.ClassBodyResolver;
-import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.Opcodes;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class SimpleObjectFrameItemFactory implements ObjectFrameItemFactory, ObjectFrameItemClassNameSupplier {
 
-    private final ClassBodyResolver classBodyResolver;
+    private final ClassHierarchyIndex hierarchyIndex;
     private final Map<String, CustomObjectFrameItem> items = new ConcurrentHashMap<>();
-    private final CustomObjectFrameItem objectFrameItem;
 
-    {
-        String objectClassName = Object.class.getName();
-        objectFrameItem = new CustomObjectFrameItem(objectClassName, null);
-        items.put(objectClassName, objectFrameItem);
+    public SimpleObjectFrameItemFactory(ClassHierarchyIndex hierarchyIndex) {
+        Objects.requireNonNull(hierarchyIndex);
+        this.hierarchyIndex = hierarchyIndex;
+        CustomObjectFrameItem objectFrameItem = new CustomObjectFrameItem(hierarchyIndex.getObjectEntry());
+        items.put(objectFrameItem.entry.getClassName(), objectFrameItem);
     }
 
     public SimpleObjectFrameItemFactory(ClassBodyResolver classBodyResolver) {
-        this.classBodyResolver = classBodyResolver;
+        this(new ClassHierarchyIndex(classBodyResolver));
+    }
+
+    public ClassHierarchyIndex getHierarchyIndex() {
+        return hierarchyIndex;
     }
 
     @Override
     public CustomObjectFrameItem getObjectFrameItem(String className) {
         CustomObjectFrameItem result = items.get(className);
         if (result == null) {
-            byte[] classBody = classBodyResolver.getClassBody(className);
-            ClassReader reader = new ClassReader(classBody);
-            if ((reader.getAccess() & Opcodes.ACC_INTERFACE) != 0) {
-                result = objectFrameItem;
-            } else {
-                String superClassName = reader.getSuperName().replace('/', '.');
-                result = new CustomObjectFrameItem(className, superClassName);
-            }
-            items.put(className, result);
+            ClassHierarchyIndex.Entry entry = hierarchyIndex.getEntry(className);
+            result = items.computeIfAbsent(className, name -> new CustomObjectFrameItem(entry));
         }
         return result;
     }
 
     @Override
     public String getClassName(ObjectFrameItem item) {
-        return ((CustomObjectFrameItem) item).className;
+        return ((CustomObjectFrameItem) item).entry.getClassName();
     }
 
     // private methods
 
     private class CustomObjectFrameItem implements ObjectFrameItem {
 
-        private final String className, parentClassName;
+        private final ClassHierarchyIndex.Entry entry;
 
-        private CustomObjectFrameItem(String className, String parentClassName) {
-            this.className = className;
-            this.parentClassName = parentClassName;
+        private CustomObjectFrameItem(ClassHierarchyIndex.Entry entry) {
+            this.entry = entry;
         }
 
         @Override
         public CustomObjectFrameItem getCommonSuperClass(ObjectFrameItem other) {
-            List<String> relationChain = getRelationChain(this);
-            CustomObjectFrameItem result = (CustomObjectFrameItem) other;
-            while (!relationChain.contains(result.className)) {
-                result = getObjectFrameItem(result.parentClassName);
+            CustomObjectFrameItem otherItem = (CustomObjectFrameItem) other;
+            ClassHierarchyIndex.Entry commonEntry = hierarchyIndex.getCommonSuperType(entry, otherItem.entry);
+            if (commonEntry == entry) {
+                return this;
             }
-            return result;
+            if (commonEntry == otherItem.entry) {
+                return otherItem;
+            }
+            return getObjectFrameItem(commonEntry.getClassName());
         }
 
         @Override
         public boolean isSubClass(ObjectFrameItem superClass) {
-            List<String> relationChain = getRelationChain(this);
-            return relationChain.contains(((CustomObjectFrameItem) superClass).className);
+            ClassHierarchyIndex.Entry superEntry = ((CustomObjectFrameItem) superClass).entry;
+            // as in the verifier any reference is assignable to an interface: javac emits invokeinterface on
+            // intersection types which are merged to a class not implementing the interface
+            if (superEntry.isInterface()) {
+                return true;
+            }
+            return entry.isSubClass(superEntry);
         }
 
         @Override
@@ -80,27 +80,17 @@ public class SimpleObjectFrameItemFactory implements ObjectFrameItemFactory, Obj
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
             CustomObjectFrameItem that = (CustomObjectFrameItem) o;
-            return Objects.equals(className, that.className);
+            return Objects.equals(entry.getClassName(), that.entry.getClassName());
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(className);
+            return Objects.hash(entry.getClassName());
         }
 
         @Override
         public String toString() {
-            return className;
+            return entry.getClassName();
         }
     }
-
-    private List<String> getRelationChain(CustomObjectFrameItem lastItem) {
-        List<String> result = new LinkedList<>();
-        result.add(lastItem.className);
-        while (lastItem.parentClassName != null) {
-            result.add(0, lastItem.parentClassName);
-            lastItem = getObjectFrameItem(lastItem.parentClassName);
-        }
-        return result;
-    }
 }
@@ -46,8 +46,12 @@ public class StandardMethodAnalyzer implements MethodAnalyzer {
         private void updateFrame(AbstractInsnNode instruction, Frame frame) {
             localsNumber = Math.max(localsNumber, frame.getLocals().size());
             stackSize = Math.max(stackSize, frame.getStack().size());
-            if (frames.containsKey(instruction)) {
-                Frame currentFrame = frames.get(instruction);
+            Frame currentFrame = frames.get(instruction);
+            if (currentFrame != null) {
+                // exception handlers receive the same frame from most instructions of their try block
+                if (currentFrame == frame || MethodAnalyzerUtils.isEquals(currentFrame, frame)) {
+                    return;
+                }
                 Frame mergedFrame = MethodAnalyzerUtils.mergeFrames(currentFrame, frame, objectFactory);
                 if (!MethodAnalyzerUtils.isEquals(currentFrame, mergedFrame)) {
                     frames.put(instruction, mergedFrame);
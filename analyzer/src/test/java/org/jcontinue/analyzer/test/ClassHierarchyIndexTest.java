@@ -0,0 +1,142 @@
+package org.jcontinue.analyzer.test;
+
+import org.jcontinue.analyzer.ClassHierarchyIndex;
+import org.jcontinue.analyzer.CommonSuperClassCache;
+import org.jcontinue.base.ClasspathClassBodyResolver;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ClassHierarchyIndexTest {
+
+    private final ClassHierarchyIndex index = new ClassHierarchyIndex(new ClasspathClassBodyResolver());
+
+    @Test
+    public void testAncestors() {
+        ClassHierarchyIndex.Entry arrayList = index.getEntry(ArrayList.class.getName());
+        ClassHierarchyIndex.Entry abstractList = index.getEntry(AbstractList.class.getName());
+        Assert.assertEquals(3, arrayList.getDepth());
+        Assert.assertSame(abstractList, arrayList.getSuperClass());
+        Assert.assertTrue(arrayList.isSubClass(abstractList));
+        Assert.assertTrue(arrayList.isSubClass(index.getObjectEntry()));
+        Assert.assertTrue(arrayList.isSubClass(arrayList));
+        Assert.assertFalse(abstractList.isSubClass(arrayList));
+        Assert.assertNull(index.getObjectEntry().getSuperClass());
+    }
+
+    @Test
+    public void testCommonSuperClass() {
+        ClassHierarchyIndex.Entry arrayList = index.getEntry(ArrayList.class.getName());
+        ClassHierarchyIndex.Entry linkedList = index.getEntry(LinkedList.class.getName());
+        ClassHierarchyIndex.Entry string = index.getEntry(String.class.getName());
+        Assert.assertEquals(AbstractList.class.getName(), arrayList.getCommonSuperClass(linkedList).getClassName());
+        Assert.assertSame(arrayList.getCommonSuperClass(linkedList), linkedList.getCommonSuperClass(arrayList));
+        Assert.assertSame(index.getObjectEntry(), arrayList.getCommonSuperClass(string));
+        Assert.assertSame(arrayList, arrayList.getCommonSuperClass(arrayList));
+    }
+
+    @Test
+    public void testCommonSuperClassCache() {
+        CommonSuperClassCache cache = new CommonSuperClassCache(2);
+        ClassHierarchyIndex cachedIndex = new ClassHierarchyIndex(new ClasspathClassBodyResolver(), cache);
+        ClassHierarchyIndex.Entry arrayList = cachedIndex.getEntry(ArrayList.class.getName());
+        ClassHierarchyIndex.Entry linkedList = cachedIndex.getEntry(LinkedList.class.getName());
+        ClassHierarchyIndex.Entry string = cachedIndex.getEntry(String.class.getName());
+        ClassHierarchyIndex.Entry abstractList = cachedIndex.getCommonSuperType(arrayList, linkedList);
+        Assert.assertSame(abstractList, cachedIndex.getCommonSuperType(linkedList, arrayList));
+        Assert.assertEquals(1, cache.getStats().hitCount());
+        Assert.assertEquals(1, cache.getStats().missCount());
+        cachedIndex.getCommonSuperType(arrayList, string);
+        cachedIndex.getCommonSuperType(linkedList, string);
+        Assert.assertTrue(cache.size() <= 2);
+        Assert.assertSame(abstractList, cachedIndex.getCommonSuperType(arrayList, linkedList));
+        Assert.assertTrue(cache.getHitRate() > 0 && cache.getHitRate() < 1);
+    }
+
+    @Test
+    public void testInterface() {
+        ClassHierarchyIndex.Entry list = index.getEntry(List.class.getName());
+        Assert.assertTrue(list.isInterface());
+        Assert.assertSame(index.getObjectEntry(), list.getSuperClass());
+        Assert.assertFalse(index.getEntry(ArrayList.class.getName()).isInterface());
+    }
+
+    public interface Parent { }
+
+    public interface Child extends Parent { }
+
+    public interface Other { }
+
+    public static class ChildImpl1 implements Child, Runnable {
+        @Override
+        public void run() { }
+    }
+
+    public static class ChildImpl2 implements Child, Runnable {
+        @Override
+        public void run() { }
+    }
+
+    public static class ParentImpl implements Parent, Other { }
+
+    public static class ParentImplSubclass extends ParentImpl { }
+
+    @Test
+    public void testSubType() {
+        ClassHierarchyIndex.Entry parent = index.getEntry(Parent.class.getName());
+        ClassHierarchyIndex.Entry child = index.getEntry(Child.class.getName());
+        ClassHierarchyIndex.Entry childImpl = index.getEntry(ChildImpl1.class.getName());
+        ClassHierarchyIndex.Entry parentImplSubclass = index.getEntry(ParentImplSubclass.class.getName());
+        Assert.assertTrue(index.isSubType(child, parent));
+        Assert.assertTrue(index.isSubType(childImpl, parent));
+        Assert.assertTrue(index.isSubType(parentImplSubclass, parent));
+        Assert.assertTrue(index.isSubType(child, index.getObjectEntry()));
+        Assert.assertFalse(index.isSubType(parent, child));
+        Assert.assertFalse(index.isSubType(parentImplSubclass, child));
+    }
+
+    @Test
+    public void testCommonSuperType() {
+        ClassHierarchyIndex.Entry parent = index.getEntry(Parent.class.getName());
+        ClassHierarchyIndex.Entry child = index.getEntry(Child.class.getName());
+        ClassHierarchyIndex.Entry childImpl1 = index.getEntry(ChildImpl1.class.getName());
+        ClassHierarchyIndex.Entry childImpl2 = index.getEntry(ChildImpl2.class.getName());
+        ClassHierarchyIndex.Entry parentImpl = index.getEntry(ParentImpl.class.getName());
+        ClassHierarchyIndex.Entry parentImplSubclass = index.getEntry(ParentImplSubclass.class.getName());
+        // both Child and Runnable are common, there is no single join
+        Assert.assertSame(index.getObjectEntry(), index.getCommonSuperType(childImpl1, childImpl2));
+        Assert.assertSame(parent, index.getCommonSuperType(childImpl1, parentImpl));
+        Assert.assertSame(parent, index.getCommonSuperType(parentImplSubclass, child));
+        Assert.assertSame(child, index.getCommonSuperType(child, childImpl2));
+        Assert.assertSame(parentImpl, index.getCommonSuperType(parentImplSubclass, parentImpl));
+        Assert.assertSame(index.getObjectEntry(),
+                index.getCommonSuperType(child, index.getEntry(Other.class.getName())));
+    }
+
+    @Test
+    public void testConcurrentResolution() throws Exception {
+        ClassHierarchyIndex sharedIndex = new ClassHierarchyIndex(new ClasspathClassBodyResolver());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ClassHierarchyIndex.Entry>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                Callable<ClassHierarchyIndex.Entry> resolution = () -> sharedIndex.getEntry(LinkedList.class.getName());
+                futures.add(executor.submit(resolution));
+            }
+            ClassHierarchyIndex.Entry expected = sharedIndex.getEntry(LinkedList.class.getName());
+            for (Future<ClassHierarchyIndex.Entry> future : futures) {
+                Assert.assertSame(expected, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.jcontinue.benchmarks;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+
+public class BenchmarkUtils {
+
+    // the instance is used by the JDK interfaces only, the class loaders share nothing else
+    public static Object newTransformedInstance(Class<?> type, Class<?>[] parameterTypes, Object... args) {
+        try {
+            Class<?> transformedClass = new ContinuationClassTransformerClassLoader().loadClass(type.getName());
+            return transformedClass.getConstructor(parameterTypes).newInstance(args);
+        } catch (InvocationTargetException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    public static MethodNode copy(MethodNode method) {
+        MethodNode result = new MethodNode(Opcodes.ASM5, method.access, method.name, method.desc, method.signature,
+                ((List<String>) method.exceptions).toArray(new String[0]));
+        method.accept(result);
+        return result;
+    }
+}
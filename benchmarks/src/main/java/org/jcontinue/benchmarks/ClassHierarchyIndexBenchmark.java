@@ -0,0 +1,125 @@
+package org.jcontinue.benchmarks;
+
+import org.jcontinue.analyzer.ClassHierarchyIndex;
+import org.jcontinue.base.ClassBodyResolver;
+import org.jcontinue.base.ClassHeader;
+import org.jcontinue.base.ClasspathClassBodyResolver;
+import org.jcontinue.base.ClasspathIndexClassBodyResolver;
+import org.objectweb.asm.ClassReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// the hierarchy of every class of a jar resolved into a new index, an operation is the whole jar
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassHierarchyIndexBenchmark {
+
+    // rt.jar if empty
+    @Param({""})
+    private String jar;
+
+    @Param({"mappedJar", "systemClasspath"})
+    private String source;
+
+    // the whole body parsed by asm or the header only
+    @Param({"classReader", "header"})
+    private String reader;
+
+    private final List<String> classNames = new ArrayList<>();
+    private ClassBodyResolver resolver;
+
+    @Setup
+    public void setUp() throws IOException {
+        File jarFile = new File(jar.isEmpty() ? System.getProperty("java.home") + "/lib/rt.jar" : jar);
+        try (ZipFile zipFile = new ZipFile(jarFile)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.endsWith("module-info.class")) {
+                    classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        }
+        switch (source) {
+            case "mappedJar":
+                resolver = new ClasspathIndexClassBodyResolver(Collections.singletonList(jarFile),
+                        ClasspathIndexClassBodyResolver.getSystemClasspathResolver());
+                break;
+            case "systemClasspath":
+                resolver = new ClasspathClassBodyResolver();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown source " + source);
+        }
+        if (reader.equals("classReader")) {
+            resolver = new ClassReaderResolver(resolver);
+        }
+        System.out.println(jarFile + ": " + classNames.size() + " classes");
+    }
+
+    @Benchmark
+    public int resolve() {
+        ClassHierarchyIndex index = new ClassHierarchyIndex(resolver);
+        for (String className : classNames) {
+            try {
+                index.getInterfaces(index.getEntry(className));
+            } catch (IllegalArgumentException e) {
+                // a super type is not on the classpath
+            }
+        }
+        return index.size();
+    }
+
+    // the way the hierarchy was resolved before: the whole body is read and parsed by asm
+    private static class ClassReaderResolver implements ClassBodyResolver {
+        private final ClassBodyResolver classBodyResolver;
+
+        private ClassReaderResolver(ClassBodyResolver classBodyResolver) {
+            this.classBodyResolver = classBodyResolver;
+        }
+
+        @Override
+        public byte[] getClassBody(String className) {
+            return classBodyResolver.getClassBody(className);
+        }
+
+        @Override
+        public ClassHeader getClassHeader(String className) {
+            byte[] classBody = getClassBody(className);
+            if (classBody == null) {
+                return null;
+            }
+            ClassReader reader = new ClassReader(classBody);
+            String[] interfaceNames = reader.getInterfaces();
+            for (int i = 0; i < interfaceNames.length; i++) {
+                interfaceNames[i] = interfaceNames[i].replace('/', '.');
+            }
+            String superName = reader.getSuperName();
+            return new ClassHeader(reader.getClassName().replace('/', '.'),
+                    superName == null ? null : superName.replace('/', '.'), interfaceNames, reader.getAccess());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.jcontinue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// encode and decode throughput of the serialized contexts by the stack depth and the encoding
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContinuationContextSerializerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int depth;
+
+    @Param({"plain", "dictionary", "compressed", "both"})
+    private String encoding;
+
+    private Supplier<Object> serializer;
+    private UnaryOperator<Object> deserializer;
+    private Object bytes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Object workload = BenchmarkUtils.newTransformedInstance(ContinuationContextSerializerWorkload.class,
+                new Class<?>[] {int.class, String.class}, depth, encoding);
+        serializer = (Supplier<Object>) workload;
+        deserializer = (UnaryOperator<Object>) workload;
+        bytes = serializer.get();
+        System.out.println("depth " + depth + ", " + encoding + ": " + ((byte[]) bytes).length + " bytes");
+    }
+
+    @Benchmark
+    public Object encode() {
+        return serializer.get();
+    }
+
+    @Benchmark
+    public Object decode() {
+        return deserializer.apply(bytes);
+    }
+}
@@ -0,0 +1,102 @@
+package org.jcontinue.benchmarks;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.ContinuationContextSerializer;
+import org.jcontinue.continuation.ContinuationFrameClassDictionary;
+import org.jcontinue.continuation.ContinuationSerializableObjectCodec;
+import org.jcontinue.continuation.Task;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// loaded by ContinuationClassTransformerClassLoader, get() serializes the context and apply() deserializes the bytes
+public class ContinuationContextSerializerWorkload implements Supplier<Object>, UnaryOperator<Object> {
+
+    private final ContinuationContextSerializer serializer;
+    private final Continuation.Context context;
+
+    public ContinuationContextSerializerWorkload(int depth, String encoding) {
+        boolean dictionaryUsed;
+        boolean compressed;
+        switch (encoding) {
+            case "plain":
+                dictionaryUsed = false;
+                compressed = false;
+                break;
+            case "dictionary":
+                dictionaryUsed = true;
+                compressed = false;
+                break;
+            case "compressed":
+                dictionaryUsed = false;
+                compressed = true;
+                break;
+            case "both":
+                dictionaryUsed = true;
+                compressed = true;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown encoding " + encoding);
+        }
+        serializer = new ContinuationContextSerializer(new ContinuationSerializableObjectCodec(),
+                getClass().getClassLoader(), Collections.emptyMap(),
+                dictionaryUsed ? new ContinuationFrameClassDictionary() : null, compressed);
+        context = Continuation.perform(new RecursiveTask(depth));
+    }
+
+    @Override
+    public Object get() {
+        try {
+            return serializer.serialize(context);
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    @Override
+    public Object apply(Object bytes) {
+        try {
+            return serializer.deserialize((byte[]) bytes);
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    // the frames of two methods with different layouts alternate, every frame refers to the same objects
+    public static class RecursiveTask implements Task, Serializable {
+
+        private final int depth;
+
+        public RecursiveTask(int depth) {
+            this.depth = depth;
+        }
+
+        @Override
+        public void perform() {
+            List<String> shared = new ArrayList<>(Collections.singletonList("shared"));
+            descend(depth, "label", shared);
+        }
+
+        private void descend(int depth, String label, List<String> shared) {
+            if (depth == 0) {
+                Continuation.suspend();
+                return;
+            }
+            long counter = depth * 31L;
+            descendOther(depth - 1, counter, shared);
+            shared.add(label);
+        }
+
+        private void descendOther(int depth, long counter, List<String> shared) {
+            double ratio = counter / 7.0;
+            descend(depth, "other", shared);
+            shared.add(String.valueOf(ratio));
+        }
+    }
+}
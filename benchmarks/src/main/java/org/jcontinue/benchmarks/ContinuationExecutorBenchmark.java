@@ -0,0 +1,72 @@
+package org.jcontinue.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// the tasks yield to the executor over and over, an operation is a run of all the tasks
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ContinuationExecutorBenchmark {
+
+    private static final int YIELDS = 1000;
+
+    @Param({"threadPool", "forkJoin"})
+    private String executor;
+
+    // the number of the available processors if 0
+    @Param({"0"})
+    private int threads;
+
+    @Param({"64"})
+    private int tasksPerThread;
+
+    private LongSupplier workload;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long resumes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            resumes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        int threadsNumber = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        workload = (LongSupplier) BenchmarkUtils.newTransformedInstance(ContinuationExecutorWorkload.class,
+                new Class<?>[] {String.class, int.class, int.class, int.class}, executor, threadsNumber,
+                threadsNumber * tasksPerThread, YIELDS);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        ((AutoCloseable) workload).close();
+    }
+
+    @Benchmark
+    public void yield(Counters counters) {
+        counters.resumes += workload.getAsLong();
+    }
+}
@@ -0,0 +1,69 @@
+package org.jcontinue.benchmarks;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationExecutor;
+import org.jcontinue.utils.ForkJoinContinuationExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// loaded by ContinuationClassTransformerClassLoader, getAsLong() runs the tasks and returns the number of resumes
+public class ContinuationExecutorWorkload implements LongSupplier, AutoCloseable {
+
+    private final ExecutorService executor;
+    private final int tasks;
+    private final int yields;
+
+    public ContinuationExecutorWorkload(String executorType, int threads, int tasks, int yields) {
+        switch (executorType) {
+            case "threadPool":
+                executor = new ContinuableThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>());
+                break;
+            case "forkJoin":
+                executor = new ForkJoinContinuationExecutor(threads);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown executor " + executorType);
+        }
+        this.tasks = tasks;
+        this.yields = yields;
+    }
+
+    @Override
+    public long getAsLong() {
+        CountDownLatch latch = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < yields; j++) {
+                    yield();
+                }
+                latch.countDown();
+            });
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw Throwables.propagate(e);
+        }
+        return (long) tasks * yields;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // private methods
+
+    private static void yield() {
+        ContinuationExecutor executor = ContinuableThreadPoolExecutor.currentExecutor.get();
+        ContinuableThreadPoolExecutor.postSuspendAction.set(executor::resume);
+        Continuation.suspend();
+    }
+}
@@ -0,0 +1,69 @@
+package org.jcontinue.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// echo round trips over loopback connections, an operation is a run of all the connections
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class EchoServerBenchmark {
+
+    // the number of the available processors if 0
+    @Param({"0"})
+    private int threads;
+
+    @Param({"1000"})
+    private int connections;
+
+    @Param({"100"})
+    private int roundTrips;
+
+    private LongSupplier workload;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long roundTrips;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            roundTrips = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        workload = (LongSupplier) BenchmarkUtils.newTransformedInstance(EchoServerWorkload.class,
+                new Class<?>[] {int.class, int.class, int.class},
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), connections, roundTrips);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        ((AutoCloseable) workload).close();
+    }
+
+    @Benchmark
+    public void echo(Counters counters) {
+        counters.roundTrips += workload.getAsLong();
+    }
+}
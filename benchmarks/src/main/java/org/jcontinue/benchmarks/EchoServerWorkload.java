@@ -0,0 +1,116 @@
+package org.jcontinue.benchmarks;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.eventloop.ContinuationServerSocketChannel;
+import org.jcontinue.eventloop.ContinuationSocketChannel;
+import org.jcontinue.eventloop.EventLoop;
+import org.jcontinue.utils.ForkJoinContinuationExecutor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+
+// loaded by ContinuationClassTransformerClassLoader, getAsLong() runs the clients and returns the number of round trips
+public class EchoServerWorkload implements LongSupplier, AutoCloseable {
+
+    private static final int MESSAGE_SIZE = 64;
+
+    private final EventLoop eventLoop = new EventLoop();
+    private final ForkJoinContinuationExecutor executor;
+    private final ContinuationServerSocketChannel server;
+    private final int connections;
+    private final int roundTrips;
+
+    public EchoServerWorkload(int threads, int connections, int roundTrips) throws IOException {
+        executor = new ForkJoinContinuationExecutor(threads);
+        server = ContinuationServerSocketChannel.bind(eventLoop,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), connections);
+        this.connections = connections;
+        this.roundTrips = roundTrips;
+        executor.execute(this::serve);
+    }
+
+    @Override
+    public long getAsLong() {
+        List<Future<?>> clients = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            clients.add(executor.submit(() -> {
+                runClient(server.getLocalAddress());
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw Throwables.propagate(e);
+        }
+        return (long) connections * roundTrips;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            server.close();
+        } finally {
+            eventLoop.close();
+            executor.shutdown();
+        }
+    }
+
+    // private methods
+
+    private void serve() {
+        try {
+            while (true) {
+                ContinuationSocketChannel socket = server.accept();
+                executor.execute(() -> echo(socket));
+            }
+        } catch (ClosedChannelException e) {
+            // the server is stopped
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void echo(ContinuationSocketChannel socket) {
+        ByteBuffer buffer = eventLoop.getBufferPool().acquire();
+        try (ContinuationSocketChannel closedSocket = socket) {
+            while (closedSocket.read(buffer) >= 0) {
+                buffer.flip();
+                closedSocket.write(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            eventLoop.getBufferPool().release(buffer);
+        }
+    }
+
+    private void runClient(SocketAddress address) throws IOException {
+        ByteBuffer buffer = eventLoop.getBufferPool().acquire();
+        try (ContinuationSocketChannel socket = ContinuationSocketChannel.connect(eventLoop, address)) {
+            for (int i = 0; i < roundTrips; i++) {
+                buffer.clear().limit(MESSAGE_SIZE);
+                socket.write(buffer);
+                buffer.clear().limit(MESSAGE_SIZE);
+                if (!socket.readFully(buffer)) {
+                    throw new IOException("connection is closed by the server");
+                }
+            }
+        } finally {
+            eventLoop.getBufferPool().release(buffer);
+        }
+    }
+}
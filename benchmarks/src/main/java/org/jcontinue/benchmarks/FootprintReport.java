@@ -0,0 +1,302 @@
+package org.jcontinue.benchmarks;
+
+import org.objectweb.asm.Type;
+import org.openjdk.jol.vm.VM;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// heap retained per parked continuation by the stack depth and the frame layout
+public class FootprintReport {
+
+    private static final String SAVED_FRAME_CONTEXT_CLASS_NAME = "org.jcontinue.continuation.__SavedFrameContext";
+    private static final String CONTEXT_CLASS_NAME = "org.jcontinue.continuation.Continuation$Context";
+    private static final int SAMPLE_SIZE = 100;
+    private static final int HISTOGRAM_LINES = 12;
+
+    private final Map<Class<?>, List<Field>> referenceFields = new HashMap<>();
+    private final Map<Class<?>, Long> shallowSizes = new HashMap<>();
+    private final Map<Class<?>, String> frameLabels = new HashMap<>();
+
+    private static class Footprint {
+        private long objectsNumber;
+        private long bytes;
+    }
+
+    public static void main(String[] args) throws JMException, ReflectiveOperationException {
+        int continuationsNumber = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        String[] depths = args.length > 1 ? args[1].split(",") : new String[] {"1", "10", "100"};
+        String[] frameLayouts = args.length > 2 ? args[2].split(",")
+                : new String[] {"empty", "primitive4", "reference4", "primitive16", "reference16"};
+        FootprintReport report = new FootprintReport();
+        for (String depth : depths) {
+            for (String frameLayout : frameLayouts) {
+                report.report(continuationsNumber, Integer.parseInt(depth), frameLayout);
+            }
+        }
+    }
+
+    // private methods
+
+    @SuppressWarnings("unchecked")
+    private void report(int continuationsNumber, int depth, String frameLayout)
+            throws JMException, ReflectiveOperationException {
+        Supplier<Object> workload = (Supplier<Object>) BenchmarkUtils.newTransformedInstance(
+                SuspendResumeWorkload.class, new Class<?>[] {int.class, String.class}, depth, frameLayout);
+        // the classes are loaded and the array is allocated before the baseline
+        workload.get();
+        Object[] contexts = new Object[continuationsNumber];
+        Map<String, Footprint> histogramBefore = getClassHistogram();
+        for (int i = 0; i < continuationsNumber; i++) {
+            contexts[i] = workload.get();
+        }
+        Map<String, Footprint> histogramAfter = getClassHistogram();
+
+        System.out.println(continuationsNumber + " continuations, depth " + depth + ", frame layout " + frameLayout);
+        int sampleSize = Math.min(SAMPLE_SIZE, continuationsNumber);
+        Map<String, Footprint> structures = getRetainedStructures(contexts, sampleSize);
+        System.out.printf("  %-52s %10s %10s%n", "retained by structure", "objects", "bytes");
+        long retainedBytes = 0;
+        for (Map.Entry<String, Footprint> structureEntry : structures.entrySet()) {
+            Footprint footprint = structureEntry.getValue();
+            retainedBytes += footprint.bytes;
+            System.out.printf("  %-52s %10.1f %10.1f%n", structureEntry.getKey(),
+                    (double) footprint.objectsNumber / sampleSize, (double) footprint.bytes / sampleSize);
+        }
+        System.out.printf("  %-52s %10s %10.1f%n", "total", "", (double) retainedBytes / sampleSize);
+
+        List<Map.Entry<String, Footprint>> histogramDelta = new ArrayList<>();
+        long deltaBytes = 0;
+        for (Map.Entry<String, Footprint> histogramEntry : histogramAfter.entrySet()) {
+            Footprint before = histogramBefore.get(histogramEntry.getKey());
+            Footprint delta = new Footprint();
+            delta.objectsNumber = histogramEntry.getValue().objectsNumber - (before == null ? 0 : before.objectsNumber);
+            delta.bytes = histogramEntry.getValue().bytes - (before == null ? 0 : before.bytes);
+            deltaBytes += delta.bytes;
+            if (delta.bytes > 0) {
+                histogramDelta.add(new AbstractMap.SimpleEntry<>(histogramEntry.getKey(), delta));
+            }
+        }
+        histogramDelta.sort((entry1, entry2) -> Long.compare(entry2.getValue().bytes, entry1.getValue().bytes));
+        System.out.printf("  %-52s %10s %10s%n", "heap histogram delta", "objects", "bytes");
+        for (Map.Entry<String, Footprint> deltaEntry : histogramDelta.subList(0,
+                Math.min(HISTOGRAM_LINES, histogramDelta.size()))) {
+            System.out.printf("  %-52s %10.1f %10.1f%n", abbreviate(deltaEntry.getKey()),
+                    (double) deltaEntry.getValue().objectsNumber / continuationsNumber,
+                    (double) deltaEntry.getValue().bytes / continuationsNumber);
+        }
+        double bytesPerContinuation = (double) deltaBytes / continuationsNumber;
+        System.out.printf("  %-52s %10s %10.1f%n", "total", "", bytesPerContinuation);
+        System.out.printf("  %.0f continuations per GB%n%n", (1L << 30) / bytesPerContinuation);
+        // the contexts are reachable until the histogram is taken
+        contexts[0] = null;
+    }
+
+    // the objects reachable from more than one context are shared and left out
+    private Map<String, Footprint> getRetainedStructures(Object[] contexts, int sampleSize)
+            throws ReflectiveOperationException {
+        Map<Object, Integer> reachedContextsNumbers = new IdentityHashMap<>();
+        for (int i = 0; i < sampleSize; i++) {
+            Map<Object, Boolean> reached = new IdentityHashMap<>();
+            Deque<Object> queue = new ArrayDeque<>();
+            queue.add(contexts[i]);
+            while (!queue.isEmpty()) {
+                Object object = queue.poll();
+                if (reached.put(object, Boolean.TRUE) == null) {
+                    reachedContextsNumbers.merge(object, 1, Integer::sum);
+                    addReferences(object, queue);
+                }
+            }
+        }
+
+        Map<String, Footprint> result = new LinkedHashMap<>();
+        for (int i = 0; i < sampleSize; i++) {
+            Object context = contexts[i];
+            Map<Object, String> structures = new IdentityHashMap<>();
+            structures.put(context, "Continuation.Context");
+            structures.put(getFieldValue(context, "frames"), "frames ArrayList");
+            structures.put(getFieldValue(context, "locals"), "locals HashMap");
+            structures.put(getFieldValue(context, "task"), "task");
+            Map<Object, Boolean> visited = new IdentityHashMap<>();
+            Deque<Object> queue = new ArrayDeque<>();
+            queue.add(context);
+            visited.put(context, Boolean.TRUE);
+            while (!queue.isEmpty()) {
+                Object object = queue.poll();
+                String structure = structures.get(object);
+                if (isSavedFrameContext(object.getClass())) {
+                    structure = getFrameLabel(object.getClass());
+                }
+                Footprint footprint = result.computeIfAbsent(structure, key -> new Footprint());
+                footprint.objectsNumber++;
+                footprint.bytes += getShallowSize(object);
+                List<Object> references = new ArrayList<>();
+                addReferences(object, references);
+                for (Object reference : references) {
+                    if (reachedContextsNumbers.get(reference) == 1 && visited.put(reference, Boolean.TRUE) == null) {
+                        if (!structures.containsKey(reference)) {
+                            structures.put(reference, isSavedFrameContext(object.getClass()) ? "frame referents"
+                                    : structure);
+                        }
+                        queue.add(reference);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void addReferences(Object object, Collection<Object> references) {
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            if (!type.getComponentType().isPrimitive()) {
+                for (int i = 0, length = Array.getLength(object); i < length; i++) {
+                    Object reference = Array.get(object, i);
+                    if (isWalked(reference)) {
+                        references.add(reference);
+                    }
+                }
+            }
+            return;
+        }
+        for (Field field : getReferenceFields(type)) {
+            try {
+                Object reference = field.get(object);
+                if (isWalked(reference)) {
+                    references.add(reference);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static boolean isWalked(Object reference) {
+        return reference != null && !(reference instanceof Class) && !(reference instanceof ClassLoader);
+    }
+
+    // the classes which fields cannot be accessed are walked as leaves
+    private List<Field> getReferenceFields(Class<?> type) {
+        List<Field> result = referenceFields.get(type);
+        if (result == null) {
+            result = new ArrayList<>();
+            try {
+                for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                    for (Field field : c.getDeclaredFields()) {
+                        if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                            field.setAccessible(true);
+                            result.add(field);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                result.clear();
+            }
+            referenceFields.put(type, result);
+        }
+        return result;
+    }
+
+    // the size of an instance depends on its class only
+    private long getShallowSize(Object object) {
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            return VM.current().sizeOf(object);
+        }
+        Long result = shallowSizes.get(type);
+        if (result == null) {
+            result = VM.current().sizeOf(object);
+            shallowSizes.put(type, result);
+        }
+        return result;
+    }
+
+    private String getFrameLabel(Class<?> frameClass) throws ReflectiveOperationException {
+        String result = frameLabels.get(frameClass);
+        if (result == null) {
+            Object prototype = frameClass.getMethod("__newInstance").invoke(frameClass.newInstance());
+            String fieldDescriptors = (String) frameClass.getMethod("__getFieldDescriptors").invoke(prototype);
+            // the repeated field types are counted, e.g. frame (int, 16 x Object)
+            StringBuilder label = new StringBuilder("frame (");
+            Type[] fieldTypes = Type.getArgumentTypes("(" + fieldDescriptors + ")V");
+            for (int i = 0; i < fieldTypes.length;) {
+                int sameTypesNumber = 1;
+                while (i + sameTypesNumber < fieldTypes.length
+                        && fieldTypes[i + sameTypesNumber].equals(fieldTypes[i])) {
+                    sameTypesNumber++;
+                }
+                if (i > 0) {
+                    label.append(", ");
+                }
+                if (sameTypesNumber > 1) {
+                    label.append(sameTypesNumber).append(" x ");
+                }
+                label.append(fieldTypes[i].getClassName().replaceFirst(".*\\.", ""));
+                i += sameTypesNumber;
+            }
+            result = label.append(")").toString();
+            frameLabels.put(frameClass, result);
+        }
+        return result;
+    }
+
+    private static boolean isSavedFrameContext(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            if (c.getName().equals(SAVED_FRAME_CONTEXT_CLASS_NAME)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object getFieldValue(Object object, String fieldName) throws ReflectiveOperationException {
+        Field field = object.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    // the objects waiting for the finalization are collected before
+    private static Map<String, Footprint> getClassHistogram() throws JMException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                new Object[] {null}, new String[] {String[].class.getName()});
+        Map<String, Footprint> result = new HashMap<>();
+        for (String line : histogram.split("\n")) {
+            // num: instances bytes class name [module]
+            String[] columns = line.trim().split("\\s+");
+            if (columns.length < 4 || !columns[0].endsWith(":")) {
+                continue;
+            }
+            Footprint footprint = result.computeIfAbsent(columns[3], key -> new Footprint());
+            footprint.objectsNumber += Long.parseLong(columns[1]);
+            footprint.bytes += Long.parseLong(columns[2]);
+        }
+        return result;
+    }
+
+    private static String abbreviate(String className) {
+        if (className.startsWith(SAVED_FRAME_CONTEXT_CLASS_NAME) && className.length() > 60) {
+            return className.substring(0, 60) + "...";
+        }
+        return className.equals(CONTEXT_CLASS_NAME) ? "Continuation.Context" : className;
+    }
+}
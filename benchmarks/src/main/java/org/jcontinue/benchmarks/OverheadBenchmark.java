@@ -0,0 +1,142 @@
+package org.jcontinue.benchmarks;
+
+import org.jcontinue.analyzer.ClassHierarchyIndex;
+import org.jcontinue.analyzer.SimpleObjectFrameItemFactory;
+import org.jcontinue.analyzer.StandardMethodAnalyzer;
+import org.jcontinue.base.AsmUtils;
+import org.jcontinue.base.CachingClassBodyResolver;
+import org.jcontinue.base.ClassBodyResolver;
+import org.jcontinue.base.ClasspathIndexClassBodyResolver;
+import org.jcontinue.continuation.SimpleContinuationClassTransformerRegistry;
+import org.jcontinue.continuation.StandardContinuationMethodTransformer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// the cost of the instrumentation for code which never suspends, out of a continuation and inside a performed one
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OverheadBenchmark {
+
+    // inContext is the transformed workload called inside Continuation.perform
+    @Param({"plain", "transformed", "inContext"})
+    private String classLoader;
+
+    @Param({"fibonacci", "collections", "strings"})
+    private String workload;
+
+    private LongSupplier supplier;
+
+    @Setup
+    public void setUp() {
+        if (classLoader.equals("plain")) {
+            supplier = new OverheadWorkload(workload);
+        } else {
+            supplier = (LongSupplier) BenchmarkUtils.newTransformedInstance(OverheadWorkload.class,
+                    new Class<?>[] {String.class, boolean.class}, workload, classLoader.equals("inContext"));
+        }
+    }
+
+    @Benchmark
+    public long run() {
+        return supplier.getAsLong();
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(OverheadBenchmark.class.getName() + ".run")
+                .build()).run();
+        Map<String, Double> plainScores = new TreeMap<>();
+        Map<String, Double> transformedScores = new TreeMap<>();
+        Map<String, Double> inContextScores = new TreeMap<>();
+        for (RunResult result : results) {
+            String workload = result.getParams().getParam("workload");
+            double score = result.getPrimaryResult().getScore();
+            switch (result.getParams().getParam("classLoader")) {
+                case "plain":
+                    plainScores.put(workload, score);
+                    break;
+                case "transformed":
+                    transformedScores.put(workload, score);
+                    break;
+                default:
+                    inContextScores.put(workload, score);
+                    break;
+            }
+        }
+        System.out.println();
+        System.out.printf("%-12s %12s %12s %8s %12s %8s%n", "workload", "plain us/op", "transf us/op", "slowdown",
+                "in ctx us/op", "slowdown");
+        for (Map.Entry<String, Double> plainScoreEntry : plainScores.entrySet()) {
+            double plainScore = plainScoreEntry.getValue();
+            double transformedScore = transformedScores.getOrDefault(plainScoreEntry.getKey(), Double.NaN);
+            double inContextScore = inContextScores.getOrDefault(plainScoreEntry.getKey(), Double.NaN);
+            System.out.printf("%-12s %12.3f %12.3f %8.2f %12.3f %8.2f%n", plainScoreEntry.getKey(), plainScore,
+                    transformedScore, transformedScore / plainScore, inContextScore, inContextScore / plainScore);
+        }
+        System.out.println();
+        printCodeSizeGrowth(OverheadWorkload.class);
+    }
+
+    // private methods
+
+    private static void printCodeSizeGrowth(Class<?> type) {
+        ClassBodyResolver classBodyResolver =
+                new CachingClassBodyResolver(ClasspathIndexClassBodyResolver.getSystemClasspathResolver());
+        SimpleObjectFrameItemFactory objectFactory =
+                new SimpleObjectFrameItemFactory(new ClassHierarchyIndex(classBodyResolver));
+        SimpleContinuationClassTransformerRegistry registry = new SimpleContinuationClassTransformerRegistry();
+        StandardContinuationMethodTransformer transformer = new StandardContinuationMethodTransformer(registry,
+                new StandardMethodAnalyzer(objectFactory), objectFactory);
+        ClassNode clazz = new ClassNode(Opcodes.ASM5);
+        new ClassReader(classBodyResolver.getClassBody(type.getName())).accept(clazz, 0);
+        System.out.printf("%-20s %8s %8s %8s%n", "method", "bytes", "transf", "growth");
+        int totalSize = 0;
+        int totalTransformedSize = 0;
+        for (MethodNode method : (List<MethodNode>) clazz.methods) {
+            if (!registry.doTransformMethod(clazz, method)) {
+                continue;
+            }
+            int size = AsmUtils.getCodeSize(method);
+            MethodNode transformedMethod = BenchmarkUtils.copy(method);
+            transformer.transformMethod(type.getName(), transformedMethod);
+            int transformedSize = AsmUtils.getCodeSize(transformedMethod);
+            totalSize += size;
+            totalTransformedSize += transformedSize;
+            System.out.printf("%-20s %8d %8d %8.2f%n", method.name, size, transformedSize,
+                    (double) transformedSize / size);
+        }
+        System.out.printf("%-20s %8d %8d %8.2f%n", "total", totalSize, totalTransformedSize,
+                (double) totalTransformedSize / totalSize);
+    }
+}
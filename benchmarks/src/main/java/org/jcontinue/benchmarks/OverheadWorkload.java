@@ -0,0 +1,107 @@
+package org.jcontinue.benchmarks;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.continuation.Continuation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// call heavy code which never suspends, loaded by the plain and by the transforming class loaders
+public class OverheadWorkload implements LongSupplier {
+
+    private static final int FIBONACCI_ARGUMENT = 20;
+    private static final int ELEMENTS_NUMBER = 1000;
+
+    private final String workload;
+    // the transformed methods take the running branch of the instrumentation inside a performed continuation
+    private final boolean inContext;
+    private int seed;
+    private long result;
+
+    public OverheadWorkload(String workload, boolean inContext) {
+        this.workload = workload;
+        this.inContext = inContext;
+    }
+
+    public OverheadWorkload(String workload) {
+        this(workload, false);
+    }
+
+    @Override
+    public long getAsLong() {
+        if (!inContext) {
+            return compute();
+        }
+        Continuation.Context context = Continuation.perform(() -> result = compute());
+        if (!context.isSucceed()) {
+            throw Throwables.propagate(context.getException());
+        }
+        return result;
+    }
+
+    // private methods
+
+    private long compute() {
+        seed++;
+        switch (workload) {
+            case "fibonacci":
+                return fibonacci(FIBONACCI_ARGUMENT + (seed & 1));
+            case "collections":
+                return processCollections(seed);
+            case "strings":
+                return buildString(seed);
+            default:
+                throw new IllegalArgumentException("unknown workload " + workload);
+        }
+    }
+
+    private static long fibonacci(int n) {
+        if (n < 2) {
+            return n;
+        }
+        return fibonacci(n - 1) + fibonacci(n - 2);
+    }
+
+    private static long processCollections(int seed) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < ELEMENTS_NUMBER; i++) {
+            values.add(getValue(seed, i));
+        }
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Integer value : values) {
+            count(counts, value % 16);
+        }
+        long result = 0;
+        for (Map.Entry<Integer, Integer> countEntry : counts.entrySet()) {
+            result += (long) countEntry.getKey() * countEntry.getValue();
+        }
+        return result;
+    }
+
+    private static int getValue(int seed, int index) {
+        return (seed * 31 + index) * 17 & 0xFFFF;
+    }
+
+    private static void count(Map<Integer, Integer> counts, int key) {
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    private static long buildString(int seed) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < ELEMENTS_NUMBER; i++) {
+            appendItem(builder, seed, i);
+        }
+        return builder.toString().hashCode();
+    }
+
+    private static void appendItem(StringBuilder builder, int seed, int index) {
+        if (builder.length() > 0) {
+            builder.append(',');
+        }
+        builder.append("item").append(getValue(seed, index));
+    }
+}
@@ -0,0 +1,64 @@
+package org.jcontinue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// latency of perform, suspend and resume by the stack depth and the frame layout
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SuspendResumeBenchmark {
+
+    @Param({"1", "10", "30", "100"})
+    private int depth;
+
+    @Param({"empty", "primitive4", "reference4", "primitive16", "reference16"})
+    private String frameLayout;
+
+    private Supplier<Object> performer;
+    private UnaryOperator<Object> resumer;
+    private Object context;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Object workload = BenchmarkUtils.newTransformedInstance(SuspendResumeWorkload.class,
+                new Class<?>[] {int.class, String.class}, depth, frameLayout);
+        performer = (Supplier<Object>) workload;
+        resumer = (UnaryOperator<Object>) workload;
+        context = performer.get();
+    }
+
+    // descends to the depth and suspends
+    @Benchmark
+    public Object perform() {
+        return performer.get();
+    }
+
+    // restores the frames down to the depth and suspends again, the same context is resumed every time
+    @Benchmark
+    public Object resume() {
+        return resumer.apply(context);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return resumer.apply(performer.get());
+    }
+}
@@ -0,0 +1,142 @@
+package org.jcontinue.benchmarks;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.Task;
+
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// loaded by ContinuationClassTransformerClassLoader, get() performs and apply() resumes a context
+public class SuspendResumeWorkload implements Supplier<Object>, UnaryOperator<Object> {
+
+    private static final Object[] references = {"a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n",
+            "o", "p"};
+
+    private final Task task;
+
+    public SuspendResumeWorkload(int depth, String frameLayout) {
+        switch (frameLayout) {
+            case "empty":
+                task = () -> descendEmpty(depth);
+                break;
+            case "primitive4":
+                task = () -> descendPrimitive4(depth);
+                break;
+            case "reference4":
+                task = () -> descendReference4(depth);
+                break;
+            case "primitive16":
+                task = () -> descendPrimitive16(depth);
+                break;
+            case "reference16":
+                task = () -> descendReference16(depth);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown frame layout " + frameLayout);
+        }
+    }
+
+    @Override
+    public Object get() {
+        return checkSuspended(Continuation.perform(task));
+    }
+
+    @Override
+    public Object apply(Object context) {
+        return checkSuspended(Continuation.resume((Continuation.Context) context));
+    }
+
+    // private methods
+
+    private static Continuation.Context checkSuspended(Continuation.Context context) {
+        if (context.isFinished()) {
+            throw new IllegalStateException("the workload is finished");
+        }
+        return context;
+    }
+
+    private static long suspendForever() {
+        while (true) {
+            Continuation.suspend();
+        }
+    }
+
+    private static long descendEmpty(int depth) {
+        if (depth == 0) {
+            return suspendForever();
+        }
+        return descendEmpty(depth - 1) + 1;
+    }
+
+    private static long descendPrimitive4(int depth) {
+        if (depth == 0) {
+            return suspendForever();
+        }
+        long l0 = depth;
+        long l1 = l0 * 3;
+        long l2 = l1 * 5;
+        long l3 = l2 * 7;
+        return descendPrimitive4(depth - 1) + l0 + l1 + l2 + l3;
+    }
+
+    private static long descendReference4(int depth) {
+        if (depth == 0) {
+            return suspendForever();
+        }
+        Object o0 = references[0];
+        Object o1 = references[1];
+        Object o2 = references[2];
+        Object o3 = references[3];
+        return descendReference4(depth - 1) + o0.hashCode() + o1.hashCode() + o2.hashCode() + o3.hashCode();
+    }
+
+    private static long descendPrimitive16(int depth) {
+        if (depth == 0) {
+            return suspendForever();
+        }
+        long l0 = depth;
+        long l1 = l0 * 3;
+        long l2 = l1 * 5;
+        long l3 = l2 * 7;
+        long l4 = l3 * 11;
+        long l5 = l4 * 13;
+        long l6 = l5 * 17;
+        long l7 = l6 * 19;
+        long l8 = l7 * 23;
+        long l9 = l8 * 29;
+        long l10 = l9 * 31;
+        long l11 = l10 * 37;
+        long l12 = l11 * 41;
+        long l13 = l12 * 43;
+        long l14 = l13 * 47;
+        long l15 = l14 * 53;
+        return descendPrimitive16(depth - 1) + l0 + l1 + l2 + l3 + l4 + l5 + l6 + l7 + l8 + l9 + l10 + l11 + l12
+                + l13 + l14 + l15;
+    }
+
+    private static long descendReference16(int depth) {
+        if (depth == 0) {
+            return suspendForever();
+        }
+        Object o0 = references[0];
+        Object o1 = references[1];
+        Object o2 = references[2];
+        Object o3 = references[3];
+        Object o4 = references[4];
+        Object o5 = references[5];
+        Object o6 = references[6];
+        Object o7 = references[7];
+        Object o8 = references[8];
+        Object o9 = references[9];
+        Object o10 = references[10];
+        Object o11 = references[11];
+        Object o12 = references[12];
+        Object o13 = references[13];
+        Object o14 = references[14];
+        Object o15 = references[15];
+        return descendReference16(depth - 1) + o0.hashCode() + o1.hashCode() + o2.hashCode() + o3.hashCode()
+                + o4.hashCode() + o5.hashCode() + o6.hashCode() + o7.hashCode() + o8.hashCode() + o9.hashCode()
+                + o10.hashCode() + o11.hashCode() + o12.hashCode() + o13.hashCode() + o14.hashCode()
+                + o15.hashCode();
+    }
+}
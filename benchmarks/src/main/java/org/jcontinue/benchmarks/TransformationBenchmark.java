@@ -0,0 +1,180 @@
+package org.jcontinue.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.StringUtils;
+import org.jcontinue.analyzer.ClassHierarchyIndex;
+import org.jcontinue.analyzer.SimpleObjectFrameItemFactory;
+import org.jcontinue.analyzer.StandardMethodAnalyzer;
+import org.jcontinue.base.AsmUtils;
+import org.jcontinue.base.CachingClassBodyResolver;
+import org.jcontinue.base.ClassBodyResolver;
+import org.jcontinue.base.ClasspathIndexClassBodyResolver;
+import org.jcontinue.continuation.SimpleContinuationClassTransformerRegistry;
+import org.jcontinue.continuation.StandardContinuationMethodTransformer;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// analysis and transformation throughput, an operation is one method of a dependency jar
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformationBenchmark {
+
+    @Param({"guava", "commons-lang3", "asm"})
+    private String corpus;
+
+    private StandardMethodAnalyzer analyzer;
+    private StandardContinuationMethodTransformer transformer;
+    private final List<CorpusMethod> methods = new ArrayList<>();
+    private int nextMethodIndex;
+
+    private static class CorpusMethod {
+        private final String className;
+        private final MethodNode method;
+        private final int codeSize;
+
+        private CorpusMethod(String className, MethodNode method, int codeSize) {
+            this.className = className;
+            this.method = method;
+            this.codeSize = codeSize;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long methods;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            methods = 0;
+            bytes = 0;
+        }
+
+        private void count(CorpusMethod method) {
+            methods++;
+            bytes += method.codeSize;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException, URISyntaxException {
+        ClassBodyResolver classBodyResolver =
+                new CachingClassBodyResolver(ClasspathIndexClassBodyResolver.getSystemClasspathResolver());
+        SimpleObjectFrameItemFactory objectFactory =
+                new SimpleObjectFrameItemFactory(new ClassHierarchyIndex(classBodyResolver));
+        SimpleContinuationClassTransformerRegistry registry = new SimpleContinuationClassTransformerRegistry();
+        analyzer = new StandardMethodAnalyzer(objectFactory);
+        transformer = new StandardContinuationMethodTransformer(registry, analyzer, objectFactory);
+
+        int unsupportedMethodsNumber = 0;
+        try (ZipFile jar = new ZipFile(getCorpusJar(corpus))) {
+            Enumeration<? extends ZipEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.getName().endsWith(".class") || entry.getName().endsWith("module-info.class")) {
+                    continue;
+                }
+                ClassNode clazz = new ClassNode(Opcodes.ASM5);
+                try (InputStream input = jar.getInputStream(entry)) {
+                    new ClassReader(input).accept(clazz, 0);
+                }
+                String className = clazz.name.replace('/', '.');
+                for (MethodNode method : (List<MethodNode>) clazz.methods) {
+                    if (!registry.doTransformMethod(clazz, method)) {
+                        continue;
+                    }
+                    // the methods which the transformer rejects are left out, the class loader fails on them too
+                    try {
+                        transformer.transformMethod(className, BenchmarkUtils.copy(method));
+                    } catch (RuntimeException e) {
+                        unsupportedMethodsNumber++;
+                        continue;
+                    }
+                    methods.add(new CorpusMethod(className, method, AsmUtils.getCodeSize(method)));
+                }
+            }
+        }
+        System.out.println(corpus + ": " + methods.size() + " methods, " + unsupportedMethodsNumber
+                + " unsupported methods");
+    }
+
+    @Benchmark
+    public Object analyze(Counters counters) {
+        CorpusMethod method = nextMethod();
+        counters.count(method);
+        return analyzer.analyzeMethod(method.className, method.method);
+    }
+
+    @Benchmark
+    public Object transform(Counters counters) {
+        CorpusMethod method = nextMethod();
+        counters.count(method);
+        MethodNode result = BenchmarkUtils.copy(method.method);
+        transformer.transformMethod(method.className, result);
+        return result;
+    }
+
+    @Benchmark
+    public Object copy(Counters counters) {
+        CorpusMethod method = nextMethod();
+        counters.count(method);
+        return BenchmarkUtils.copy(method.method);
+    }
+
+    // private methods
+
+    private CorpusMethod nextMethod() {
+        CorpusMethod result = methods.get(nextMethodIndex);
+        nextMethodIndex = nextMethodIndex + 1 == methods.size() ? 0 : nextMethodIndex + 1;
+        return result;
+    }
+
+    private static File getCorpusJar(String corpus) throws URISyntaxException {
+        Class<?> corpusClass;
+        switch (corpus) {
+            case "guava":
+                corpusClass = ImmutableList.class;
+                break;
+            case "commons-lang3":
+                corpusClass = StringUtils.class;
+                break;
+            case "asm":
+                corpusClass = ClassReader.class;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown corpus " + corpus);
+        }
+        return new File(corpusClass.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+}
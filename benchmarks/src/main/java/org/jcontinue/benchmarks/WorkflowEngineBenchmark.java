@@ -0,0 +1,124 @@
+package org.jcontinue.benchmarks;
+
+import org.jcontinue.workflow.WriteAheadLog;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// write-ahead log commits and engine checkpoints by the batch size, an operation is a run of all the threads
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkflowEngineBenchmark {
+
+    private static final int RECORDS_PER_THREAD = 2000;
+    private static final int RECORD_SIZE = 256;
+
+    // a temporary directory if empty, the syncs are only meaningful on the measured device
+    @Param({""})
+    private String directory;
+
+    // the appending threads of the log and the workflows of the engine
+    @Param({"64"})
+    private int threads;
+
+    @Param({"1", "8", "64", "512"})
+    private int batchSize;
+
+    private Path benchmarkDirectory;
+    private LongSupplier workload;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class LogCounters {
+        public long commits;
+        public long syncs;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            commits = 0;
+            syncs = 0;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class EngineCounters {
+        public long checkpoints;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            checkpoints = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        benchmarkDirectory = directory.isEmpty() ? Files.createTempDirectory("workflow-benchmark")
+                : Files.createDirectories(Paths.get(directory));
+        workload = (LongSupplier) BenchmarkUtils.newTransformedInstance(WorkflowEngineWorkload.class,
+                new Class<?>[] {String.class, int.class, int.class}, benchmarkDirectory.toString(), threads,
+                batchSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        ((AutoCloseable) workload).close();
+        if (directory.isEmpty()) {
+            Files.deleteIfExists(benchmarkDirectory);
+        }
+    }
+
+    // every thread waits for its record to be synced before appending the next one
+    @Benchmark
+    public void log(LogCounters counters) throws IOException, InterruptedException {
+        Path file = benchmarkDirectory.resolve("benchmark.log");
+        try (WriteAheadLog log = new WriteAheadLog(file, batchSize)) {
+            List<Thread> appenders = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                appenders.add(new Thread(() -> {
+                    byte[] record = new byte[RECORD_SIZE];
+                    for (int j = 0; j < RECORDS_PER_THREAD; j++) {
+                        log.append(record).join();
+                    }
+                }));
+            }
+            appenders.forEach(Thread::start);
+            for (Thread appender : appenders) {
+                appender.join();
+            }
+            counters.commits += log.getRecordsNumber();
+            counters.syncs += log.getSyncsNumber();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public void engine(EngineCounters counters) {
+        counters.checkpoints += workload.getAsLong();
+    }
+}
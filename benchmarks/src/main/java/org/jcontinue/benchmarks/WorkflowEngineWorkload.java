@@ -0,0 +1,78 @@
+package org.jcontinue.benchmarks;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.continuation.ContinuationSerializableObjectCodec;
+import org.jcontinue.continuation.Task;
+import org.jcontinue.workflow.WorkflowEngine;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+// loaded by ContinuationClassTransformerClassLoader, getAsLong() runs the workflows on a new engine and returns the
+// number of checkpoints
+public class WorkflowEngineWorkload implements LongSupplier, AutoCloseable {
+
+    private static final int CHECKPOINTS_PER_WORKFLOW = 200;
+
+    private final Path directory;
+    private final int workflows;
+    private final int batchSize;
+    private long records;
+    private long syncs;
+
+    public WorkflowEngineWorkload(String directory, int workflows, int batchSize) {
+        this.directory = Paths.get(directory).resolve("engine");
+        this.workflows = workflows;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public long getAsLong() {
+        try {
+            try (WorkflowEngine engine = new WorkflowEngine(directory, new ContinuationSerializableObjectCodec(),
+                    getClass().getClassLoader(), Collections.emptyMap(), Runtime.getRuntime().availableProcessors(),
+                    batchSize, WorkflowEngine.DEFAULT_COMPACTION_SIZE)) {
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < workflows; i++) {
+                    futures.add(engine.start(new CheckpointingWorkflow()));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+                records += engine.getWriteAheadLog().getRecordsNumber();
+                syncs += engine.getWriteAheadLog().getSyncsNumber();
+            } finally {
+                Files.deleteIfExists(directory.resolve("workflows.log"));
+                Files.deleteIfExists(directory);
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+        return (long) workflows * CHECKPOINTS_PER_WORKFLOW;
+    }
+
+    @Override
+    public void close() {
+        if (syncs > 0) {
+            System.out.printf("%n%.1f records per sync%n", (double) records / syncs);
+        }
+    }
+
+    public static class CheckpointingWorkflow implements Task, Serializable {
+
+        @Override
+        public void perform() {
+            long sum = 0;
+            for (int i = 0; i < CHECKPOINTS_PER_WORKFLOW; i++) {
+                sum += i;
+                WorkflowEngine.checkpoint();
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.jcontinue.continuation;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -8,6 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 public class Continuation {
 
@@ -61,7 +61,7 @@ public class Continuation {
             this.locals = locals;
         }
 
-        private Context(List<__SavedFrameContext> frames, Task task, Map<Local<?>, Object> locals) {
+        Context(List<__SavedFrameContext> frames, Task task, Map<Local<?>, Object> locals) {
             Objects.requireNonNull(frames);
             Objects.requireNonNull(task);
             finished = false;
@@ -79,6 +79,20 @@ public class Continuation {
         public <T> void set(Local<? super T> local, T value) {
             locals.put(local, value);
         }
+
+        // used by ContinuationContextSerializer
+
+        List<__SavedFrameContext> getFrames() {
+            return frames;
+        }
+
+        Task getTask() {
+            return task;
+        }
+
+        Map<Local<?>, Object> getLocals() {
+            return locals;
+        }
     }
 
     public static class Local<T> {
@@ -100,10 +114,15 @@ public class Continuation {
     }
 
     public static Context perform(Task task) {
+        return perform(task, new HashMap<>());
+    }
+
+    // the task is performed with the initial values of the locals
+    public static Context perform(Task task, Map<? extends Local<?>, ?> locals) {
         ThreadContext threadContext = new ThreadContext();
         threadContext.status = ThreadContextStatus.RUNNING;
-        threadContext.locals = new HashMap<>();
-        return perform(threadContext, task);
+        threadContext.locals = new HashMap<>(locals);
+        return perform(threadContextStack.get(), threadContext, task);
     }
 
     public static void suspend() {
@@ -114,7 +133,6 @@ public class Continuation {
         if (threadContext.status == ThreadContextStatus.RUNNING) {
             threadContext.status = ThreadContextStatus.SUSPENDING;
             threadContext.savedFrameContexts = new ArrayList<>();
-            threadContext.nextCalledObject = null;
         } else if (threadContext.status == ThreadContextStatus.RESUMING) {
             threadContext.status = ThreadContextStatus.RUNNING;
             threadContext.savedFrameContexts = null;
@@ -131,7 +149,29 @@ public class Continuation {
         threadContext.savedFrameContexts = new ArrayList<>(context.frames);
         threadContext.status = ThreadContextStatus.RESUMING;
         threadContext.locals = new HashMap<>(context.locals);
-        return perform(threadContext, context.task);
+        return perform(threadContextStack.get(), threadContext, context.task);
+    }
+
+    // the thread context stack is looked up once and the thread context is reused
+    public static void resumeAll(Iterable<? extends Context> contexts, Consumer<? super Context> resultConsumer) {
+        List<ThreadContext> threadContextStack = Continuation.threadContextStack.get();
+        ThreadContext threadContext = new ThreadContext();
+        List<__SavedFrameContext> savedFrameContexts = new ArrayList<>();
+        for (Context context : contexts) {
+            if (context.finished) {
+                throw new ContinuationException("trying to continue already finished Continuation.Context");
+            }
+            savedFrameContexts.clear();
+            savedFrameContexts.addAll(context.frames);
+            threadContext.savedFrameContexts = savedFrameContexts;
+            threadContext.status = ThreadContextStatus.RESUMING;
+            threadContext.locals = new HashMap<>(context.locals);
+            resultConsumer.accept(perform(threadContextStack, threadContext, context.task));
+        }
+    }
+
+    public static boolean isInContext() {
+        return getThreadContext() != null;
     }
 
     // api methods
@@ -177,34 +217,11 @@ public class Continuation {
         throw new ContinuationException("invalid threadContext.status: " + threadContext.status);
     }
 
-    public static void __addSavedFrameContext(__SavedFrameContext savedFrameContext, String nextCalledObjectFieldName,
-            Object currentCalledObject) {
-        ThreadContext threadContext = getThreadContext();
-        if (threadContext.status != ThreadContextStatus.SUSPENDING) {
-            throw new ContinuationException("invalid threadContext.status: " + threadContext.status);
-        }
-        if (threadContext.nextCalledObject == null) {
-            throw new ContinuationException("nextCalledObject cannot be null");
-        }
-        try {
-            Field nexCalledObjectField = savedFrameContext.getClass().getField(nextCalledObjectFieldName);
-            nexCalledObjectField.set(savedFrameContext, threadContext.nextCalledObject);
-        } catch (IllegalAccessException | NoSuchFieldException e) {
-            throw new ContinuationException(e);
-        }
-        threadContext.nextCalledObject = currentCalledObject;
-        threadContext.savedFrameContexts.add(savedFrameContext);
-    }
-
-    public static void __addSavedFrameContext(__SavedFrameContext savedFrameContext, Object currentCalledObject) {
+    public static void __addSavedFrameContext(__SavedFrameContext savedFrameContext) {
         ThreadContext threadContext = getThreadContext();
         if (threadContext.status != ThreadContextStatus.SUSPENDING) {
             throw new ContinuationException("invalid threadContext.status: " + threadContext.status);
         }
-        if (threadContext.nextCalledObject != null) {
-            throw new ContinuationException("invalid threadContext.nextCalledObject: " + threadContext.nextCalledObject);
-        }
-        threadContext.nextCalledObject = currentCalledObject;
         threadContext.savedFrameContexts.add(savedFrameContext);
     }
 
@@ -222,9 +239,10 @@ public class Continuation {
         if (__finishedMethod()) {
             __TransformedReflectionMethodSavedContext savedContext = new __TransformedReflectionMethodSavedContext();
             savedContext.method = method;
+            savedContext.owner = owner;
             savedContext.args = args;
             savedContext.pointcut = 1;
-            __addSavedFrameContext(savedContext, "owner", null);
+            __addSavedFrameContext(savedContext);
         }
         return result;
     }
@@ -241,7 +259,6 @@ public class Continuation {
     private static class ThreadContext {
         private ThreadContextStatus status;
         private List<__SavedFrameContext> savedFrameContexts;
-        private Object nextCalledObject;
         private Map<Local<?>, Object> locals;
     }
 
@@ -249,8 +266,7 @@ public class Continuation {
         RUNNING, SUSPENDING, RESUMING;
     }
 
-    private static Context perform(ThreadContext threadContext, Task task) {
-        List<ThreadContext> threadContextStack = Continuation.threadContextStack.get();
+    private static Context perform(List<ThreadContext> threadContextStack, ThreadContext threadContext, Task task) {
         int lastItemIndex = threadContextStack.size();
         threadContextStack.add(threadContext);
         try {
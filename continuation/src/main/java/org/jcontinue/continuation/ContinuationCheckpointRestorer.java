@@ -0,0 +1,60 @@
+package org.jcontinue.continuation;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+// restores the contexts from the records of ContinuationCheckpointer
+public class ContinuationCheckpointRestorer {
+
+    private final ContinuationContextSerializer serializer;
+    private byte[] bytes;
+    private long sequence = -1;
+
+    public ContinuationCheckpointRestorer(ContinuationContextSerializer serializer) {
+        Objects.requireNonNull(serializer);
+        this.serializer = serializer;
+    }
+
+    public void apply(byte[] record) throws IOException {
+        ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+        int recordType = recordBuffer.get();
+        long recordSequence = recordBuffer.getLong();
+        if (recordType == ContinuationCheckpointer.FULL_RECORD) {
+            bytes = Arrays.copyOfRange(record, recordBuffer.position(), record.length);
+        } else if (recordType == ContinuationCheckpointer.DELTA_RECORD) {
+            if (bytes == null || recordSequence != sequence + 1) {
+                throw new StreamCorruptedException("delta record " + recordSequence + " does not follow record "
+                        + sequence);
+            }
+            int prefixLength = recordBuffer.getInt();
+            if (prefixLength > bytes.length) {
+                throw new StreamCorruptedException("invalid prefix length " + prefixLength);
+            }
+            byte[] newBytes = Arrays.copyOf(bytes, prefixLength + recordBuffer.remaining());
+            recordBuffer.get(newBytes, prefixLength, recordBuffer.remaining());
+            bytes = newBytes;
+        } else {
+            throw new StreamCorruptedException("invalid record type " + recordType);
+        }
+        sequence = recordSequence;
+    }
+
+    public Continuation.Context getContext() throws IOException {
+        if (bytes == null) {
+            throw new IllegalStateException("no full record has been applied");
+        }
+        return serializer.deserialize(bytes);
+    }
+
+    public Continuation.Context restore(byte[] record) throws IOException {
+        apply(record);
+        return getContext();
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,79 @@
+package org.jcontinue.continuation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+// a checkpoint record is either the full serialized context or the delta from the previous one
+public class ContinuationCheckpointer {
+
+    public static final int DEFAULT_FULL_CHECKPOINT_INTERVAL = 64;
+
+    static final int FULL_RECORD = 0;
+    static final int DELTA_RECORD = 1;
+    // record type, sequence, prefix length
+    private static final int DELTA_HEADER_SIZE = Byte.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final ContinuationContextSerializer serializer;
+    private final int fullCheckpointInterval;
+    private byte[] previousBytes;
+    private long nextSequence;
+    private int deltasNumber;
+
+    // the deltas are the common prefixes of the serialized contexts, a compressed body starts with its length and
+    // differs from the first bytes, so every record of a compressing serializer would be full
+    public ContinuationCheckpointer(ContinuationContextSerializer serializer, int fullCheckpointInterval) {
+        Objects.requireNonNull(serializer);
+        if (serializer.isCompressed()) {
+            throw new IllegalArgumentException("serializer must not be compressing");
+        }
+        if (fullCheckpointInterval <= 0) {
+            throw new IllegalArgumentException("fullCheckpointInterval must be positive");
+        }
+        this.serializer = serializer;
+        this.fullCheckpointInterval = fullCheckpointInterval;
+    }
+
+    public ContinuationCheckpointer(ContinuationContextSerializer serializer) {
+        this(serializer, DEFAULT_FULL_CHECKPOINT_INTERVAL);
+    }
+
+    public byte[] checkpoint(Continuation.Context context) throws IOException {
+        byte[] bytes = serializer.serialize(context);
+        int prefixLength = 0;
+        if (previousBytes != null && deltasNumber < fullCheckpointInterval) {
+            int maxPrefixLength = Math.min(previousBytes.length, bytes.length);
+            while (prefixLength < maxPrefixLength && previousBytes[prefixLength] == bytes[prefixLength]) {
+                prefixLength++;
+            }
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream(DELTA_HEADER_SIZE + bytes.length - prefixLength);
+        DataOutputStream recordOutput = new DataOutputStream(record);
+        if (prefixLength > DELTA_HEADER_SIZE) {
+            recordOutput.writeByte(DELTA_RECORD);
+            recordOutput.writeLong(nextSequence);
+            recordOutput.writeInt(prefixLength);
+            deltasNumber++;
+        } else {
+            recordOutput.writeByte(FULL_RECORD);
+            recordOutput.writeLong(nextSequence);
+            prefixLength = 0;
+            deltasNumber = 0;
+        }
+        recordOutput.write(bytes, prefixLength, bytes.length - prefixLength);
+        previousBytes = bytes;
+        nextSequence++;
+        return record.toByteArray();
+    }
+
+    // the records before a full record are not needed to restore the context
+    public static boolean isFullRecord(byte[] bytes, int offset) {
+        return bytes[offset] == FULL_RECORD;
+    }
+
+    // the next checkpoint is full, e.g. when the previous records are lost
+    public void reset() {
+        previousBytes = null;
+    }
+}
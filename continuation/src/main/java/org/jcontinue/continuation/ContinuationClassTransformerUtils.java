@@ -27,6 +27,7 @@ import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.TypeInsnNode;
 import org.objectweb.asm.tree.VarInsnNode;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
@@ -155,7 +156,7 @@ public class ContinuationClassTransformerUtils {
     }
 
     public static InsnList getLoadSavedFrameInstructions(Frame currentFrame, PointcutFrameStructure pointcutStructure,
-            int auxiliaryLocal) {
+            int invocationObjectLocal, int auxiliaryLocal) {
         int auxiliaryLocalCounter = auxiliaryLocal;
         Map<FrameItem, Integer> uninitializedObjectsLocalIndexes = new HashMap<>();
         InsnList result = new InsnList();
@@ -249,6 +250,8 @@ public class ContinuationClassTransformerUtils {
             Type fieldType = pointcutStructure.getInvocationObjectItem().getAsmType();
             result.add(AsmUtils.getLoadReferenceInstruction(savedFrameContextLocalIndex));
             result.add(AsmUtils.getGetFieldInstruction(savedFrameContextClassType, fieldName, fieldType, false));
+            result.add(AsmUtils.getDupInstruction());
+            result.add(AsmUtils.getStoreReferenceInstruction(invocationObjectLocal));
         }
 
         if (!pointcutStructure.getSortedAsmTypes().isEmpty()) {
@@ -345,7 +348,7 @@ public class ContinuationClassTransformerUtils {
     }
 
     public static InsnList getSaveFrameInstructions(PointcutFrameStructure pointcutStructure, int pointcutNumber,
-            int auxiliaryLocal) {
+            int invocationObjectLocal, int auxiliaryLocal) {
         InsnList result = new InsnList();
 
         // construct saved frame context
@@ -386,25 +389,81 @@ public class ContinuationClassTransformerUtils {
         result.add(AsmUtils.getPushIntInstruction(pointcutNumber));
         result.add(AsmUtils.getSetFieldInstruction(pointcutNumberSavedFrameContextField));
 
+        // save invocation object
+        PointcutFrameStructureItem invocationObjectItem = pointcutStructure.getInvocationObjectItem();
+        if (invocationObjectItem != null) {
+            result.add(AsmUtils.getLoadReferenceInstruction(savedFrameContextLocalIndex));
+            result.add(AsmUtils.getLoadReferenceInstruction(invocationObjectLocal));
+            result.add(AsmUtils.getCheckcastInstruction(invocationObjectItem.getAsmType()));
+            result.add(AsmUtils.getSetFieldInstruction(pointcutStructure.getSavedFrameContextClassType(),
+                    invocationObjectItem.getFieldName(), invocationObjectItem.getAsmType(), false));
+        }
+
         // add saved frame context
         result.add(AsmUtils.getLoadReferenceInstruction(savedFrameContextLocalIndex));
-        if (pointcutStructure.getInvocationObjectItem() != null) {
-            result.add(AsmUtils.getPushStringInstruction(pointcutStructure.getInvocationObjectItem().getFieldName()));
-            result.add(getLoadThisInstruction(pointcutStructure));
-            result.add(AsmUtils.getInvocationInstruction(storeFrameNonStaticInvocationMethod));
-        } else {
-            result.add(getLoadThisInstruction(pointcutStructure));
-            result.add(AsmUtils.getInvocationInstruction(storeFrameStaticInvocationMethod));
-        }
+        result.add(AsmUtils.getInvocationInstruction(storeFrameMethod));
 
         return result;
     }
 
+    // the invocation object is consumed by the invocation, so it is copied to a local before the arguments are pushed;
+    // the callee cannot provide it when the call goes through a class which is not transformed such as a lambda
+    public static InsnList getStoreInvocationObjectInstructions(PointcutFrameStructure pointcutStructure,
+            int invocationObjectLocal, int auxiliaryLocal) {
+        InsnList result = new InsnList();
+        List<Type> argumentTypes = pointcutStructure.getInvocationArgumentTypes();
+        int[] argumentLocalIndexes = new int[argumentTypes.size()];
+        int auxiliaryLocalCounter = auxiliaryLocal;
+        for (int i = 0; i < argumentTypes.size(); i++) {
+            argumentLocalIndexes[i] = auxiliaryLocalCounter;
+            auxiliaryLocalCounter += argumentTypes.get(i).getSize();
+        }
+        for (int i = argumentTypes.size() - 1; i >= 0; i--) {
+            result.add(AsmUtils.getStoreInstruction(argumentTypes.get(i), argumentLocalIndexes[i]));
+        }
+        result.add(AsmUtils.getDupInstruction());
+        result.add(AsmUtils.getStoreReferenceInstruction(invocationObjectLocal));
+        for (int i = 0; i < argumentTypes.size(); i++) {
+            result.add(AsmUtils.getLoadInstruction(argumentTypes.get(i), argumentLocalIndexes[i]));
+        }
+        return result;
+    }
+
     public static boolean isInvocationInstruction(AbstractInsnNode instruction) {
         return instruction.getType() == AbstractInsnNode.METHOD_INSN ||
                 instruction.getType() == AbstractInsnNode.INVOKE_DYNAMIC_INSN;
     }
 
+    // every pointcut of a transformed method checks Continuation.__finishedMethod() after its invocation
+    public static int getPointcutsNumber(MethodNode transformedMethod) {
+        String continuationClassInternalName = Type.getInternalName(Continuation.class);
+        int result = 0;
+        for (Iterator<AbstractInsnNode> i = transformedMethod.instructions.iterator(); i.hasNext();) {
+            AbstractInsnNode instruction = i.next();
+            if (instruction.getType() == AbstractInsnNode.METHOD_INSN) {
+                MethodInsnNode methodInstruction = (MethodInsnNode) instruction;
+                if (methodInstruction.owner.equals(continuationClassInternalName)
+                        && methodInstruction.name.equals("__finishedMethod")) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    // the invocation always throws NullPointerException then, javac emits such ones for try-with-resources
+    public static boolean isNullObjectInvocation(Frame invocationFrame, AbstractInsnNode invocationInstruction) {
+        if (isInvocationStatic(invocationInstruction)) {
+            return false;
+        }
+        int argumentLength = 0;
+        for (Type argumentType : Type.getArgumentTypes(getAsmMethodDescriptor(invocationInstruction))) {
+            argumentLength += argumentType.getSize();
+        }
+        List<? extends FrameItem> stack = invocationFrame.getStack();
+        return stack.get(stack.size() - argumentLength - 1).equals(FrameItem.NULL);
+    }
+
     public static boolean isInvocationConstructor(MethodInsnNode instruction) {
         return instruction.name.equals("<init>") || instruction.name.equals("<clinit>");
     }
@@ -454,28 +513,100 @@ public class ContinuationClassTransformerUtils {
         constructorVisitor.visitMaxs(1, 1);
         constructorVisitor.visitEnd();
 
+        String frameOutputInternalName = Type.getInternalName(ContinuationFrameOutput.class);
+        String frameInputInternalName = Type.getInternalName(ContinuationFrameInput.class);
+        String[] ioExceptionInternalNames = {Type.getInternalName(IOException.class)};
+
+        MethodVisitor newInstanceVisitor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "__newInstance",
+                Type.getMethodDescriptor(Type.getObjectType(asmSuperclassInternalName)), null, null);
+        newInstanceVisitor.visitCode();
+        newInstanceVisitor.visitTypeInsn(Opcodes.NEW, asmClassInternalName);
+        newInstanceVisitor.visitInsn(Opcodes.DUP);
+        newInstanceVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, asmClassInternalName, "<init>", "()V", false);
+        newInstanceVisitor.visitInsn(Opcodes.ARETURN);
+        newInstanceVisitor.visitMaxs(2, 1);
+        newInstanceVisitor.visitEnd();
+
+        StringBuilder fieldDescriptors = new StringBuilder();
+        for (Type type : sortedTypes) {
+            fieldDescriptors.append(type.getDescriptor());
+        }
+        MethodVisitor fieldDescriptorsVisitor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "__getFieldDescriptors",
+                Type.getMethodDescriptor(Type.getType(String.class)), null, null);
+        fieldDescriptorsVisitor.visitCode();
+        fieldDescriptorsVisitor.visitLdcInsn(fieldDescriptors.toString());
+        fieldDescriptorsVisitor.visitInsn(Opcodes.ARETURN);
+        fieldDescriptorsVisitor.visitMaxs(1, 1);
+        fieldDescriptorsVisitor.visitEnd();
+
+        MethodVisitor writeFieldsVisitor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "__writeFields",
+                Type.getMethodDescriptor(Type.VOID_TYPE, Type.getObjectType(frameOutputInternalName)), null,
+                ioExceptionInternalNames);
+        writeFieldsVisitor.visitCode();
+        MethodVisitor readFieldsVisitor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "__readFields",
+                Type.getMethodDescriptor(Type.VOID_TYPE, Type.getObjectType(frameInputInternalName)), null,
+                ioExceptionInternalNames);
+        readFieldsVisitor.visitCode();
+        fieldIndexCounter = 0;
+        for (Type type : sortedTypes) {
+            String fieldName = getSavedContextFieldName(fieldIndexCounter);
+            Type serializedType = getSerializedFieldType(type);
+            String serializedTypeName = getSerializedFieldTypeName(serializedType);
+
+            writeFieldsVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+            writeFieldsVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+            writeFieldsVisitor.visitFieldInsn(Opcodes.GETFIELD, asmClassInternalName, fieldName, type.getDescriptor());
+            writeFieldsVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, frameOutputInternalName,
+                    "write" + serializedTypeName, Type.getMethodDescriptor(Type.VOID_TYPE, serializedType), false);
+
+            readFieldsVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+            readFieldsVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+            readFieldsVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, frameInputInternalName,
+                    "read" + serializedTypeName, Type.getMethodDescriptor(serializedType), false);
+            if (serializedType.getSort() == Type.OBJECT) {
+                readFieldsVisitor.visitTypeInsn(Opcodes.CHECKCAST, type.getInternalName());
+            }
+            readFieldsVisitor.visitFieldInsn(Opcodes.PUTFIELD, asmClassInternalName, fieldName, type.getDescriptor());
+            fieldIndexCounter++;
+        }
+        writeFieldsVisitor.visitInsn(Opcodes.RETURN);
+        writeFieldsVisitor.visitMaxs(4, 2);
+        writeFieldsVisitor.visitEnd();
+        readFieldsVisitor.visitInsn(Opcodes.RETURN);
+        readFieldsVisitor.visitMaxs(3, 2);
+        readFieldsVisitor.visitEnd();
+
         classWriter.visitEnd();
 
         return classWriter.toByteArray();
     }
 
+    public static String getSavedContextClassName(List<? extends Type> sortedTypes) {
+        if (sortedTypes.isEmpty()) {
+            return __SavedFrameContext.class.getName();
+        } else {
+            Hasher hasher = Hashing.sha256().newHasher();
+            for (Type type : sortedTypes) {
+                hasher.putString(type.getDescriptor(), utf8Charset);
+            }
+            String hash = hasher.hash().toString();
+            String result = __SavedFrameContext.class.getName() + "$" + hash;
+            return result;
+        }
+    }
 
     /// private methods
 
     private static final Method getSavedFrameContextMethod;
     private static final Field pointcutNumberSavedFrameContextField;
-    private static final Method storeFrameNonStaticInvocationMethod;
-    private static final Method storeFrameStaticInvocationMethod;
+    private static final Method storeFrameMethod;
     private static final Method startingMethod;
 
     static {
         try {
             getSavedFrameContextMethod = Continuation.class.getMethod("__getSavedFrameContext");
             pointcutNumberSavedFrameContextField = __SavedFrameContext.class.getField("pointcut");
-            storeFrameNonStaticInvocationMethod = Continuation.class.getMethod("__addSavedFrameContext",
-                    __SavedFrameContext.class, String.class, Object.class);
-            storeFrameStaticInvocationMethod = Continuation.class.getMethod("__addSavedFrameContext",
-                    __SavedFrameContext.class, Object.class);
+            storeFrameMethod = Continuation.class.getMethod("__addSavedFrameContext", __SavedFrameContext.class);
             startingMethod = Continuation.class.getMethod("__startingMethod");
         } catch (NoSuchMethodException | NoSuchFieldException e) {
             throw Throwables.propagate(e);
@@ -483,34 +614,45 @@ public class ContinuationClassTransformerUtils {
 
     }
 
-    private static AbstractInsnNode getLoadThisInstruction(PointcutFrameStructure pointcutStructure) {
-        if (pointcutStructure.isMethodStatic()) {
-            return AsmUtils.getPushNullInstruction();
-        } else {
-            return AsmUtils.getLoadReferenceInstruction(0);
-        }
-    }
-
     private static String getSavedContextFieldName(int fieldIndex) {
         String result = "_" + fieldIndex;
         return result;
     }
 
-    private static String getSavedContextClassName(List<? extends Type> sortedTypes) {
-        if (sortedTypes.isEmpty()) {
-            return __SavedFrameContext.class.getName();
-        } else {
-            Hasher hasher = Hashing.sha256().newHasher();
-            for (Type type : sortedTypes) {
-                hasher.putString(type.getDescriptor(), utf8Charset);
-            }
-            String hash = hasher.hash().toString();
-            String result = __SavedFrameContext.class.getName() + "$" + hash;
-            return result;
+    private static Charset utf8Charset = Charset.forName("UTF-8");
+
+    // the type of the ContinuationFrameOutput and ContinuationFrameInput methods used for a saved frame field
+    private static Type getSerializedFieldType(Type fieldType) {
+        switch (fieldType.getSort()) {
+            case Type.BOOLEAN:
+            case Type.BYTE:
+            case Type.CHAR:
+            case Type.SHORT:
+            case Type.INT:
+                return Type.INT_TYPE;
+            case Type.FLOAT:
+            case Type.LONG:
+            case Type.DOUBLE:
+                return fieldType;
+            default:
+                return AsmUtils.OBJECT_ASM_TYPE;
         }
     }
 
-    private static Charset utf8Charset = Charset.forName("UTF-8");
+    private static String getSerializedFieldTypeName(Type serializedType) {
+        switch (serializedType.getSort()) {
+            case Type.INT:
+                return "Int";
+            case Type.FLOAT:
+                return "Float";
+            case Type.LONG:
+                return "Long";
+            case Type.DOUBLE:
+                return "Double";
+            default:
+                return "Object";
+        }
+    }
 
     private static String getAsmMethodDescriptor(AbstractInsnNode invocationInstruction) {
         if (invocationInstruction instanceof MethodInsnNode) {
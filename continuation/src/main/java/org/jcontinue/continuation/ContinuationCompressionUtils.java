@@ -0,0 +1,169 @@
+package org.jcontinue.continuation;
+
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+
+// lz4 block format
+public class ContinuationCompressionUtils {
+
+    private static final int MIN_MATCH = 4;
+    // the last 5 bytes are literals and the last match starts at least 12 bytes before the end
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_LOG = 14;
+    private static final int LENGTH_MASK = 0xF;
+    private static final int SKIP_TRIGGER = 6;
+
+    public static int getMaxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    public static byte[] compress(byte[] source, int offset, int length) {
+        byte[] result = new byte[getMaxCompressedLength(length)];
+        int resultPosition = 0;
+        int end = offset + length;
+        int anchor = offset;
+        if (length > MATCH_FIND_LIMIT) {
+            int[] hashTable = new int[1 << HASH_LOG];
+            Arrays.fill(hashTable, -1);
+            int matchFindLimit = end - MATCH_FIND_LIMIT;
+            int matchLimit = end - LAST_LITERALS;
+            int position = offset;
+            while (position <= matchFindLimit) {
+                int sequence = readInt(source, position);
+                int hash = hash(sequence);
+                int candidate = hashTable[hash];
+                hashTable[hash] = position;
+                if (candidate < 0 || position - candidate > MAX_OFFSET || readInt(source, candidate) != sequence) {
+                    // the incompressible data is skipped faster
+                    position += 1 + ((position - anchor) >>> SKIP_TRIGGER);
+                    continue;
+                }
+                while (position > anchor && candidate > offset && source[position - 1] == source[candidate - 1]) {
+                    position--;
+                    candidate--;
+                }
+                int matchLength = MIN_MATCH;
+                while (position + matchLength < matchLimit
+                        && source[position + matchLength] == source[candidate + matchLength]) {
+                    matchLength++;
+                }
+                int tokenPosition = resultPosition;
+                resultPosition = writeSequence(source, anchor, position - anchor, result, resultPosition);
+                result[tokenPosition] |= Math.min(matchLength - MIN_MATCH, LENGTH_MASK);
+                result[resultPosition++] = (byte) (position - candidate);
+                result[resultPosition++] = (byte) ((position - candidate) >>> 8);
+                resultPosition = writeLengthExtension(matchLength - MIN_MATCH, result, resultPosition);
+                position += matchLength;
+                anchor = position;
+            }
+        }
+        resultPosition = writeSequence(source, anchor, end - anchor, result, resultPosition);
+        return Arrays.copyOf(result, resultPosition);
+    }
+
+    public static byte[] decompress(byte[] source, int offset, int length, int decompressedLength)
+            throws StreamCorruptedException {
+        byte[] result = new byte[decompressedLength];
+        int resultPosition = 0;
+        int position = offset;
+        int end = offset + length;
+        while (true) {
+            if (position >= end) {
+                throw new StreamCorruptedException("unexpected end of compressed block");
+            }
+            int token = source[position++] & 0xFF;
+            long literalsLength = token >>> 4;
+            if (literalsLength == LENGTH_MASK) {
+                int b;
+                do {
+                    if (position >= end) {
+                        throw new StreamCorruptedException("unexpected end of compressed block");
+                    }
+                    b = source[position++] & 0xFF;
+                    literalsLength += b;
+                } while (b == 0xFF && literalsLength <= decompressedLength);
+            }
+            if (literalsLength > end - position || literalsLength > decompressedLength - resultPosition) {
+                throw new StreamCorruptedException("invalid literals length " + literalsLength);
+            }
+            System.arraycopy(source, position, result, resultPosition, (int) literalsLength);
+            position += literalsLength;
+            resultPosition += literalsLength;
+            if (position == end) {
+                break;
+            }
+            if (end - position < 2) {
+                throw new StreamCorruptedException("unexpected end of compressed block");
+            }
+            int matchOffset = (source[position] & 0xFF) | (source[position + 1] & 0xFF) << 8;
+            position += 2;
+            if (matchOffset == 0 || matchOffset > resultPosition) {
+                throw new StreamCorruptedException("invalid match offset " + matchOffset);
+            }
+            long matchLength = token & LENGTH_MASK;
+            if (matchLength == LENGTH_MASK) {
+                int b;
+                do {
+                    if (position >= end) {
+                        throw new StreamCorruptedException("unexpected end of compressed block");
+                    }
+                    b = source[position++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF && matchLength <= decompressedLength);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > decompressedLength - resultPosition) {
+                throw new StreamCorruptedException("invalid match length " + matchLength);
+            }
+            int matchPosition = resultPosition - matchOffset;
+            if (matchOffset >= matchLength) {
+                System.arraycopy(result, matchPosition, result, resultPosition, (int) matchLength);
+                resultPosition += matchLength;
+            } else {
+                // the match overlaps the bytes it produces
+                for (int i = 0; i < matchLength; i++) {
+                    result[resultPosition++] = result[matchPosition++];
+                }
+            }
+        }
+        if (resultPosition != decompressedLength) {
+            throw new StreamCorruptedException("decompressed length " + resultPosition + " instead of "
+                    + decompressedLength);
+        }
+        return result;
+    }
+
+    // private methods
+
+    // writes the token with the literals length, the literals length extension and the literals, the match length
+    // is added to the token by the caller
+    private static int writeSequence(byte[] source, int literalsOffset, int literalsLength, byte[] result,
+            int resultPosition) {
+        result[resultPosition++] = (byte) (Math.min(literalsLength, LENGTH_MASK) << 4);
+        resultPosition = writeLengthExtension(literalsLength, result, resultPosition);
+        System.arraycopy(source, literalsOffset, result, resultPosition, literalsLength);
+        return resultPosition + literalsLength;
+    }
+
+    private static int writeLengthExtension(int length, byte[] result, int resultPosition) {
+        if (length < LENGTH_MASK) {
+            return resultPosition;
+        }
+        for (length -= LENGTH_MASK; length >= 0xFF; length -= 0xFF) {
+            result[resultPosition++] = (byte) 0xFF;
+        }
+        result[resultPosition++] = (byte) length;
+        return resultPosition;
+    }
+
+    private static int readInt(byte[] source, int position) {
+        return (source[position] & 0xFF) | (source[position + 1] & 0xFF) << 8 | (source[position + 2] & 0xFF) << 16
+                | (source[position + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+}
@@ -0,0 +1,282 @@
+package org.jcontinue.continuation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// writes suspended contexts in a compact binary format
+public class ContinuationContextSerializer {
+
+    private static final int MAGIC = 0x4A43_4358;
+    private static final int VERSION = 2;
+    // the version without the flags
+    private static final int VERSION_1 = 1;
+    private static final int DICTIONARY_FLAG = 1;
+    private static final int COMPRESSED_FLAG = 2;
+    private static final int END_OF_FRAMES = 0;
+    private static final int NEW_FRAME_CLASS = 1;
+    private static final int FIRST_FRAME_CLASS_INDEX = 2;
+
+    private final ContinuationObjectCodec codec;
+    private final ClassLoader classLoader;
+    private final Map<String, Continuation.Local<?>> locals = new HashMap<>();
+    private final Map<Continuation.Local<?>, String> localNames = new HashMap<>();
+    private final Map<String, __SavedFrameContext> framePrototypes = new ConcurrentHashMap<>();
+    private final Method loadSavedFrameContextClassMethod;
+    private final ContinuationFrameClassDictionary dictionary;
+    private final boolean compressed;
+
+    // the unregistered locals are not written, the dictionary can be null
+    public ContinuationContextSerializer(ContinuationObjectCodec codec, ClassLoader classLoader,
+            Map<String, ? extends Continuation.Local<?>> locals, ContinuationFrameClassDictionary dictionary,
+            boolean compressed) {
+        Objects.requireNonNull(codec);
+        Objects.requireNonNull(classLoader);
+        this.codec = codec;
+        this.classLoader = classLoader;
+        this.dictionary = dictionary;
+        this.compressed = compressed;
+        for (Map.Entry<String, ? extends Continuation.Local<?>> localEntry : locals.entrySet()) {
+            this.locals.put(localEntry.getKey(), localEntry.getValue());
+            localNames.put(localEntry.getValue(), localEntry.getKey());
+        }
+        loadSavedFrameContextClassMethod = getLoadSavedFrameContextClassMethod(classLoader);
+    }
+
+    public ContinuationContextSerializer(ContinuationObjectCodec codec, ClassLoader classLoader,
+            Map<String, ? extends Continuation.Local<?>> locals) {
+        this(codec, classLoader, locals, null, false);
+    }
+
+    public ContinuationContextSerializer(ClassLoader classLoader, Map<String, ? extends Continuation.Local<?>> locals) {
+        this(new ContinuationSerializableObjectCodec(), classLoader, locals);
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void write(Continuation.Context context, DataOutput output) throws IOException {
+        if (context.isFinished()) {
+            throw new IllegalArgumentException("only suspended Continuation.Context can be serialized");
+        }
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        int flags = dictionary != null ? DICTIONARY_FLAG : 0;
+        if (!compressed) {
+            output.writeByte(flags);
+            writeBody(context, output);
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeBody(context, new DataOutputStream(body));
+        byte[] bodyBytes = body.toByteArray();
+        byte[] compressedBodyBytes = ContinuationCompressionUtils.compress(bodyBytes, 0, bodyBytes.length);
+        if (compressedBodyBytes.length < bodyBytes.length) {
+            output.writeByte(flags | COMPRESSED_FLAG);
+            output.writeInt(bodyBytes.length);
+            output.writeInt(compressedBodyBytes.length);
+            output.write(compressedBodyBytes);
+        } else {
+            output.writeByte(flags);
+            output.write(bodyBytes);
+        }
+    }
+
+    public Continuation.Context read(DataInput input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new StreamCorruptedException("not a serialized Continuation.Context");
+        }
+        int version = input.readUnsignedByte();
+        if (version != VERSION && version != VERSION_1) {
+            throw new StreamCorruptedException("unsupported version " + version);
+        }
+        int flags = version == VERSION_1 ? 0 : input.readUnsignedByte();
+        if ((flags & ~(DICTIONARY_FLAG | COMPRESSED_FLAG)) != 0) {
+            throw new StreamCorruptedException("unsupported flags " + flags);
+        }
+        if ((flags & DICTIONARY_FLAG) != 0 && dictionary == null) {
+            throw new StreamCorruptedException("Continuation.Context is written with a frame class dictionary");
+        }
+        if ((flags & COMPRESSED_FLAG) != 0) {
+            int bodyLength = input.readInt();
+            int compressedBodyLength = input.readInt();
+            if (bodyLength < 0 || compressedBodyLength < 0) {
+                throw new StreamCorruptedException("invalid compressed body length");
+            }
+            byte[] compressedBodyBytes = new byte[compressedBodyLength];
+            input.readFully(compressedBodyBytes);
+            byte[] bodyBytes = ContinuationCompressionUtils.decompress(compressedBodyBytes, 0, compressedBodyLength,
+                    bodyLength);
+            input = new DataInputStream(new ByteArrayInputStream(bodyBytes));
+        }
+        return readBody(input, (flags & DICTIONARY_FLAG) != 0);
+    }
+
+    public byte[] serialize(Continuation.Context context) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(context, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    public Continuation.Context deserialize(byte[] bytes) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    // private methods
+
+    private void writeBody(Continuation.Context context, DataOutput output) throws IOException {
+        ContinuationFrameOutput frameOutput = new ContinuationFrameOutput(output, codec);
+        frameOutput.writeObject(context.getTask());
+
+        List<__SavedFrameContext> frames = context.getFrames();
+        // a frame class is written once, the next frames of the class refer to it by its index
+        Map<Class<?>, Integer> frameClassIndexes = dictionary == null ? new HashMap<>() : null;
+        for (int i = frames.size() - 1; i >= 0; i--) {
+            __SavedFrameContext frame = frames.get(i);
+            Integer frameClassIndex;
+            if (dictionary != null) {
+                frameClassIndex = dictionary.getIndex(frame.getClass().getName(), frame.__getFieldDescriptors());
+            } else {
+                frameClassIndex = frameClassIndexes.get(frame.getClass());
+            }
+            if (frameClassIndex == null) {
+                frameClassIndexes.put(frame.getClass(), frameClassIndexes.size());
+                frameOutput.writeUnsignedInt(NEW_FRAME_CLASS);
+                frameOutput.writeString(frame.getClass().getName());
+                frameOutput.writeString(frame.__getFieldDescriptors());
+            } else {
+                frameOutput.writeUnsignedInt(FIRST_FRAME_CLASS_INDEX + frameClassIndex);
+            }
+            frameOutput.writeUnsignedInt(frame.pointcut);
+            frame.__writeFields(frameOutput);
+        }
+        frameOutput.writeUnsignedInt(END_OF_FRAMES);
+
+        int localsNumber = 0;
+        for (Continuation.Local<?> local : context.getLocals().keySet()) {
+            if (localNames.containsKey(local)) {
+                localsNumber++;
+            }
+        }
+        frameOutput.writeUnsignedInt(localsNumber);
+        for (Map.Entry<Continuation.Local<?>, Object> localEntry : context.getLocals().entrySet()) {
+            String name = localNames.get(localEntry.getKey());
+            if (name != null) {
+                frameOutput.writeString(name);
+                frameOutput.writeObject(localEntry.getValue());
+            }
+        }
+    }
+
+    private Continuation.Context readBody(DataInput input, boolean dictionaryUsed) throws IOException {
+        ContinuationFrameInput frameInput = new ContinuationFrameInput(input, codec, classLoader);
+        Object task = frameInput.readObject();
+        if (!(task instanceof Task)) {
+            throw new InvalidObjectException("invalid task " + task);
+        }
+
+        List<__SavedFrameContext> frames = new ArrayList<>();
+        List<__SavedFrameContext> frameClassPrototypes = new ArrayList<>();
+        // the prototypes of the dictionary frame classes by their indexes
+        Map<Integer, __SavedFrameContext> dictionaryPrototypes = dictionaryUsed ? new HashMap<>() : null;
+        for (int frameClassIndex = frameInput.readUnsignedInt(); frameClassIndex != END_OF_FRAMES;
+                frameClassIndex = frameInput.readUnsignedInt()) {
+            __SavedFrameContext prototype;
+            if (dictionaryUsed && frameClassIndex >= FIRST_FRAME_CLASS_INDEX) {
+                int dictionaryIndex = frameClassIndex - FIRST_FRAME_CLASS_INDEX;
+                prototype = dictionaryPrototypes.get(dictionaryIndex);
+                if (prototype == null) {
+                    if (dictionaryIndex >= dictionary.size()) {
+                        throw new StreamCorruptedException("invalid frame class dictionary index " + dictionaryIndex);
+                    }
+                    prototype = getFramePrototype(dictionary.getClassName(dictionaryIndex),
+                            dictionary.getFieldDescriptors(dictionaryIndex));
+                    dictionaryPrototypes.put(dictionaryIndex, prototype);
+                }
+            } else if (frameClassIndex == NEW_FRAME_CLASS) {
+                String className = frameInput.readString();
+                String fieldDescriptors = frameInput.readString();
+                prototype = getFramePrototype(className, fieldDescriptors);
+                frameClassPrototypes.add(prototype);
+            } else if (frameClassIndex - FIRST_FRAME_CLASS_INDEX < frameClassPrototypes.size()) {
+                prototype = frameClassPrototypes.get(frameClassIndex - FIRST_FRAME_CLASS_INDEX);
+            } else {
+                throw new StreamCorruptedException("invalid frame class index " + frameClassIndex);
+            }
+            __SavedFrameContext frame = prototype.__newInstance();
+            frame.pointcut = frameInput.readUnsignedInt();
+            frame.__readFields(frameInput);
+            frames.add(frame);
+        }
+        Collections.reverse(frames);
+
+        int localsNumber = frameInput.readUnsignedInt();
+        Map<Continuation.Local<?>, Object> contextLocals = new HashMap<>();
+        for (int i = 0; i < localsNumber; i++) {
+            String name = frameInput.readString();
+            Object value = frameInput.readObject();
+            // the locals which are not registered anymore are dropped
+            Continuation.Local<?> local = locals.get(name);
+            if (local != null) {
+                contextLocals.put(local, value);
+            }
+        }
+        return new Continuation.Context(frames, (Task) task, contextLocals);
+    }
+
+    // the frame class is resolved once, the frames are created by the generated __newInstance() then
+    private __SavedFrameContext getFramePrototype(String className, String fieldDescriptors) throws IOException {
+        __SavedFrameContext result = framePrototypes.get(className);
+        if (result == null) {
+            try {
+                Class<?> frameClass;
+                if (loadSavedFrameContextClassMethod != null) {
+                    frameClass = (Class<?>) loadSavedFrameContextClassMethod.invoke(classLoader, className,
+                            fieldDescriptors);
+                } else {
+                    frameClass = classLoader.loadClass(className);
+                }
+                if (!__SavedFrameContext.class.isAssignableFrom(frameClass)) {
+                    throw new InvalidClassException(className, "not a saved frame context class");
+                }
+                result = (__SavedFrameContext) frameClass.newInstance();
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException
+                    | InvocationTargetException e) {
+                InvalidClassException exception = new InvalidClassException(className, "cannot be instantiated");
+                exception.initCause(e instanceof InvocationTargetException ? e.getCause() : e);
+                throw exception;
+            }
+            framePrototypes.put(className, result);
+        }
+        if (!result.__getFieldDescriptors().equals(fieldDescriptors)) {
+            throw new InvalidClassException(className, "incompatible fields " + fieldDescriptors);
+        }
+        return result;
+    }
+
+    // looked up by the name, the serializer is usually loaded by that class loader itself
+    private static Method getLoadSavedFrameContextClassMethod(ClassLoader classLoader) {
+        try {
+            return classLoader.getClass().getMethod("loadSavedFrameContextClass", String.class, String.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
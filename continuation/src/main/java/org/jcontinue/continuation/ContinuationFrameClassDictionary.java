@@ -0,0 +1,89 @@
+package org.jcontinue.continuation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// the saved frame context classes shared by the serialized contexts
+public class ContinuationFrameClassDictionary {
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private final List<FrameClass> frameClasses = new CopyOnWriteArrayList<>();
+
+    private static class FrameClass {
+        private final String className;
+        private final String fieldDescriptors;
+
+        private FrameClass(String className, String fieldDescriptors) {
+            this.className = className;
+            this.fieldDescriptors = fieldDescriptors;
+        }
+    }
+
+    public int size() {
+        return frameClasses.size();
+    }
+
+    public void write(DataOutput output) throws IOException {
+        List<FrameClass> frameClasses = new ArrayList<>(this.frameClasses);
+        output.writeInt(frameClasses.size());
+        for (FrameClass frameClass : frameClasses) {
+            output.writeUTF(frameClass.className);
+            output.writeUTF(frameClass.fieldDescriptors);
+        }
+    }
+
+    public static ContinuationFrameClassDictionary read(DataInput input) throws IOException {
+        int size = input.readInt();
+        if (size < 0) {
+            throw new StreamCorruptedException("invalid dictionary size " + size);
+        }
+        ContinuationFrameClassDictionary result = new ContinuationFrameClassDictionary();
+        for (int i = 0; i < size; i++) {
+            String className = input.readUTF();
+            String fieldDescriptors = input.readUTF();
+            if (result.getIndex(className, fieldDescriptors) != i) {
+                throw new StreamCorruptedException("duplicate frame class " + className);
+            }
+        }
+        return result;
+    }
+
+    // used by ContinuationContextSerializer
+
+    // adds the frame class if it is not in the dictionary yet
+    int getIndex(String className, String fieldDescriptors) {
+        Integer result = indexes.get(className);
+        if (result == null) {
+            synchronized (this) {
+                result = indexes.get(className);
+                if (result == null) {
+                    result = frameClasses.size();
+                    // the frame class is added before its index is published
+                    frameClasses.add(new FrameClass(className, fieldDescriptors));
+                    indexes.put(className, result);
+                    return result;
+                }
+            }
+        }
+        if (!frameClasses.get(result).fieldDescriptors.equals(fieldDescriptors)) {
+            throw new IllegalArgumentException("frame class " + className + " has incompatible fields "
+                    + fieldDescriptors);
+        }
+        return result;
+    }
+
+    String getClassName(int index) {
+        return frameClasses.get(index).className;
+    }
+
+    String getFieldDescriptors(int index) {
+        return frameClasses.get(index).fieldDescriptors;
+    }
+}
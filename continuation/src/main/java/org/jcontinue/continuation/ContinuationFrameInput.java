@@ -0,0 +1,83 @@
+package org.jcontinue.continuation;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+// used by the generated saved frame context readers
+public final class ContinuationFrameInput {
+
+    private final DataInput input;
+    private final ContinuationObjectCodec.ObjectReader objectReader;
+    private final ClassLoader classLoader;
+    private final List<Object> references = new ArrayList<>();
+
+    ContinuationFrameInput(DataInput input, ContinuationObjectCodec codec, ClassLoader classLoader) {
+        this.input = input;
+        objectReader = codec.newObjectReader(input, classLoader);
+        this.classLoader = classLoader;
+    }
+
+    public int readInt() throws IOException {
+        int value = (int) readUnsignedVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readLong() throws IOException {
+        long value = readUnsignedVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public float readFloat() throws IOException {
+        return input.readFloat();
+    }
+
+    public double readDouble() throws IOException {
+        return input.readDouble();
+    }
+
+    public Object readObject() throws IOException {
+        long reference = readUnsignedVarLong();
+        if (reference == ContinuationFrameOutput.NULL_REFERENCE) {
+            return null;
+        }
+        if (reference == ContinuationFrameOutput.NEW_REFERENCE) {
+            Object value = objectReader.read();
+            references.add(value);
+            return value;
+        }
+        long index = reference - ContinuationFrameOutput.FIRST_BACK_REFERENCE;
+        if (index >= references.size()) {
+            throw new StreamCorruptedException("invalid back reference " + index);
+        }
+        return references.get((int) index);
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    int readUnsignedInt() throws IOException {
+        return (int) readUnsignedVarLong();
+    }
+
+    String readString() throws IOException {
+        return input.readUTF();
+    }
+
+    // private methods
+
+    private long readUnsignedVarLong() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("malformed varint");
+    }
+}
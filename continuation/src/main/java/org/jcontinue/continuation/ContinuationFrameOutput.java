@@ -0,0 +1,72 @@
+package org.jcontinue.continuation;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// used by the generated saved frame context writers
+public final class ContinuationFrameOutput {
+
+    static final int NULL_REFERENCE = 0;
+    static final int NEW_REFERENCE = 1;
+    static final int FIRST_BACK_REFERENCE = 2;
+
+    private final DataOutput output;
+    private final ContinuationObjectCodec.ObjectWriter objectWriter;
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+
+    ContinuationFrameOutput(DataOutput output, ContinuationObjectCodec codec) {
+        this.output = output;
+        objectWriter = codec.newObjectWriter(output);
+    }
+
+    public void writeInt(int value) throws IOException {
+        writeUnsignedVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    public void writeLong(long value) throws IOException {
+        writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeFloat(float value) throws IOException {
+        output.writeFloat(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        output.writeDouble(value);
+    }
+
+    public void writeObject(Object value) throws IOException {
+        if (value == null) {
+            writeUnsignedVarLong(NULL_REFERENCE);
+            return;
+        }
+        Integer reference = references.get(value);
+        if (reference != null) {
+            writeUnsignedVarLong(FIRST_BACK_REFERENCE + reference);
+            return;
+        }
+        references.put(value, references.size());
+        writeUnsignedVarLong(NEW_REFERENCE);
+        objectWriter.write(value);
+    }
+
+    void writeUnsignedInt(int value) throws IOException {
+        writeUnsignedVarLong(value & 0xFFFFFFFFL);
+    }
+
+    void writeString(String value) throws IOException {
+        output.writeUTF(value);
+    }
+
+    // private methods
+
+    private void writeUnsignedVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+}
@@ -0,0 +1,29 @@
+package org.jcontinue.continuation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// writes the references of the serialized contexts
+public interface ContinuationObjectCodec {
+    void write(DataOutput output, Object value) throws IOException;
+
+    Object read(DataInput input, ClassLoader classLoader) throws IOException;
+
+    interface ObjectWriter {
+        void write(Object value) throws IOException;
+    }
+
+    interface ObjectReader {
+        Object read() throws IOException;
+    }
+
+    // all the references of a context are written by one writer
+    default ObjectWriter newObjectWriter(DataOutput output) {
+        return value -> write(output, value);
+    }
+
+    default ObjectReader newObjectReader(DataInput input, ClassLoader classLoader) {
+        return () -> read(input, classLoader);
+    }
+}
@@ -0,0 +1,211 @@
+package org.jcontinue.continuation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+// writes strings and boxed primitives compactly, the other objects with the java serialization
+public class ContinuationSerializableObjectCodec implements ContinuationObjectCodec {
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int INTEGER = 2;
+    private static final int LONG = 3;
+    private static final int BOOLEAN = 4;
+    private static final int DOUBLE = 5;
+    private static final int SERIALIZABLE = 6;
+    // a chunk of the object stream shared by the references of a context
+    private static final int STREAM_CHUNK = 7;
+
+    @Override
+    public void write(DataOutput output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            output.writeByte(STRING);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        } else if (value instanceof Integer) {
+            output.writeByte(INTEGER);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeDouble((Double) value);
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+                objectOutput.writeObject(value);
+            }
+            output.writeByte(SERIALIZABLE);
+            output.writeInt(bytes.size());
+            output.write(bytes.toByteArray());
+        }
+    }
+
+    @Override
+    public Object read(DataInput input, ClassLoader classLoader) throws IOException {
+        return read(input, input.readUnsignedByte(), classLoader);
+    }
+
+    @Override
+    public ObjectWriter newObjectWriter(DataOutput output) {
+        return new StreamObjectWriter(output);
+    }
+
+    @Override
+    public ObjectReader newObjectReader(DataInput input, ClassLoader classLoader) {
+        return new StreamObjectReader(input, classLoader);
+    }
+
+    // private methods
+
+    private static boolean isSerializable(Object value) {
+        return value != null && !(value instanceof String) && !(value instanceof Integer) && !(value instanceof Long)
+                && !(value instanceof Boolean) && !(value instanceof Double);
+    }
+
+    private static Object read(DataInput input, int tag, ClassLoader classLoader) throws IOException {
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return new String(readBytes(input), StandardCharsets.UTF_8);
+            case INTEGER:
+                return input.readInt();
+            case LONG:
+                return input.readLong();
+            case BOOLEAN:
+                return input.readBoolean();
+            case DOUBLE:
+                return input.readDouble();
+            case SERIALIZABLE:
+                try (ObjectInputStream objectInput =
+                        new ClassLoaderObjectInputStream(new ByteArrayInputStream(readBytes(input)), classLoader)) {
+                    return objectInput.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            case STREAM_CHUNK:
+                throw new StreamCorruptedException("object stream chunk out of its stream");
+            default:
+                throw new StreamCorruptedException("invalid object tag " + tag);
+        }
+    }
+
+    private static byte[] readBytes(DataInput input) throws IOException {
+        byte[] result = new byte[input.readInt()];
+        input.readFully(result);
+        return result;
+    }
+
+    private class StreamObjectWriter implements ObjectWriter {
+
+        private final DataOutput output;
+        private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        private ObjectOutputStream objectOutput;
+
+        private StreamObjectWriter(DataOutput output) {
+            this.output = output;
+        }
+
+        @Override
+        public void write(Object value) throws IOException {
+            if (!isSerializable(value)) {
+                ContinuationSerializableObjectCodec.this.write(output, value);
+                return;
+            }
+            if (objectOutput == null) {
+                objectOutput = new ObjectOutputStream(chunk);
+            }
+            objectOutput.writeObject(value);
+            objectOutput.flush();
+            output.writeByte(STREAM_CHUNK);
+            output.writeInt(chunk.size());
+            output.write(chunk.toByteArray());
+            chunk.reset();
+        }
+    }
+
+    private static class StreamObjectReader implements ObjectReader {
+
+        private final DataInput input;
+        private final ClassLoader classLoader;
+        private final ChunkInputStream chunk = new ChunkInputStream();
+        private ObjectInputStream objectInput;
+
+        private StreamObjectReader(DataInput input, ClassLoader classLoader) {
+            this.input = input;
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public Object read() throws IOException {
+            int tag = input.readUnsignedByte();
+            if (tag != STREAM_CHUNK) {
+                return ContinuationSerializableObjectCodec.read(input, tag, classLoader);
+            }
+            chunk.setBytes(readBytes(input));
+            if (objectInput == null) {
+                objectInput = new ClassLoaderObjectInputStream(chunk, classLoader);
+            }
+            Object result;
+            try {
+                result = objectInput.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+            if (chunk.available() > 0) {
+                throw new StreamCorruptedException("object stream chunk is not read to its end");
+            }
+            return result;
+        }
+    }
+
+    private static class ChunkInputStream extends ByteArrayInputStream {
+
+        private ChunkInputStream() {
+            super(new byte[0]);
+        }
+
+        private void setBytes(byte[] bytes) {
+            buf = bytes;
+            pos = 0;
+            mark = 0;
+            count = bytes.length;
+        }
+    }
+
+    private static class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+        private final ClassLoader classLoader;
+
+        private ClassLoaderObjectInputStream(InputStream input, ClassLoader classLoader) throws IOException {
+            super(input);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(description.getName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(description);
+            }
+        }
+    }
+}
@@ -56,6 +56,8 @@ public class StandardContinuationMethodTransformer implements ContinuationMethod
             AbstractInsnNode instruction = i.next();
             if (ContinuationClassTransformerUtils.isInvocationInstruction(instruction) &&
                     analyzeResult.isInstructionReachable(instruction) &&
+                    !ContinuationClassTransformerUtils.isNullObjectInvocation(
+                            analyzeResult.getFrames().get(instruction), instruction) &&
                     registry.doTransformInvokeInstruction(className, method, instruction)) {
                 if (instruction instanceof MethodInsnNode &&
                         ContinuationClassTransformerUtils.isInvocationConstructor((MethodInsnNode) instruction)) {
@@ -75,7 +77,8 @@ public class StandardContinuationMethodTransformer implements ContinuationMethod
                 ContinuationClassTransformerUtils.getGetAndStorePointcutNumberInstructions(pointcutLocalIndex);
         AbstractInsnNode firstPointcutDistributionInstruction = storePointcutNumberInstructions.getLast();
         Map<? super AbstractInsnNode, ? extends Frame> frames = analyzeResult.getFrames();
-        int auxiliaryLocalIndex = pointcutLocalIndex + 1;
+        int invocationObjectLocalIndex = pointcutLocalIndex + 1;
+        int auxiliaryLocalIndex = pointcutLocalIndex + 2;
 
         Set<AbstractInsnNode> auxiliaryInstructions = Sets.newHashSet(storePointcutNumberInstructions.iterator());
         method.instructions.insertBefore(startMethodInstruction, storePointcutNumberInstructions);
@@ -121,7 +124,7 @@ public class StandardContinuationMethodTransformer implements ContinuationMethod
 
             lastDistributionPointcutInstructions.add(
                     ContinuationClassTransformerUtils.getLoadSavedFrameInstructions(lastDistributionFrame,
-                    pointcutStructure, auxiliaryLocalIndex)
+                    pointcutStructure, invocationObjectLocalIndex, auxiliaryLocalIndex)
             );
             lastDistributionPointcutInstructions.add(AsmUtils.getPushAndStoreIntInstructions(0, pointcutLocalIndex));
             lastDistributionPointcutInstructions.add(AsmUtils.getGotoInstruction(pointcutInvocation,
@@ -138,12 +141,20 @@ public class StandardContinuationMethodTransformer implements ContinuationMethod
             }
 
             saveInstructions.add(ContinuationClassTransformerUtils.getSaveFrameInstructions(pointcutStructure,
-                    pointcutNumberCounter, auxiliaryLocalIndex));
+                    pointcutNumberCounter, invocationObjectLocalIndex, auxiliaryLocalIndex));
             saveInstructions.add(AsmUtils.getReturnAnyValueInstructions(Type.getReturnType(method.desc)));
 
             auxiliaryInstructions.addAll(Lists.newArrayList(saveInstructions.iterator()));
             method.instructions.insert(pointcutInvocation, saveInstructions);
 
+            if (pointcutStructure.getInvocationObjectItem() != null) {
+                InsnList storeInvocationObjectInstructions =
+                        ContinuationClassTransformerUtils.getStoreInvocationObjectInstructions(pointcutStructure,
+                        invocationObjectLocalIndex, auxiliaryLocalIndex);
+                auxiliaryInstructions.addAll(Lists.newArrayList(storeInvocationObjectInstructions.iterator()));
+                method.instructions.insertBefore(pointcutInvocation, storeInvocationObjectInstructions);
+            }
+
             if (pointcutStructure.isReflectionMethodInvocation()) {
                 method.instructions.insert(pointcutInvocation,
                         AsmUtils.getInvocationInstruction(transformedReflectionInvocationMethod));
@@ -151,7 +162,9 @@ public class StandardContinuationMethodTransformer implements ContinuationMethod
             }
 
             String savedContextClassName = pointcutStructure.getSavedFrameContextClassName();
-            if (!auxiliaryClasses.containsKey(savedContextClassName)) {
+            // a frame without saved items uses the base class itself, it must not be redefined
+            if (!savedContextClassName.equals(__SavedFrameContext.class.getName())
+                    && !auxiliaryClasses.containsKey(savedContextClassName)) {
                 byte[] auxiliaryClassBody = ContinuationClassTransformerUtils.getSavedFrameContextClassBody(
                         pointcutStructure.getSortedAsmTypes());
                 auxiliaryClasses.put(pointcutStructure.getSavedFrameContextClassName(), auxiliaryClassBody);
@@ -1,5 +1,23 @@
 package org.jcontinue.continuation;
 
+import java.io.IOException;
+
 public class __SavedFrameContext {
     public int pointcut;
+
+    // the generated subclasses override the methods below with the field by field implementations
+
+    public __SavedFrameContext __newInstance() {
+        return new __SavedFrameContext();
+    }
+
+    public String __getFieldDescriptors() {
+        return "";
+    }
+
+    public void __writeFields(ContinuationFrameOutput output) throws IOException {
+    }
+
+    public void __readFields(ContinuationFrameInput input) throws IOException {
+    }
 }
@@ -1,9 +1,76 @@
 package org.jcontinue.continuation;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.lang.reflect.Method;
 
 public class __TransformedReflectionMethodSavedContext extends __SavedFrameContext {
     public Method method;
     public Object owner;
     public Object[] args;
+
+    @Override
+    public __SavedFrameContext __newInstance() {
+        return new __TransformedReflectionMethodSavedContext();
+    }
+
+    @Override
+    public void __writeFields(ContinuationFrameOutput output) throws IOException {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        output.writeObject(method.getDeclaringClass().getName());
+        output.writeObject(method.getName());
+        output.writeInt(parameterTypes.length);
+        for (Class<?> parameterType : parameterTypes) {
+            output.writeObject(parameterType.getName());
+        }
+        output.writeObject(owner);
+        output.writeObject(args);
+    }
+
+    @Override
+    public void __readFields(ContinuationFrameInput input) throws IOException {
+        String declaringClassName = (String) input.readObject();
+        String methodName = (String) input.readObject();
+        Class<?>[] parameterTypes = new Class<?>[input.readInt()];
+        try {
+            ClassLoader classLoader = input.getClassLoader();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterTypes[i] = getClass((String) input.readObject(), classLoader);
+            }
+            method = Class.forName(declaringClassName, false, classLoader).getDeclaredMethod(methodName,
+                    parameterTypes);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            InvalidObjectException exception = new InvalidObjectException("cannot resolve the saved method");
+            exception.initCause(e);
+            throw exception;
+        }
+        method.setAccessible(true);
+        owner = input.readObject();
+        args = (Object[]) input.readObject();
+    }
+
+    // private methods
+
+    private static Class<?> getClass(String name, ClassLoader classLoader) throws ClassNotFoundException {
+        switch (name) {
+            case "boolean":
+                return boolean.class;
+            case "byte":
+                return byte.class;
+            case "char":
+                return char.class;
+            case "short":
+                return short.class;
+            case "int":
+                return int.class;
+            case "long":
+                return long.class;
+            case "float":
+                return float.class;
+            case "double":
+                return double.class;
+            default:
+                return Class.forName(name, false, classLoader);
+        }
+    }
 }
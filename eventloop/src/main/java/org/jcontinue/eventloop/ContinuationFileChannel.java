@@ -0,0 +1,186 @@
+package org.jcontinue.eventloop;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// file operations which suspend the current continuation
+public class ContinuationFileChannel implements AutoCloseable {
+
+    private final Path path;
+    private final AsynchronousFileChannel channel;
+
+    public ContinuationFileChannel(Path path, AsynchronousFileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    public static ContinuationFileChannel open(Path path, OpenOption... options) throws IOException {
+        return new ContinuationFileChannel(path, AsynchronousFileChannel.open(path, options));
+    }
+
+    public AsynchronousFileChannel getChannel() {
+        return channel;
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    // returns the number of the read bytes, -1 if the position is at the end of the file
+    public int read(ByteBuffer buffer, long position) throws IOException {
+        return (int) transfer(new ByteBuffer[] {buffer}, position, false, false);
+    }
+
+    // returns false if the end of the file is reached before the buffer is filled
+    public boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        transfer(new ByteBuffer[] {buffer}, position, false, true);
+        return !buffer.hasRemaining();
+    }
+
+    // the buffers are filled by concurrent operations, -1 if the position is at the end of the file
+    public long read(ByteBuffer[] buffers, long position) throws IOException {
+        return transfer(buffers, position, false, true);
+    }
+
+    public int write(ByteBuffer buffer, long position) throws IOException {
+        return (int) transfer(new ByteBuffer[] {buffer}, position, true, false);
+    }
+
+    public void writeFully(ByteBuffer buffer, long position) throws IOException {
+        transfer(new ByteBuffer[] {buffer}, position, true, true);
+    }
+
+    // gathering write: the buffers are written to consecutive ranges of the file by concurrent operations
+    public long write(ByteBuffer[] buffers, long position) throws IOException {
+        return transfer(buffers, position, true, true);
+    }
+
+    // for large sequential scans, the page faults of the mapped buffer block the thread instead of the continuation
+    public MappedByteBuffer map(long position, long size) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        }
+    }
+
+    public void force(boolean metaData) throws IOException {
+        channel.force(metaData);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // private methods
+
+    private long transfer(ByteBuffer[] buffers, long position, boolean write, boolean fully) throws IOException {
+        if (ContinuableThreadPoolExecutor.currentExecutor.get() == null) {
+            throw new IllegalStateException("file channel is used outside of a continuation executor");
+        }
+        // the ranges are calculated before any operation changes the buffers
+        long[] positions = new long[buffers.length];
+        int transfersNumber = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            positions[i] = position;
+            position += buffers[i].remaining();
+            if (buffers[i].hasRemaining()) {
+                transfersNumber++;
+            }
+        }
+        if (transfersNumber == 0) {
+            return 0;
+        }
+        Transfer transfer = new Transfer(write, fully, transfersNumber);
+        ContinuableThreadPoolExecutor.postSuspendAction.set(context -> {
+            transfer.context = context;
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i].hasRemaining()) {
+                    transfer.start(buffers[i], positions[i]);
+                }
+            }
+        });
+        Continuation.suspend();
+        Throwable exception = transfer.exception.get();
+        if (exception instanceof IOException) {
+            throw (IOException) exception;
+        } else if (exception != null) {
+            throw new IOException(exception);
+        }
+        long transferred = transfer.transferred.get();
+        return transferred == 0 && transfer.endOfFile ? -1 : transferred;
+    }
+
+    private class Transfer {
+        private final boolean write;
+        private final boolean fully;
+        private final AtomicInteger remainingTransfers;
+        private final AtomicLong transferred = new AtomicLong();
+        private final AtomicReference<Throwable> exception = new AtomicReference<>();
+        private volatile boolean endOfFile;
+        private volatile Continuation.Context context;
+
+        private Transfer(boolean write, boolean fully, int transfersNumber) {
+            this.write = write;
+            this.fully = fully;
+            remainingTransfers = new AtomicInteger(transfersNumber);
+        }
+
+        private void start(ByteBuffer buffer, long position) {
+            CompletionHandler<Integer, Long> handler = new CompletionHandler<Integer, Long>() {
+                @Override
+                public void completed(Integer result, Long position) {
+                    if (result < 0) {
+                        endOfFile = true;
+                        finish();
+                        return;
+                    }
+                    transferred.addAndGet(result);
+                    if (fully && buffer.hasRemaining()) {
+                        perform(buffer, position + result, this);
+                    } else {
+                        finish();
+                    }
+                }
+
+                @Override
+                public void failed(Throwable e, Long position) {
+                    exception.compareAndSet(null, e);
+                    finish();
+                }
+            };
+            perform(buffer, position, handler);
+        }
+
+        private void perform(ByteBuffer buffer, long position, CompletionHandler<Integer, Long> handler) {
+            try {
+                if (write) {
+                    channel.write(buffer, position, position, handler);
+                } else {
+                    channel.read(buffer, position, position, handler);
+                }
+            } catch (RuntimeException e) {
+                handler.failed(e, position);
+            }
+        }
+
+        // the last completed operation resumes the continuation
+        private void finish() {
+            if (remainingTransfers.decrementAndGet() == 0) {
+                context.get(ContinuableThreadPoolExecutor.currentExecutor).resume(context);
+            }
+        }
+    }
+}
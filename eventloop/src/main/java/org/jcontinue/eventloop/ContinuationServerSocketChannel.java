@@ -0,0 +1,53 @@
+package org.jcontinue.eventloop;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+public class ContinuationServerSocketChannel implements AutoCloseable {
+
+    private final EventLoop eventLoop;
+    private final ServerSocketChannel channel;
+
+    public ContinuationServerSocketChannel(EventLoop eventLoop, ServerSocketChannel channel) throws IOException {
+        this.eventLoop = eventLoop;
+        this.channel = channel;
+        channel.configureBlocking(false);
+    }
+
+    public static ContinuationServerSocketChannel bind(EventLoop eventLoop, SocketAddress address, int backlog)
+            throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(address, backlog);
+            return new ContinuationServerSocketChannel(eventLoop, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public ServerSocketChannel getChannel() {
+        return channel;
+    }
+
+    public SocketAddress getLocalAddress() throws IOException {
+        return channel.getLocalAddress();
+    }
+
+    // suspends until a connection is accepted
+    public ContinuationSocketChannel accept() throws IOException {
+        SocketChannel socketChannel;
+        while ((socketChannel = channel.accept()) == null) {
+            eventLoop.await(channel, SelectionKey.OP_ACCEPT);
+        }
+        return new ContinuationSocketChannel(eventLoop, socketChannel);
+    }
+
+    @Override
+    public void close() throws IOException {
+        eventLoop.close(channel);
+    }
+}
@@ -0,0 +1,111 @@
+package org.jcontinue.eventloop;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+// blocking style socket operations which suspend the current continuation instead of the thread
+public class ContinuationSocketChannel implements AutoCloseable {
+
+    private final EventLoop eventLoop;
+    private final SocketChannel channel;
+
+    public ContinuationSocketChannel(EventLoop eventLoop, SocketChannel channel) throws IOException {
+        this.eventLoop = eventLoop;
+        this.channel = channel;
+        channel.configureBlocking(false);
+    }
+
+    public static ContinuationSocketChannel open(EventLoop eventLoop) throws IOException {
+        return new ContinuationSocketChannel(eventLoop, SocketChannel.open());
+    }
+
+    public static ContinuationSocketChannel connect(EventLoop eventLoop, SocketAddress address) throws IOException {
+        ContinuationSocketChannel channel = open(eventLoop);
+        try {
+            channel.connect(address);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public EventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    public void connect(SocketAddress address) throws IOException {
+        if (!channel.connect(address)) {
+            do {
+                eventLoop.await(channel, SelectionKey.OP_CONNECT);
+            } while (!channel.finishConnect());
+        }
+    }
+
+    // suspends until at least one byte is read, returns -1 at the end of stream
+    public int read(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasRemaining()) {
+            return 0;
+        }
+        int read;
+        while ((read = channel.read(buffer)) == 0) {
+            eventLoop.await(channel, SelectionKey.OP_READ);
+        }
+        return read;
+    }
+
+    // suspends until the buffer is filled, returns false if the stream is ended before
+    public boolean readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // suspends until all the remaining bytes are written
+    public void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.write(buffer) == 0) {
+                eventLoop.await(channel, SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    // suspends until all the remaining bytes are written
+    public void write(ByteBuffer[] buffers) throws IOException {
+        while (hasRemaining(buffers)) {
+            if (channel.write(buffers) == 0) {
+                eventLoop.await(channel, SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    public void shutdownOutput() throws IOException {
+        channel.shutdownOutput();
+    }
+
+    @Override
+    public void close() throws IOException {
+        eventLoop.close(channel);
+    }
+
+    // private methods
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
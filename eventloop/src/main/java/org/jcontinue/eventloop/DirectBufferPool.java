@@ -0,0 +1,54 @@
+package org.jcontinue.eventloop;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// direct buffers are expensive to allocate and are freed by the GC only, so they are reused
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int maximumPooledBuffers;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    public DirectBufferPool(int bufferSize, int maximumPooledBuffers) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.maximumPooledBuffers = maximumPooledBuffers;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getPooledBuffers() {
+        return pooledBuffers.get();
+    }
+
+    // the buffer is cleared
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooledBuffers.decrementAndGet();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.capacity() != bufferSize) {
+            throw new IllegalArgumentException("buffer is not acquired from the pool");
+        }
+        // the excess buffers are left to the GC
+        if (pooledBuffers.incrementAndGet() <= maximumPooledBuffers) {
+            buffer.clear();
+            buffers.add(buffer);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.jcontinue.eventloop;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+// owns a selector and its thread
+public class EventLoop implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventLoop.class);
+
+    private static final int READ_OPS = SelectionKey.OP_READ | SelectionKey.OP_ACCEPT;
+    private static final int WRITE_OPS = SelectionKey.OP_WRITE | SelectionKey.OP_CONNECT;
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final int DEFAULT_MAXIMUM_POOLED_BUFFERS = 1024;
+
+    private final Selector selector;
+    private final DirectBufferPool bufferPool;
+    // tasks to run on the selector thread, the selector is not touched by other threads
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean selecting;
+    private volatile boolean closed;
+
+    // waiting contexts of a key, one reading and one writing context at most
+    private static class Waiters {
+        private Continuation.Context reader;
+        private Continuation.Context writer;
+    }
+
+    public EventLoop(DirectBufferPool bufferPool) {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+        this.bufferPool = bufferPool;
+        Thread thread = new Thread(this::run, "event-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public EventLoop() {
+        this(new DirectBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAXIMUM_POOLED_BUFFERS));
+    }
+
+    public DirectBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    // suspends the current continuation until the channel is ready for one of the operations
+    public void await(SelectableChannel channel, int ops) {
+        if (ContinuableThreadPoolExecutor.currentExecutor.get() == null) {
+            throw new IllegalStateException("event loop is used outside of a continuation executor");
+        }
+        if ((ops & READ_OPS) != 0 && (ops & WRITE_OPS) != 0) {
+            throw new IllegalArgumentException("reading and writing operations can't be awaited together");
+        }
+        if (closed) {
+            throw new IllegalStateException("event loop is closed");
+        }
+        ContinuableThreadPoolExecutor.postSuspendAction.set(context -> {
+            if (!execute(() -> register(channel, ops, context))) {
+                // the loop is closed meanwhile, the retried operation fails on the check above
+                resume(context);
+            }
+        });
+        Continuation.suspend();
+    }
+
+    // the continuations waiting for the channel are resumed and get the closed channel exception
+    public void close(SelectableChannel channel) throws IOException {
+        SelectionKey key = channel.keyFor(selector);
+        channel.close();
+        if (key != null) {
+            execute(() -> resumeWaiters(key, READ_OPS | WRITE_OPS));
+        }
+    }
+
+    // the registered channels are closed and their waiting continuations are resumed, as by close(SelectableChannel)
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    // private methods
+
+    // false if the loop is closed and the task is not run
+    private boolean execute(Runnable task) {
+        tasks.add(task);
+        // the loop runs the remaining tasks once after it stops, a task added later is withdrawn
+        if (closed && tasks.remove(task)) {
+            return false;
+        }
+        if (selecting) {
+            selector.wakeup();
+        }
+        return true;
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selecting = true;
+                // rechecked after the flag is set, a task added before is not missed
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+                selecting = false;
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        resumeWaiters(key, key.readyOps());
+                    } catch (CancelledKeyException e) {
+                        resumeWaiters(key, READ_OPS | WRITE_OPS);
+                    }
+                }
+                runTasks();
+            }
+        } catch (Throwable e) {
+            log.error("event loop failed", e);
+        } finally {
+            try {
+                closeChannels();
+            } catch (Throwable e) {
+                log.error("event loop closing failed", e);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.warn("selector closing failed", e);
+            }
+        }
+    }
+
+    private void runTasks() {
+        for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("event loop task failed", e);
+            }
+        }
+    }
+
+    private void closeChannels() {
+        runTasks();
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                log.warn("channel closing failed", e);
+            }
+            resumeWaiters(key, READ_OPS | WRITE_OPS);
+        }
+    }
+
+    private void register(SelectableChannel channel, int ops, Continuation.Context context) {
+        SelectionKey key = channel.keyFor(selector);
+        Waiters waiters;
+        try {
+            if (key == null) {
+                waiters = new Waiters();
+                channel.register(selector, ops, waiters);
+            } else {
+                waiters = (Waiters) key.attachment();
+                key.interestOps(key.interestOps() | ops);
+            }
+        } catch (ClosedChannelException | CancelledKeyException e) {
+            // the continuation fails on the retried operation
+            resume(context);
+            return;
+        }
+        if ((ops & READ_OPS) != 0) {
+            waiters.reader = context;
+        } else {
+            waiters.writer = context;
+        }
+    }
+
+    private void resumeWaiters(SelectionKey key, int readyOps) {
+        Waiters waiters = (Waiters) key.attachment();
+        if ((readyOps & READ_OPS) != 0 && waiters.reader != null) {
+            Continuation.Context context = waiters.reader;
+            waiters.reader = null;
+            removeInterest(key, READ_OPS);
+            resume(context);
+        }
+        if ((readyOps & WRITE_OPS) != 0 && waiters.writer != null) {
+            Continuation.Context context = waiters.writer;
+            waiters.writer = null;
+            removeInterest(key, WRITE_OPS);
+            resume(context);
+        }
+    }
+
+    private static void removeInterest(SelectionKey key, int ops) {
+        try {
+            key.interestOps(key.interestOps() & ~ops);
+        } catch (CancelledKeyException e) {
+            // the channel is closed
+        }
+    }
+
+    private static void resume(Continuation.Context context) {
+        try {
+            context.get(ContinuableThreadPoolExecutor.currentExecutor).resume(context);
+        } catch (RejectedExecutionException e) {
+            // the executor is shut down before the loop is closed
+            log.warn("continuation resume is rejected", e);
+        }
+    }
+}
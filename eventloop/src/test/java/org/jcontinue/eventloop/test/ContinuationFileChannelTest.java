@@ -0,0 +1,125 @@
+package org.jcontinue.eventloop.test;
+
+import org.jcontinue.eventloop.ContinuationFileChannel;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ForkJoinContinuationExecutor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ContinuationFileChannelTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testReadAndWrite() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(ReadAndWriteTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class ReadAndWriteTest {
+
+        private static final int BLOCKS = 1000;
+        private static final int BLOCK_SIZE = 4096;
+
+        public void start() throws Exception {
+            Path file = Files.createTempFile("continuation-file-channel", ".bin");
+            ForkJoinContinuationExecutor executor = new ForkJoinContinuationExecutor(2);
+            try (ContinuationFileChannel channel = ContinuationFileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                // every continuation writes its own block, half of them with gathering writes
+                List<Future<?>> writers = new ArrayList<>();
+                for (int i = 0; i < BLOCKS; i++) {
+                    int block = i;
+                    writers.add(executor.submit(() -> {
+                        ByteBuffer buffer = getBlock(block);
+                        if (block % 2 == 0) {
+                            channel.writeFully(buffer, (long) block * BLOCK_SIZE);
+                        } else {
+                            ByteBuffer first = (ByteBuffer) buffer.duplicate().limit(BLOCK_SIZE / 3);
+                            ByteBuffer second = (ByteBuffer) buffer.duplicate().position(BLOCK_SIZE / 3);
+                            Assert.assertEquals(BLOCK_SIZE, channel.write(new ByteBuffer[] {first, second},
+                                    (long) block * BLOCK_SIZE));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get(30, TimeUnit.SECONDS);
+                }
+                Assert.assertEquals((long) BLOCKS * BLOCK_SIZE, channel.size());
+
+                List<Future<?>> readers = new ArrayList<>();
+                for (int i = 0; i < BLOCKS; i++) {
+                    int block = i;
+                    readers.add(executor.submit(() -> {
+                        if (block % 2 == 0) {
+                            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+                            Assert.assertTrue(channel.readFully(buffer, (long) block * BLOCK_SIZE));
+                            buffer.flip();
+                            Assert.assertEquals(getBlock(block), buffer);
+                        } else {
+                            ByteBuffer[] buffers = {ByteBuffer.allocate(100), ByteBuffer.allocate(BLOCK_SIZE - 100)};
+                            Assert.assertEquals(BLOCK_SIZE, channel.read(buffers, (long) block * BLOCK_SIZE));
+                            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+                            buffer.put((ByteBuffer) buffers[0].flip()).put((ByteBuffer) buffers[1].flip()).flip();
+                            Assert.assertEquals(getBlock(block), buffer);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> reader : readers) {
+                    reader.get(30, TimeUnit.SECONDS);
+                }
+
+                Future<?> endReader = executor.submit(() -> {
+                    ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+                    Assert.assertEquals(-1, channel.read(buffer, channel.size()));
+                    Assert.assertFalse(channel.readFully(buffer, channel.size() - 10));
+                    Assert.assertEquals(10, buffer.position());
+                    return null;
+                });
+                endReader.get(30, TimeUnit.SECONDS);
+
+                MappedByteBuffer mappedBuffer = channel.map(0, channel.size());
+                for (int i = 0; i < BLOCKS; i++) {
+                    mappedBuffer.limit((i + 1) * BLOCK_SIZE);
+                    Assert.assertEquals(getBlock(i), mappedBuffer.slice());
+                    mappedBuffer.position(mappedBuffer.limit());
+                }
+            } finally {
+                executor.shutdown();
+                Files.delete(file);
+            }
+        }
+
+        // private methods
+
+        private static ByteBuffer getBlock(int block) {
+            ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                buffer.put((byte) (block * 31 + i));
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package org.jcontinue.eventloop.test;
+
+import org.jcontinue.eventloop.ContinuationServerSocketChannel;
+import org.jcontinue.eventloop.ContinuationSocketChannel;
+import org.jcontinue.eventloop.DirectBufferPool;
+import org.jcontinue.eventloop.EventLoop;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ForkJoinContinuationExecutor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class EventLoopTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testBufferPool() {
+        DirectBufferPool pool = new DirectBufferPool(16, 1);
+        ByteBuffer buffer1 = pool.acquire();
+        ByteBuffer buffer2 = pool.acquire();
+        Assert.assertTrue(buffer1.isDirect());
+        Assert.assertEquals(16, buffer1.capacity());
+        buffer1.putInt(1);
+        pool.release(buffer1);
+        pool.release(buffer2);
+        Assert.assertEquals(1, pool.getPooledBuffers());
+        ByteBuffer buffer = pool.acquire();
+        Assert.assertSame(buffer1, buffer);
+        Assert.assertEquals(0, buffer.position());
+        try {
+            pool.release(ByteBuffer.allocate(16));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEcho() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(EchoTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testClose() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(CloseTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class EchoTest {
+
+        private static final int CLIENTS = 200;
+        private static final int MESSAGES = 20;
+        private static final int MESSAGE_SIZE = 3000;
+
+        private final EventLoop eventLoop = new EventLoop();
+        private final ForkJoinContinuationExecutor executor = new ForkJoinContinuationExecutor(2);
+
+        public void start() throws Exception {
+            try (ContinuationServerSocketChannel server = ContinuationServerSocketChannel.bind(eventLoop,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), CLIENTS)) {
+                executor.execute(() -> serve(server));
+                List<Future<?>> clients = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    int client = i;
+                    clients.add(executor.submit(() -> {
+                        runClient(server.getLocalAddress(), (byte) client);
+                        return null;
+                    }));
+                }
+                for (Future<?> client : clients) {
+                    client.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                // the server continuation is resumed by the close and fails on the closed channel
+                eventLoop.close();
+                executor.shutdown();
+            }
+        }
+
+        // private methods
+
+        private void serve(ContinuationServerSocketChannel server) {
+            try {
+                while (true) {
+                    ContinuationSocketChannel socket = server.accept();
+                    executor.execute(() -> echo(socket));
+                }
+            } catch (ClosedChannelException e) {
+                // the server is stopped
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void echo(ContinuationSocketChannel socket) {
+            ByteBuffer buffer = eventLoop.getBufferPool().acquire();
+            try (ContinuationSocketChannel closedSocket = socket) {
+                while (closedSocket.read(buffer) >= 0) {
+                    buffer.flip();
+                    closedSocket.write(buffer);
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                eventLoop.getBufferPool().release(buffer);
+            }
+        }
+
+        private void runClient(java.net.SocketAddress address, byte client) throws IOException {
+            try (ContinuationSocketChannel socket = ContinuationSocketChannel.connect(eventLoop, address)) {
+                ByteBuffer message = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+                ByteBuffer response = ByteBuffer.allocateDirect(MESSAGE_SIZE);
+                for (int i = 0; i < MESSAGES; i++) {
+                    message.clear();
+                    for (int j = 0; j < MESSAGE_SIZE; j++) {
+                        message.put((byte) (client + i + j));
+                    }
+                    message.flip();
+                    socket.write(message);
+                    response.clear();
+                    Assert.assertTrue(socket.readFully(response));
+                    message.flip();
+                    response.flip();
+                    Assert.assertEquals(message, response);
+                }
+                socket.shutdownOutput();
+                response.clear();
+                Assert.assertEquals(-1, socket.read(response));
+            }
+        }
+    }
+
+    public static class CloseTest {
+
+        public void start() throws Exception {
+            EventLoop eventLoop = new EventLoop();
+            ForkJoinContinuationExecutor executor = new ForkJoinContinuationExecutor(1);
+            try {
+                ContinuationServerSocketChannel server = ContinuationServerSocketChannel.bind(eventLoop,
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+                Future<?> acceptor = executor.submit(() -> {
+                    server.accept();
+                    return null;
+                });
+                Thread.sleep(100);
+                Assert.assertFalse(acceptor.isDone());
+                server.close();
+                try {
+                    acceptor.get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof ClosedChannelException);
+                }
+
+                // the close of the loop closes the channels of the waiting continuations
+                ContinuationServerSocketChannel closedServer = ContinuationServerSocketChannel.bind(eventLoop,
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+                Future<?> closedAcceptor = executor.submit(() -> {
+                    closedServer.accept();
+                    return null;
+                });
+                Thread.sleep(100);
+                Assert.assertFalse(closedAcceptor.isDone());
+                eventLoop.close();
+                try {
+                    closedAcceptor.get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof ClosedChannelException);
+                }
+                Assert.assertFalse(closedServer.getChannel().isOpen());
+
+                try (ContinuationServerSocketChannel newServer = ContinuationServerSocketChannel.bind(eventLoop,
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1)) {
+                    executor.submit(() -> {
+                        newServer.accept();
+                        return null;
+                    }).get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            } finally {
+                executor.shutdown();
+                eventLoop.close();
+            }
+        }
+    }
+}
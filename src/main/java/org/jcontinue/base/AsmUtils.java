@@ -3,6 +3,7 @@ package org.jcontinue.base;
 import com.google.common.collect.Sets;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.CodeSizeEvaluator;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InsnList;
@@ -114,6 +115,13 @@ public class AsmUtils {
         return isStatic(method.access);
     }
 
+    // the upper bound of the bytecode size, the exact size depends on the jump offsets
+    public static int getCodeSize(MethodNode method) {
+        CodeSizeEvaluator evaluator = new CodeSizeEvaluator(null);
+        method.accept(evaluator);
+        return evaluator.getMaxSize();
+    }
+
     public static AbstractInsnNode getHandlerCodeInstruction(TryCatchBlockNode tryCatchBlock) {
         return getCodeInstruction(tryCatchBlock.handler);
     }
@@ -316,7 +324,7 @@ public class AsmUtils {
     }
 
     public static TypeInsnNode getCheckcastInstruction(Type targetObjectType) {
-        if (targetObjectType.getSort() != Type.OBJECT) {
+        if (targetObjectType.getSort() != Type.OBJECT && targetObjectType.getSort() != Type.ARRAY) {
             throw new IllegalArgumentException("targetObjectType cannot be " + targetObjectType);
         }
         TypeInsnNode result = new TypeInsnNode(Opcodes.CHECKCAST, targetObjectType.getInternalName());
@@ -0,0 +1,73 @@
+package org.jcontinue.base;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.Objects;
+
+public class CachingClassBodyResolver implements ClassBodyResolver {
+
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 32 * 1024 * 1024;
+
+    private final ClassBodyResolver classBodyResolver;
+    private final Cache<String, byte[]> cache;
+
+    public CachingClassBodyResolver(ClassBodyResolver classBodyResolver, long maximumWeight) {
+        Objects.requireNonNull(classBodyResolver);
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight cannot be " + maximumWeight);
+        }
+        this.classBodyResolver = classBodyResolver;
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .<String, byte[]>weigher((className, classBody) -> classBody.length)
+                .recordStats()
+                .build();
+    }
+
+    public CachingClassBodyResolver(ClassBodyResolver classBodyResolver) {
+        this(classBodyResolver, DEFAULT_MAXIMUM_WEIGHT);
+    }
+
+    // the returned array is shared between callers and must not be modified
+    @Override
+    public byte[] getClassBody(String className) {
+        byte[] result = cache.getIfPresent(className);
+        if (result == null) {
+            result = classBodyResolver.getClassBody(className);
+            // missing classes are not cached, they may be defined later
+            if (result != null) {
+                cache.put(className, result);
+            }
+        }
+        return result;
+    }
+
+    // headers are parsed from a cached body if any, otherwise they are read without caching the body
+    @Override
+    public ClassHeader getClassHeader(String className) {
+        byte[] classBody = cache.asMap().get(className);
+        return classBody == null ? classBodyResolver.getClassHeader(className) : ClassHeaderReader.read(classBody);
+    }
+
+    public ClassBodyResolver getClassBodyResolver() {
+        return classBodyResolver;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidate(String className) {
+        cache.invalidate(className);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
@@ -4,4 +4,10 @@ package org.jcontinue.base;
 @FunctionalInterface
 public interface ClassBodyResolver {
     byte[] getClassBody(String className);
+
+    // implementations able to read a class file partially should not load the whole body
+    default ClassHeader getClassHeader(String className) {
+        byte[] classBody = getClassBody(className);
+        return classBody == null ? null : ClassHeaderReader.read(classBody);
+    }
 }
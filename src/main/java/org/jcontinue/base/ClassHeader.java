@@ -0,0 +1,71 @@
+package org.jcontinue.base;
+
+import org.objectweb.asm.Opcodes;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// the part of a class file needed for hierarchy queries, names are dotted
+public final class ClassHeader {
+    private final String className;
+    private final String superName;
+    private final String[] interfaceNames;
+    private final int access;
+
+    public ClassHeader(String className, String superName, String[] interfaceNames, int access) {
+        Objects.requireNonNull(className);
+        Objects.requireNonNull(interfaceNames);
+        this.className = className;
+        this.superName = superName;
+        this.interfaceNames = interfaceNames;
+        this.access = access;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    // null for java.lang.Object and module descriptors
+    public String getSuperName() {
+        return superName;
+    }
+
+    public String[] getInterfaceNames() {
+        return interfaceNames.clone();
+    }
+
+    public int getInterfacesNumber() {
+        return interfaceNames.length;
+    }
+
+    public String getInterfaceName(int index) {
+        return interfaceNames[index];
+    }
+
+    public int getAccess() {
+        return access;
+    }
+
+    public boolean isInterface() {
+        return (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClassHeader that = (ClassHeader) o;
+        return access == that.access && className.equals(that.className) && Objects.equals(superName, that.superName)
+                && Arrays.equals(interfaceNames, that.interfaceNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(className, superName, Arrays.hashCode(interfaceNames), access);
+    }
+
+    @Override
+    public String toString() {
+        return className + " extends " + superName + " implements " + Arrays.toString(interfaceNames);
+    }
+}
@@ -0,0 +1,161 @@
+package org.jcontinue.base;
+
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// reads the constant pool and the header of a class file only
+public class ClassHeaderReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+    private static final int READ_CHUNK_SIZE = 1024;
+
+    private final InputStream stream;
+    private byte[] buffer;
+    private int length;
+    private int offset;
+
+    private ClassHeaderReader(InputStream stream, byte[] buffer, int length) {
+        this.stream = stream;
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    public static ClassHeader read(byte[] classBody) {
+        try {
+            return new ClassHeaderReader(null, classBody, classBody.length).read();
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    public static ClassHeader read(InputStream stream) throws IOException {
+        return read(stream, DEFAULT_BUFFER_SIZE);
+    }
+
+    // the size of the class file if it is known, the buffer is never reallocated then
+    public static ClassHeader read(InputStream stream, int bufferSize) throws IOException {
+        return new ClassHeaderReader(stream, new byte[Math.max(bufferSize, 16)], 0).read();
+    }
+
+    // private methods
+
+    private ClassHeader read() throws IOException {
+        if (readInt() != MAGIC) {
+            throw new IOException("invalid class file magic");
+        }
+        skip(4);
+        int constantPoolSize = readUnsignedShort();
+        // offsets of the constant pool entries after their tags
+        int[] constantOffsets = new int[constantPoolSize];
+        for (int i = 1; i < constantPoolSize; i++) {
+            int tag = readUnsignedByte();
+            constantOffsets[i] = offset;
+            switch (tag) {
+                case 1:
+                    skip(readUnsignedShort());
+                    break;
+                case 7: case 8: case 16: case 19: case 20:
+                    skip(2);
+                    break;
+                case 15:
+                    skip(3);
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    skip(4);
+                    break;
+                case 5: case 6:
+                    skip(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("invalid constant pool tag " + tag);
+            }
+        }
+        int access = readUnsignedShort();
+        String className = readClassName(constantOffsets, readUnsignedShort());
+        String superName = readClassName(constantOffsets, readUnsignedShort());
+        String[] interfaceNames = new String[readUnsignedShort()];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaceNames[i] = readClassName(constantOffsets, readUnsignedShort());
+        }
+        return new ClassHeader(className, superName, interfaceNames, access);
+    }
+
+    private String readClassName(int[] constantOffsets, int classIndex) throws IOException {
+        if (classIndex == 0) {
+            return null;
+        }
+        int nameOffset = constantOffsets[getUnsignedShort(constantOffsets[classIndex])];
+        int nameLength = getUnsignedShort(nameOffset);
+        char[] chars = new char[nameLength];
+        int charsNumber = 0;
+        int end = nameOffset + 2 + nameLength;
+        // modified UTF-8
+        for (int i = nameOffset + 2; i < end; ) {
+            int b = buffer[i++] & 0xFF;
+            char c;
+            if (b < 0x80) {
+                c = (char) b;
+            } else if (b < 0xE0) {
+                c = (char) (((b & 0x1F) << 6) | (buffer[i++] & 0x3F));
+            } else {
+                c = (char) (((b & 0x0F) << 12) | ((buffer[i++] & 0x3F) << 6) | (buffer[i++] & 0x3F));
+            }
+            chars[charsNumber++] = c == '/' ? '.' : c;
+        }
+        return new String(chars, 0, charsNumber);
+    }
+
+    private int getUnsignedShort(int position) {
+        return ((buffer[position] & 0xFF) << 8) | (buffer[position + 1] & 0xFF);
+    }
+
+    private int readUnsignedByte() throws IOException {
+        ensure(1);
+        return buffer[offset++] & 0xFF;
+    }
+
+    private int readUnsignedShort() throws IOException {
+        ensure(2);
+        int result = getUnsignedShort(offset);
+        offset += 2;
+        return result;
+    }
+
+    private int readInt() throws IOException {
+        ensure(4);
+        int result = (getUnsignedShort(offset) << 16) | getUnsignedShort(offset + 2);
+        offset += 4;
+        return result;
+    }
+
+    private void skip(int bytesNumber) throws IOException {
+        ensure(bytesNumber);
+        offset += bytesNumber;
+    }
+
+    private void ensure(int bytesNumber) throws IOException {
+        int requiredLength = offset + bytesNumber;
+        if (requiredLength <= length) {
+            return;
+        }
+        if (stream == null) {
+            throw new IOException("unexpected end of class file");
+        }
+        if (requiredLength > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(requiredLength, buffer.length * 2));
+        }
+        while (length < requiredLength) {
+            // reading in chunks keeps a decompressing stream from inflating the rest of the class
+            int read = stream.read(buffer, length, Math.min(buffer.length - length, READ_CHUNK_SIZE));
+            if (read < 0) {
+                throw new IOException("unexpected end of class file");
+            }
+            length += read;
+        }
+    }
+}
@@ -10,11 +10,33 @@ import java.io.InputStream;
 public class ClasspathClassBodyResolver implements ClassBodyResolver {
     @Override
     public byte[] getClassBody(String className) {
-        InputStream stream = ClassLoader.getSystemResourceAsStream(className.replace('.', File.separatorChar) + ".class");
-        try {
-            return ByteStreams.toByteArray(stream);
+        InputStream stream = getClassStream(className);
+        if (stream == null) {
+            return null;
+        }
+        try (InputStream closeableStream = stream) {
+            return ByteStreams.toByteArray(closeableStream);
         } catch (IOException e) {
             throw Throwables.propagate(e);
         }
     }
+
+    @Override
+    public ClassHeader getClassHeader(String className) {
+        InputStream stream = getClassStream(className);
+        if (stream == null) {
+            return null;
+        }
+        try (InputStream closeableStream = stream) {
+            return ClassHeaderReader.read(closeableStream);
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    // private methods
+
+    private static InputStream getClassStream(String className) {
+        return ClassLoader.getSystemResourceAsStream(className.replace('.', File.separatorChar) + ".class");
+    }
 }
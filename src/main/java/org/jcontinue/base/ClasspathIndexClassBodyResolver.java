@@ -0,0 +1,157 @@
+package org.jcontinue.base;
+
+import com.google.common.base.Throwables;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+public class ClasspathIndexClassBodyResolver implements ClassBodyResolver {
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private final ClassBodyResolver fallbackResolver;
+    // values are either MappedJarFile.Entry or Path of a class file in a directory
+    private final Map<String, Object> locations = new ConcurrentHashMap<>();
+
+    public ClasspathIndexClassBodyResolver(List<File> classpath, ClassBodyResolver fallbackResolver) {
+        this.fallbackResolver = fallbackResolver;
+        for (File element : classpath) {
+            try {
+                if (element.isDirectory()) {
+                    indexDirectory(element.toPath());
+                } else if (element.isFile()) {
+                    indexJar(element);
+                }
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+
+    public ClasspathIndexClassBodyResolver(String classpath, ClassBodyResolver fallbackResolver) {
+        this(parseClasspath(classpath), fallbackResolver);
+    }
+
+    public ClasspathIndexClassBodyResolver() {
+        this(getDefaultClasspath(), new ClasspathClassBodyResolver());
+    }
+
+    // the system classpath is indexed once and shared
+    public static ClasspathIndexClassBodyResolver getSystemClasspathResolver() {
+        return SystemClasspathResolverHolder.instance;
+    }
+
+    @Override
+    public byte[] getClassBody(String className) {
+        Object location = locations.get(className);
+        if (location instanceof MappedJarFile.Entry) {
+            return ((MappedJarFile.Entry) location).read();
+        }
+        if (location instanceof Path) {
+            return readFile((Path) location);
+        }
+        return fallbackResolver == null ? null : fallbackResolver.getClassBody(className);
+    }
+
+    @Override
+    public ClassHeader getClassHeader(String className) {
+        Object location = locations.get(className);
+        if (location instanceof MappedJarFile.Entry) {
+            return ((MappedJarFile.Entry) location).readHeader();
+        }
+        if (location instanceof Path) {
+            try (InputStream stream = Files.newInputStream((Path) location)) {
+                return ClassHeaderReader.read(stream);
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+        return fallbackResolver == null ? null : fallbackResolver.getClassHeader(className);
+    }
+
+    public boolean contains(String className) {
+        return locations.containsKey(className);
+    }
+
+    public int size() {
+        return locations.size();
+    }
+
+    // private methods
+
+    private static class SystemClasspathResolverHolder {
+        private static final ClasspathIndexClassBodyResolver instance = new ClasspathIndexClassBodyResolver();
+    }
+
+    private static List<File> parseClasspath(String classpath) {
+        Objects.requireNonNull(classpath);
+        List<File> result = new ArrayList<>();
+        for (String element : classpath.split(File.pathSeparator)) {
+            if (!element.isEmpty()) {
+                result.add(new File(element));
+            }
+        }
+        return result;
+    }
+
+    private static String getDefaultClasspath() {
+        // boot classpath goes first as the system class loader delegates to it, it is absent since java 9
+        String bootClasspath = System.getProperty("sun.boot.class.path");
+        String classpath = System.getProperty("java.class.path", "");
+        return bootClasspath == null ? classpath : bootClasspath + File.pathSeparator + classpath;
+    }
+
+    private void indexJar(File file) {
+        try {
+            new MappedJarFile(file).forEachEntry((name, entry) -> {
+                if (name.endsWith(CLASS_FILE_SUFFIX)) {
+                    // the first occurrence in the classpath wins as in class loaders
+                    locations.putIfAbsent(toClassName(name), entry);
+                }
+            });
+        } catch (IOException e) {
+            // not a jar, zip64 or too large to be mapped, classes from it are resolved by the fallback
+        }
+    }
+
+    private void indexDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.forEach(file -> {
+                String name = directory.relativize(file).toString().replace(File.separatorChar, '/');
+                if (name.endsWith(CLASS_FILE_SUFFIX)) {
+                    locations.putIfAbsent(toClassName(name), file);
+                }
+            });
+        }
+    }
+
+    private static String toClassName(String entryName) {
+        return entryName.substring(0, entryName.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.');
+    }
+
+    private static byte[] readFile(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("unexpected end of file " + file);
+                }
+            }
+            return buffer.array();
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+}
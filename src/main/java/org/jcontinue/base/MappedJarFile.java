@@ -0,0 +1,207 @@
+package org.jcontinue.base;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+class MappedJarFile {
+
+    static class Entry {
+        private final MappedJarFile jar;
+        private final int method;
+        private final int compressedSize;
+        private final int size;
+        private final int localHeaderOffset;
+
+        private Entry(MappedJarFile jar, int method, int compressedSize, int size, int localHeaderOffset) {
+            this.jar = jar;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        int getSize() {
+            return size;
+        }
+
+        byte[] read() {
+            return jar.read(this);
+        }
+
+        ClassHeader readHeader() {
+            return jar.readHeader(this);
+        }
+    }
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final Charset utf8Charset = Charset.forName("UTF-8");
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+
+    MappedJarFile(File file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("jar file " + file + " is too large to be mapped");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    void forEachEntry(BiConsumer<String, Entry> consumer) throws IOException {
+        int endOffset = findEndOfCentralDirectory();
+        int entriesNumber = buffer.getShort(endOffset + 10) & 0xffff;
+        long centralDirectoryOffset = buffer.getInt(endOffset + 16) & 0xffffffffL;
+        if (entriesNumber == 0xffff || centralDirectoryOffset == 0xffffffffL) {
+            throw new IOException("zip64 jar file " + file + " is not supported");
+        }
+        int offset = (int) centralDirectoryOffset;
+        for (int i = 0; i < entriesNumber; i++) {
+            if (buffer.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new IOException("invalid central directory header in " + file);
+            }
+            int method = buffer.getShort(offset + 10) & 0xffff;
+            long compressedSize = buffer.getInt(offset + 20) & 0xffffffffL;
+            long size = buffer.getInt(offset + 24) & 0xffffffffL;
+            int nameLength = buffer.getShort(offset + 28) & 0xffff;
+            int extraLength = buffer.getShort(offset + 30) & 0xffff;
+            int commentLength = buffer.getShort(offset + 32) & 0xffff;
+            long localHeaderOffset = buffer.getInt(offset + 42) & 0xffffffffL;
+            if (compressedSize == 0xffffffffL || size == 0xffffffffL || localHeaderOffset == 0xffffffffL) {
+                throw new IOException("zip64 jar file " + file + " is not supported");
+            }
+            byte[] name = new byte[nameLength];
+            ByteBuffer nameBuffer = buffer.duplicate();
+            nameBuffer.position(offset + CENTRAL_HEADER_SIZE);
+            nameBuffer.get(name);
+            if (method == METHOD_STORED || method == METHOD_DEFLATED) {
+                consumer.accept(new String(name, utf8Charset),
+                        new Entry(this, method, (int) compressedSize, (int) size, (int) localHeaderOffset));
+            }
+            offset += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+    }
+
+    // private methods
+
+    private int findEndOfCentralDirectory() throws IOException {
+        int minOffset = Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - 0xffff);
+        for (int offset = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; offset >= minOffset; offset--) {
+            if (buffer.getInt(offset) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return offset;
+            }
+        }
+        throw new IOException("end of central directory not found in " + file);
+    }
+
+    private ByteBuffer getData(Entry entry) {
+        if (buffer.getInt(entry.localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new IllegalStateException("invalid local header in " + file);
+        }
+        int nameLength = buffer.getShort(entry.localHeaderOffset + 26) & 0xffff;
+        int extraLength = buffer.getShort(entry.localHeaderOffset + 28) & 0xffff;
+        ByteBuffer data = buffer.duplicate();
+        int dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+        data.position(dataOffset);
+        data.limit(dataOffset + entry.compressedSize);
+        return data;
+    }
+
+    private ClassHeader readHeader(Entry entry) {
+        InputStream stream = new ByteBufferInputStream(getData(entry));
+        if (entry.method == METHOD_STORED) {
+            try {
+                return ClassHeaderReader.read(stream, entry.size);
+            } catch (IOException e) {
+                throw new IllegalStateException("invalid class file in " + file, e);
+            }
+        }
+        Inflater inflater = new Inflater(true);
+        // the inflation stops as soon as the header is read
+        try (InputStream inflaterStream = new InflaterInputStream(stream, inflater, Math.max(entry.compressedSize, 1))) {
+            return ClassHeaderReader.read(inflaterStream, entry.size);
+        } catch (IOException e) {
+            throw new IllegalStateException("invalid class file in " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private byte[] read(Entry entry) {
+        ByteBuffer data = getData(entry);
+        byte[] result = new byte[entry.size];
+        if (entry.method == METHOD_STORED) {
+            data.get(result);
+            return result;
+        }
+        byte[] compressed = new byte[entry.compressedSize];
+        data.get(compressed);
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < result.length) {
+                int inflated = inflater.inflate(result, length, result.length - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != result.length) {
+                throw new IllegalStateException("truncated entry in " + file);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("invalid deflated entry in " + file, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int result = Math.min(len, buffer.remaining());
+            buffer.get(b, off, result);
+            return result;
+        }
+    }
+}
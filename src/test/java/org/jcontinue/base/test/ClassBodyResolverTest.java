@@ -0,0 +1,141 @@
+package org.jcontinue.base.test;
+
+import com.google.common.io.ByteStreams;
+import org.jcontinue.base.CachingClassBodyResolver;
+import org.jcontinue.base.ClassBodyResolver;
+import org.jcontinue.base.ClassHeader;
+import org.jcontinue.base.ClassHeaderReader;
+import org.jcontinue.base.ClasspathClassBodyResolver;
+import org.jcontinue.base.ClasspathIndexClassBodyResolver;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ClassBodyResolverTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJar() throws IOException {
+        byte[] body = getClassBody(ClassBodyResolverTest.class);
+        File jar = folder.newFile("test.jar");
+        try (ZipOutputStream stream = new ZipOutputStream(new FileOutputStream(jar))) {
+            stream.putNextEntry(new ZipEntry("a/Deflated.class"));
+            stream.write(body);
+            ZipEntry storedEntry = new ZipEntry("a/Stored.class");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(body.length);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            storedEntry.setCrc(crc.getValue());
+            stream.putNextEntry(storedEntry);
+            stream.write(body);
+            stream.putNextEntry(new ZipEntry("a/resource.txt"));
+            stream.write(1);
+        }
+        ClasspathIndexClassBodyResolver resolver =
+                new ClasspathIndexClassBodyResolver(Collections.singletonList(jar), null);
+        Assert.assertEquals(2, resolver.size());
+        Assert.assertArrayEquals(body, resolver.getClassBody("a.Deflated"));
+        Assert.assertArrayEquals(body, resolver.getClassBody("a.Stored"));
+        Assert.assertNull(resolver.getClassBody("a.Missing"));
+        ClassHeader header = ClassHeaderReader.read(body);
+        Assert.assertEquals(header, resolver.getClassHeader("a.Deflated"));
+        Assert.assertEquals(header, resolver.getClassHeader("a.Stored"));
+        Assert.assertNull(resolver.getClassHeader("a.Missing"));
+    }
+
+    @Test
+    public void testDirectoryAndFallback() throws IOException {
+        byte[] body = getClassBody(ClassBodyResolverTest.class);
+        File directory = folder.newFolder("classes");
+        File packageDirectory = new File(directory, "a" + File.separator + "b");
+        Assert.assertTrue(packageDirectory.mkdirs());
+        Files.write(new File(packageDirectory, "C.class").toPath(), body);
+        ClasspathIndexClassBodyResolver resolver = new ClasspathIndexClassBodyResolver(
+                Arrays.asList(directory, new File(folder.getRoot(), "missing.jar")), new ClasspathClassBodyResolver());
+        Assert.assertTrue(resolver.contains("a.b.C"));
+        Assert.assertArrayEquals(body, resolver.getClassBody("a.b.C"));
+        Assert.assertFalse(resolver.contains(ClassBodyResolverTest.class.getName()));
+        Assert.assertArrayEquals(body, resolver.getClassBody(ClassBodyResolverTest.class.getName()));
+    }
+
+    @Test
+    public void testSystemClasspath() throws IOException {
+        ClasspathIndexClassBodyResolver resolver = ClasspathIndexClassBodyResolver.getSystemClasspathResolver();
+        Assert.assertSame(resolver, ClasspathIndexClassBodyResolver.getSystemClasspathResolver());
+        Assert.assertArrayEquals(getClassBody(ClassBodyResolverTest.class),
+                resolver.getClassBody(ClassBodyResolverTest.class.getName()));
+        Assert.assertArrayEquals(getClassBody(Test.class), resolver.getClassBody(Test.class.getName()));
+        Assert.assertNotNull(resolver.getClassBody(Object.class.getName()));
+    }
+
+    @Test
+    public void testClassHeader() throws IOException {
+        for (Class<?> clazz : Arrays.asList(Object.class, String.class, ArrayList.class, List.class,
+                ClassBodyResolverTest.class, Entry.class)) {
+            byte[] body = getClassBody(clazz);
+            ClassReader reader = new ClassReader(body);
+            ClassHeader header = ClassHeaderReader.read(body);
+            Assert.assertEquals(clazz.getName(), header.getClassName());
+            Assert.assertEquals(reader.getSuperName() == null ? null : reader.getSuperName().replace('/', '.'),
+                    header.getSuperName());
+            Assert.assertEquals(reader.getAccess(), header.getAccess());
+            Assert.assertEquals(clazz.isInterface(), header.isInterface());
+            String[] interfaceNames = reader.getInterfaces();
+            for (int i = 0; i < interfaceNames.length; i++) {
+                interfaceNames[i] = interfaceNames[i].replace('/', '.');
+            }
+            Assert.assertArrayEquals(interfaceNames, header.getInterfaceNames());
+            Assert.assertEquals(header, ClassHeaderReader.read(new ByteArrayInputStream(body)));
+            Assert.assertEquals(header, new ClasspathClassBodyResolver().getClassHeader(clazz.getName()));
+        }
+    }
+
+    public interface Entry extends Comparable<Entry>, Serializable { }
+
+    @Test
+    public void testCaching() {
+        AtomicInteger calls = new AtomicInteger();
+        ClassBodyResolver countingResolver = className -> {
+            calls.incrementAndGet();
+            return className.startsWith("missing") ? null : new byte[10];
+        };
+        CachingClassBodyResolver resolver = new CachingClassBodyResolver(countingResolver, 25);
+        byte[] body = resolver.getClassBody("a");
+        Assert.assertSame(body, resolver.getClassBody("a"));
+        Assert.assertEquals(1, calls.get());
+        Assert.assertNull(resolver.getClassBody("missing"));
+        Assert.assertNull(resolver.getClassBody("missing"));
+        Assert.assertEquals(3, calls.get());
+        resolver.getClassBody("b");
+        resolver.getClassBody("c");
+        Assert.assertTrue(resolver.size() <= 2);
+        Assert.assertEquals(1, resolver.getStats().hitCount());
+    }
+
+    private static byte[] getClassBody(Class<?> clazz) throws IOException {
+        try (InputStream stream = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+}
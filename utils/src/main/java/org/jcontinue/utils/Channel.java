@@ -0,0 +1,240 @@
+package org.jcontinue.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// bounded multi-producer multi-consumer channel
+public class Channel<T> {
+
+    private final int mask;
+    // lock-free ring, the sequence of a slot tells whether it is free or filled for the given position
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong sendPosition = new AtomicLong();
+    private final AtomicLong receivePosition = new AtomicLong();
+    private final ContinuationWaitQueue senders = new ContinuationWaitQueue();
+    private final ContinuationWaitQueue receivers = new ContinuationWaitQueue();
+    private volatile boolean closed;
+
+    // the capacity is rounded up to a power of two, at least two slots are needed to tell free and filled ones apart
+    public Channel(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("invalid capacity " + capacity);
+        }
+        int size = Math.max(Integer.highestOneBit(capacity - 1) << 1, 2);
+        mask = size - 1;
+        elements = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int getCapacity() {
+        return elements.length;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // suspends while the channel is full
+    public void send(T value) {
+        Objects.requireNonNull(value);
+        while (true) {
+            checkNotClosed();
+            if (offer(value)) {
+                return;
+            }
+            senders.await(() -> closed || canSend());
+        }
+    }
+
+    // suspends while the channel is empty, returns null if the channel is closed and empty
+    public T receive() {
+        while (true) {
+            T value = poll();
+            if (value != null) {
+                return value;
+            }
+            if (closed) {
+                // an element can be sent just before closing
+                return poll();
+            }
+            receivers.await(() -> closed || canReceive());
+        }
+    }
+
+    // every run of free slots is reserved at once, suspends only while the channel is full
+    public void sendAll(Iterable<? extends T> values) {
+        List<T> valueList = new ArrayList<>();
+        for (T value : values) {
+            valueList.add(Objects.requireNonNull(value));
+        }
+        int sent = 0;
+        while (sent < valueList.size()) {
+            checkNotClosed();
+            int offered = offerAll(valueList, sent);
+            if (offered > 0) {
+                sent += offered;
+            } else {
+                senders.await(() -> closed || canSend());
+            }
+        }
+    }
+
+    // suspends until at least one element is received, 0 if the channel is closed and empty
+    public int receive(Collection<? super T> target, int maxElements) {
+        if (maxElements <= 0) {
+            return 0;
+        }
+        T value = receive();
+        if (value == null) {
+            return 0;
+        }
+        target.add(value);
+        return 1 + pollAll(target, maxElements - 1);
+    }
+
+    // doesn't suspend
+    public boolean offer(T value) {
+        Objects.requireNonNull(value);
+        checkNotClosed();
+        long position = sendPosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (sendPosition.compareAndSet(position, position + 1)) {
+                    elements[index] = value;
+                    sequences.set(index, position + 1);
+                    receivers.resumeOne();
+                    return true;
+                }
+                position = sendPosition.get();
+            } else if (difference < 0) {
+                // the slot is not received yet
+                return false;
+            } else {
+                position = sendPosition.get();
+            }
+        }
+    }
+
+    // doesn't suspend
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long position = receivePosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (receivePosition.compareAndSet(position, position + 1)) {
+                    T value = (T) elements[index];
+                    elements[index] = null;
+                    sequences.set(index, position + elements.length);
+                    senders.resumeOne();
+                    return value;
+                }
+                position = receivePosition.get();
+            } else if (difference < 0) {
+                // the slot is not sent yet
+                return null;
+            } else {
+                position = receivePosition.get();
+            }
+        }
+    }
+
+    // the suspended senders fail, the suspended receivers get the rest of the elements
+    public void close() {
+        closed = true;
+        senders.resumeAll();
+        receivers.resumeAll();
+    }
+
+    // private methods
+
+    // reserves the free slots after the send position with one CAS, the receivers are resumed once
+    private int offerAll(List<? extends T> values, int from) {
+        int maxCount = Math.min(values.size() - from, elements.length);
+        long position = sendPosition.get();
+        while (true) {
+            int count = 0;
+            while (count < maxCount && sequences.get((int) (position + count) & mask) == position + count) {
+                count++;
+            }
+            if (count == 0 && sequences.get((int) position & mask) - position < 0) {
+                // the slot is not received yet
+                return 0;
+            }
+            if (count > 0 && sendPosition.compareAndSet(position, position + count)) {
+                for (int i = 0; i < count; i++) {
+                    int index = (int) (position + i) & mask;
+                    elements[index] = values.get(from + i);
+                    sequences.set(index, position + i + 1);
+                }
+                receivers.resumeSome(count);
+                return count;
+            }
+            position = sendPosition.get();
+        }
+    }
+
+    // reserves the filled slots after the receive position with one CAS, the senders are resumed once
+    @SuppressWarnings("unchecked")
+    private int pollAll(Collection<? super T> target, int maxElements) {
+        int maxCount = Math.min(maxElements, elements.length);
+        if (maxCount == 0) {
+            return 0;
+        }
+        long position = receivePosition.get();
+        while (true) {
+            int count = 0;
+            while (count < maxCount && sequences.get((int) (position + count) & mask) == position + count + 1) {
+                count++;
+            }
+            if (count == 0 && sequences.get((int) position & mask) - (position + 1) < 0) {
+                // the slot is not sent yet
+                return 0;
+            }
+            if (count > 0 && receivePosition.compareAndSet(position, position + count)) {
+                // the slots are released before the target can throw
+                Object[] values = new Object[count];
+                for (int i = 0; i < count; i++) {
+                    int index = (int) (position + i) & mask;
+                    values[i] = elements[index];
+                    elements[index] = null;
+                    sequences.set(index, position + i + elements.length);
+                }
+                senders.resumeSome(count);
+                for (Object value : values) {
+                    target.add((T) value);
+                }
+                return count;
+            }
+            position = receivePosition.get();
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("channel is closed");
+        }
+    }
+
+    // may be stale, a waiter is resumed then and tries again
+    private boolean canSend() {
+        long position = sendPosition.get();
+        return sequences.get((int) position & mask) - position >= 0;
+    }
+
+    private boolean canReceive() {
+        long position = receivePosition.get();
+        return sequences.get((int) position & mask) - (position + 1) >= 0;
+    }
+}
@@ -0,0 +1,53 @@
+package org.jcontinue.utils;
+
+import org.jcontinue.continuation.Continuation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+public class CompletionStageUtils {
+
+    // blocks the thread outside of a continuation executor, checked failures are wrapped into CompletionException
+    public static <T> T await(CompletionStage<T> stage) {
+        if (stage instanceof CompletableFuture && ((CompletableFuture<T>) stage).isDone() ||
+                !Continuation.isInContext() || ContinuableThreadPoolExecutor.currentExecutor.get() == null) {
+            try {
+                return stage.toCompletableFuture().join();
+            } catch (CompletionException e) {
+                throw report(e);
+            }
+        }
+        Result<T> result = new Result<>();
+        ContinuableThreadPoolExecutor.postSuspendAction.set(context -> stage.whenComplete((value, exception) -> {
+            result.value = value;
+            result.exception = exception;
+            // the executor publishes the result to the resumed continuation
+            context.get(ContinuableThreadPoolExecutor.currentExecutor).resume(context);
+        }));
+        Continuation.suspend();
+        if (result.exception != null) {
+            throw report(result.exception);
+        }
+        return result.value;
+    }
+
+    // private methods
+
+    private static RuntimeException report(Throwable exception) {
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                ? exception.getCause() : exception;
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            return new CompletionException(cause);
+        }
+    }
+
+    private static class Result<T> {
+        private T value;
+        private Throwable exception;
+    }
+}
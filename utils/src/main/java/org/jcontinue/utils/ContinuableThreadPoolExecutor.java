@@ -1,12 +1,10 @@
 package org.jcontinue.utils;
 
-import com.google.common.base.Throwables;
 import org.jcontinue.continuation.Continuation;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadFactory;
@@ -14,7 +12,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
-public class ContinuableThreadPoolExecutor extends ThreadPoolExecutor {
+public class ContinuableThreadPoolExecutor extends ThreadPoolExecutor implements ContinuationExecutor {
     public ContinuableThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
             BlockingQueue<Runnable> workQueue) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue);
@@ -35,42 +33,51 @@ public class ContinuableThreadPoolExecutor extends ThreadPoolExecutor {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
     }
 
-    public static final Continuation.Local<ContinuableThreadPoolExecutor> currentExecutor = new Continuation.Local<>();
+    public static final Continuation.Local<ContinuationExecutor> currentExecutor = new Continuation.Local<>();
 
     public static final Continuation.Local<Consumer<? super Continuation.Context>> postSuspendAction =
             new Continuation.Local<>();
 
-    private static final Logger log = LoggerFactory.getLogger(ContinuableThreadPoolExecutor.class);
-
     @Override
     public void execute(Runnable command) {
-        super.execute(() -> {
-            Continuation.Context context = Continuation.perform(command::run);
-            if (context.isFinished()) {
-                if (!context.isSucceed()) {
-                    throw Throwables.propagate(context.getException());
-                }
-            } else {
-                context.set(currentExecutor, ContinuableThreadPoolExecutor.this);
-                Consumer<? super Continuation.Context> postSuspendAction =
-                        context.get(ContinuableThreadPoolExecutor.postSuspendAction);
-                if (postSuspendAction != null) {
-                    postSuspendAction.accept(context);
-                    context.set(ContinuableThreadPoolExecutor.postSuspendAction, null);
-                } else {
-                    log.warn("post suspend action is null for context {}", context);
-                }
-            }
-        });
+        if (command instanceof ContinuationAwareRunnableFuture) {
+            // the future performs the continuation by itself
+            super.execute(command);
+            return;
+        }
+        super.execute(() -> ContinuationExecutorUtils.handleContext(Continuation.perform(() -> {
+            currentExecutor.set(this);
+            command.run();
+        })));
+    }
+
+    @Override
+    public void resume(Continuation.Context context) {
+        context.set(currentExecutor, this);
+        ContinuationAwareRunnableFuture<?> future = context.get(ContinuationAwareRunnableFuture.suspendedFuture);
+        if (future != null) {
+            super.execute(future);
+        } else {
+            super.execute(() -> ContinuationExecutorUtils.handleContext(Continuation.resume(context)));
+        }
+    }
+
+    @Override
+    public void resumeAll(Iterable<? extends Continuation.Context> contexts) {
+        ContinuationExecutorUtils.resumeAll(this, contexts, super::execute,
+                batch -> super.execute(() -> ContinuationExecutorUtils.resumeBatch(batch)));
     }
 
     @Override
     protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
-        return super.newTaskFor(runnable, value);
+        return newTaskFor(Executors.callable(runnable, value));
     }
 
     @Override
     protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
-        return super.newTaskFor(callable);
+        return new ContinuationAwareRunnableFuture<>(() -> {
+            currentExecutor.set(this);
+            return callable.call();
+        });
     }
 }
@@ -1,19 +1,35 @@
 package org.jcontinue.utils;
 
+import org.jcontinue.continuation.Continuation;
+
 import java.util.Objects;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 public class ContinuationAwareRunnableFuture<T> implements RunnableFuture<T> {
+
+    // the future of a suspended context, used to resume the context through the future
+    static final Continuation.Local<ContinuationAwareRunnableFuture<?>> suspendedFuture = new Continuation.Local<>();
+
     private final Callable<? extends T> callable;
-    private final AtomicReference<State> state = new AtomicReference<>();
+    private final AtomicReference<State> state = new AtomicReference<>(State.INITIAL);
+    // Treiber stack of the threads waiting for the result
+    private final AtomicReference<WaitNode> waiters = new AtomicReference<>();
+    private volatile Thread runner;
+    // published by the state transitions
+    private Continuation.Context context;
+    private T result;
+    private Throwable exception;
 
     private enum State {
-        INITIAL, RUNNING, CANCELLED, INTERRUPTED, DONE;
+        // INTERRUPTING is a cancellation which is interrupting the runner, it is CANCELLED then
+        INITIAL, RUNNING, SUSPENDED, DONE, INTERRUPTING, CANCELLED;
     }
 
     public ContinuationAwareRunnableFuture(Callable<? extends T> callable) {
@@ -23,57 +39,213 @@ public class ContinuationAwareRunnableFuture<T> implements RunnableFuture<T> {
 
     @Override
     public void run() {
-        while (true) {
-            if (state.compareAndSet(State.INITIAL, State.RUNNING)) {
-                //
-            }
+        Continuation.Context resumedContext;
+        if (state.compareAndSet(State.INITIAL, State.RUNNING)) {
+            resumedContext = null;
+        } else if (state.compareAndSet(State.SUSPENDED, State.RUNNING)) {
+            resumedContext = context;
+            context = null;
+        } else {
+            return;
         }
-    }
-
-    private void perform() {
+        runner = Thread.currentThread();
+        Continuation.Context resultContext;
         try {
-            T result = callable.call();
-        } catch (Throwable e) {
-            //
+            resultContext = resumedContext == null ? Continuation.perform(this::perform)
+                    : Continuation.resume(resumedContext);
+        } finally {
+            runner = null;
+        }
+        if (resultContext.isFinished()) {
+            if (!resultContext.isSucceed()) {
+                exception = resultContext.getException();
+            }
+            finish();
+        } else {
+            resultContext.set(suspendedFuture, this);
+            context = resultContext;
+            if (state.compareAndSet(State.RUNNING, State.SUSPENDED)) {
+                // the context can be resumed by the action at once, so nothing is touched after it
+                ContinuationExecutorUtils.applyPostSuspendAction(resultContext);
+            } else {
+                context = null;
+                awaitCancellationInterrupt();
+            }
         }
     }
 
     @Override
     public boolean cancel(boolean mayInterruptIfRunning) {
         while (true) {
-            if (state.compareAndSet(State.INITIAL, State.CANCELLED)) {
-                return true;
-            }
-            if (state.get() == State.CANCELLED || state.get() == State.DONE) {
+            State currentState = state.get();
+            if (isDone(currentState)) {
                 return false;
             }
-            if (mayInterruptIfRunning && state.compareAndSet(State.RUNNING, State.INTERRUPTED)) {
-                //
+            boolean interrupting = currentState == State.RUNNING && mayInterruptIfRunning;
+            if (state.compareAndSet(currentState, interrupting ? State.INTERRUPTING : State.CANCELLED)) {
+                if (currentState == State.SUSPENDED) {
+                    context = null;
+                } else if (interrupting) {
+                    // the runner does not leave run() until the state is CANCELLED
+                    try {
+                        Thread runner = this.runner;
+                        if (runner != null) {
+                            runner.interrupt();
+                        }
+                    } finally {
+                        state.set(State.CANCELLED);
+                    }
+                }
+                releaseWaiters();
+                return true;
             }
         }
     }
 
     @Override
     public boolean isCancelled() {
-        return false;
+        State currentState = state.get();
+        return currentState == State.INTERRUPTING || currentState == State.CANCELLED;
     }
 
     @Override
     public boolean isDone() {
-        return false;
+        return isDone(state.get());
+    }
+
+    public boolean isSuspended() {
+        return state.get() == State.SUSPENDED;
     }
 
     @Override
     public T get() throws InterruptedException, ExecutionException {
-        return null;
+        return report(await(false, 0));
     }
 
     @Override
     public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        return null;
+        State resultState = await(true, unit.toNanos(timeout));
+        if (!isDone(resultState)) {
+            throw new TimeoutException();
+        }
+        return report(resultState);
+    }
+
+    // private methods
+
+    private void perform() throws Exception {
+        result = callable.call();
+    }
+
+    private void finish() {
+        if (state.compareAndSet(State.RUNNING, State.DONE)) {
+            releaseWaiters();
+        } else {
+            // cancelled while running
+            result = null;
+            exception = null;
+            awaitCancellationInterrupt();
+        }
+    }
+
+    // the interrupt of cancel(true) must not hit the next task of the runner thread
+    private void awaitCancellationInterrupt() {
+        while (state.get() == State.INTERRUPTING) {
+            Thread.yield();
+        }
+    }
+
+    private static boolean isDone(State state) {
+        return state == State.DONE || state == State.INTERRUPTING || state == State.CANCELLED;
+    }
+
+    private T report(State resultState) throws ExecutionException {
+        if (resultState == State.INTERRUPTING || resultState == State.CANCELLED) {
+            throw new CancellationException();
+        }
+        if (exception != null) {
+            throw new ExecutionException(exception);
+        }
+        return result;
+    }
+
+    private static class WaitNode {
+        private volatile Thread thread = Thread.currentThread();
+        private volatile WaitNode next;
+    }
+
+    private State await(boolean timed, long nanos) throws InterruptedException {
+        long deadline = timed ? System.nanoTime() + nanos : 0;
+        WaitNode node = null;
+        boolean queued = false;
+        while (true) {
+            if (Thread.interrupted()) {
+                removeWaiter(node);
+                throw new InterruptedException();
+            }
+            State currentState = state.get();
+            if (isDone(currentState)) {
+                if (node != null) {
+                    node.thread = null;
+                }
+                return currentState;
+            }
+            if (node == null) {
+                if (timed && nanos <= 0) {
+                    return currentState;
+                }
+                node = new WaitNode();
+            } else if (!queued) {
+                WaitNode head = waiters.get();
+                node.next = head;
+                queued = waiters.compareAndSet(head, node);
+            } else if (timed) {
+                nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    removeWaiter(node);
+                    return state.get();
+                }
+                LockSupport.parkNanos(this, nanos);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private void releaseWaiters() {
+        for (WaitNode node = waiters.getAndSet(null); node != null; node = node.next) {
+            Thread thread = node.thread;
+            if (thread != null) {
+                node.thread = null;
+                LockSupport.unpark(thread);
+            }
+        }
     }
 
-    private void await() {
-        //
+    // unlinks the nodes of the threads which stopped waiting, restarts if a race with another removal is detected
+    private void removeWaiter(WaitNode node) {
+        if (node == null) {
+            return;
+        }
+        node.thread = null;
+        retry:
+        while (true) {
+            WaitNode previous = null;
+            for (WaitNode current = waiters.get(); current != null; ) {
+                WaitNode next = current.next;
+                if (current.thread != null) {
+                    previous = current;
+                } else if (previous != null) {
+                    previous.next = next;
+                    if (previous.thread == null) {
+                        continue retry;
+                    }
+                } else if (!waiters.compareAndSet(current, next)) {
+                    continue retry;
+                }
+                current = next;
+            }
+            return;
+        }
     }
 }
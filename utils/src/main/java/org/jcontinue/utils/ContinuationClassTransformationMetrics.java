@@ -0,0 +1,163 @@
+package org.jcontinue.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// the times are in nanoseconds, the sizes are in bytes
+public class ContinuationClassTransformationMetrics {
+
+    public static class MethodMetrics {
+        private final String name;
+        private final String descriptor;
+        private final long analysisTime;
+        private final long transformTime;
+        private final int pointcutsNumber;
+        private final int savedFrameClassesNumber;
+        private final int originalCodeSize;
+        private final int transformedCodeSize;
+
+        public MethodMetrics(String name, String descriptor, long analysisTime, long transformTime,
+                int pointcutsNumber, int savedFrameClassesNumber, int originalCodeSize, int transformedCodeSize) {
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(descriptor);
+            this.name = name;
+            this.descriptor = descriptor;
+            this.analysisTime = analysisTime;
+            this.transformTime = transformTime;
+            this.pointcutsNumber = pointcutsNumber;
+            this.savedFrameClassesNumber = savedFrameClassesNumber;
+            this.originalCodeSize = originalCodeSize;
+            this.transformedCodeSize = transformedCodeSize;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescriptor() {
+            return descriptor;
+        }
+
+        // zero if the analyzer is not created by the class loader, the analysis is a part of the transform then
+        public long getAnalysisTime() {
+            return analysisTime;
+        }
+
+        public long getTransformTime() {
+            return transformTime;
+        }
+
+        public int getPointcutsNumber() {
+            return pointcutsNumber;
+        }
+
+        // the saved frame classes which are generated for the method and were not generated before
+        public int getSavedFrameClassesNumber() {
+            return savedFrameClassesNumber;
+        }
+
+        public int getOriginalCodeSize() {
+            return originalCodeSize;
+        }
+
+        public int getTransformedCodeSize() {
+            return transformedCodeSize;
+        }
+
+        @Override
+        public String toString() {
+            return name + descriptor + " analysis " + analysisTime + " ns, transform " + transformTime + " ns, "
+                    + pointcutsNumber + " pointcuts, " + savedFrameClassesNumber + " saved frame classes, "
+                    + originalCodeSize + " -> " + transformedCodeSize + " bytes";
+        }
+    }
+
+    private final String className;
+    private final long readTime;
+    private final long writeTime;
+    private final int originalSize;
+    private final int transformedSize;
+    private final List<MethodMetrics> methods;
+
+    public ContinuationClassTransformationMetrics(String className, long readTime, long writeTime, int originalSize,
+            int transformedSize, List<MethodMetrics> methods) {
+        Objects.requireNonNull(className);
+        Objects.requireNonNull(methods);
+        this.className = className;
+        this.readTime = readTime;
+        this.writeTime = writeTime;
+        this.originalSize = originalSize;
+        this.transformedSize = transformedSize;
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    // parsing of the original class body
+    public long getReadTime() {
+        return readTime;
+    }
+
+    // writing of the transformed class body with the frames computation
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    public int getOriginalSize() {
+        return originalSize;
+    }
+
+    public int getTransformedSize() {
+        return transformedSize;
+    }
+
+    // the transformed methods only
+    public List<MethodMetrics> getMethods() {
+        return methods;
+    }
+
+    public long getAnalysisTime() {
+        long result = 0;
+        for (MethodMetrics method : methods) {
+            result += method.analysisTime;
+        }
+        return result;
+    }
+
+    public long getTransformTime() {
+        long result = 0;
+        for (MethodMetrics method : methods) {
+            result += method.transformTime;
+        }
+        return result;
+    }
+
+    public long getTotalTime() {
+        return readTime + getAnalysisTime() + getTransformTime() + writeTime;
+    }
+
+    public int getPointcutsNumber() {
+        int result = 0;
+        for (MethodMetrics method : methods) {
+            result += method.pointcutsNumber;
+        }
+        return result;
+    }
+
+    public int getSavedFrameClassesNumber() {
+        int result = 0;
+        for (MethodMetrics method : methods) {
+            result += method.savedFrameClassesNumber;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return className + " " + getTotalTime() + " ns, " + methods.size() + " methods, " + getPointcutsNumber()
+                + " pointcuts, " + originalSize + " -> " + transformedSize + " bytes";
+    }
+}
@@ -1,22 +1,31 @@
 package org.jcontinue.utils;
 
+import org.jcontinue.analyzer.AnalyzeMethodResult;
+import org.jcontinue.analyzer.ClassHierarchyIndex;
+import org.jcontinue.analyzer.MethodAnalyzer;
 import org.jcontinue.analyzer.ObjectFrameItem;
 import org.jcontinue.analyzer.ObjectFrameItemClassNameSupplier;
 import org.jcontinue.analyzer.ObjectFrameItemFactory;
 import org.jcontinue.analyzer.SimpleObjectFrameItemFactory;
 import org.jcontinue.analyzer.StandardMethodAnalyzer;
+import org.jcontinue.base.AsmUtils;
 import org.jcontinue.base.ClassBodyResolver;
-import org.jcontinue.base.ClasspathClassBodyResolver;
+import org.jcontinue.base.CachingClassBodyResolver;
+import org.jcontinue.base.ClasspathIndexClassBodyResolver;
 import org.jcontinue.continuation.ContinuationClassTransformerRegistry;
+import org.jcontinue.continuation.ContinuationClassTransformerUtils;
 import org.jcontinue.continuation.ContinuationMethodTransformer;
 import org.jcontinue.continuation.SimpleContinuationClassTransformerRegistry;
 import org.jcontinue.continuation.StandardContinuationMethodTransformer;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ContinuationClassTransformerClassLoader extends ClassLoader {
@@ -25,6 +34,9 @@ public class ContinuationClassTransformerClassLoader extends ClassLoader {
     private final ContinuationMethodTransformer methodTransformer;
     private final ObjectFrameItemFactory objectFactory;
     private final ObjectFrameItemClassNameSupplier classNameSupplier;
+    // null if the method analyzer is not created by the class loader
+    private final TimingMethodAnalyzer timingMethodAnalyzer;
+    private volatile ContinuationClassTransformerListener listener;
 
     public ContinuationClassTransformerClassLoader(ClassLoader parent, ClassBodyResolver classBodyResolver,
             ContinuationClassTransformerRegistry registry, ContinuationMethodTransformer methodTransformer,
@@ -35,6 +47,7 @@ public class ContinuationClassTransformerClassLoader extends ClassLoader {
         this.methodTransformer = methodTransformer;
         this.objectFactory = objectFactory;
         this.classNameSupplier = classNameSupplier;
+        timingMethodAnalyzer = null;
     }
 
     public ContinuationClassTransformerClassLoader(ClassBodyResolver classBodyResolver,
@@ -43,10 +56,11 @@ public class ContinuationClassTransformerClassLoader extends ClassLoader {
         this(null, classBodyResolver, registry, methodTransformer, objectFactory, classNameSupplier);
     }
 
-    public ContinuationClassTransformerClassLoader(ClassLoader parent, ClassBodyResolver classBodyResolver) {
+    public ContinuationClassTransformerClassLoader(ClassLoader parent, ClassBodyResolver classBodyResolver,
+            ClassHierarchyIndex hierarchyIndex) {
         super(parent);
-        SimpleObjectFrameItemFactory objectFactory = new SimpleObjectFrameItemFactory(classBodyResolver);
-        StandardMethodAnalyzer methodAnalyzer = new StandardMethodAnalyzer(objectFactory);
+        SimpleObjectFrameItemFactory objectFactory = new SimpleObjectFrameItemFactory(hierarchyIndex);
+        TimingMethodAnalyzer methodAnalyzer = new TimingMethodAnalyzer(new StandardMethodAnalyzer(objectFactory));
         SimpleContinuationClassTransformerRegistry registry = new SimpleContinuationClassTransformerRegistry();
         StandardContinuationMethodTransformer methodTransformer =
                 new StandardContinuationMethodTransformer(registry, methodAnalyzer, objectFactory);
@@ -55,16 +69,30 @@ public class ContinuationClassTransformerClassLoader extends ClassLoader {
         this.methodTransformer = methodTransformer;
         this.objectFactory = objectFactory;
         this.classNameSupplier = objectFactory;
+        timingMethodAnalyzer = methodAnalyzer;
+    }
+
+    public ContinuationClassTransformerClassLoader(ClassLoader parent, ClassBodyResolver classBodyResolver) {
+        this(parent, classBodyResolver, new ClassHierarchyIndex(classBodyResolver));
     }
 
     public ContinuationClassTransformerClassLoader(ClassLoader parent) {
-        this(parent, new ClasspathClassBodyResolver());
+        this(parent, new CachingClassBodyResolver(ClasspathIndexClassBodyResolver.getSystemClasspathResolver()));
     }
 
     public ContinuationClassTransformerClassLoader() {
         this(null);
     }
 
+    // the classes are transformed without the measurements while the listener is null
+    public void setListener(ContinuationClassTransformerListener listener) {
+        this.listener = listener;
+    }
+
+    public ContinuationClassTransformerListener getListener() {
+        return listener;
+    }
+
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException {
         byte[] classBody;
@@ -77,17 +105,7 @@ public class ContinuationClassTransformerClassLoader extends ClassLoader {
             if (originalClassBody == null) {
                 classBody = null;
             } else {
-                ClassReader reader = new ClassReader(originalClassBody);
-                ClassNode clazz = new ClassNode(Opcodes.ASM5);
-                reader.accept(clazz, 0);
-                for (MethodNode method : (List<MethodNode>) clazz.methods) {
-                    if (registry.doTransformMethod(clazz, method)) {
-                        methodTransformer.transformMethod(name, method);
-                    }
-                }
-                ClassWriter writer = new CustomClassWriter();
-                clazz.accept(writer);
-                classBody = writer.toByteArray();
+                classBody = transformClass(name, originalClassBody);
             }
         }
         if (classBody == null) {
@@ -96,8 +114,100 @@ public class ContinuationClassTransformerClassLoader extends ClassLoader {
         return defineClass(name, classBody, 0, classBody.length);
     }
 
+    // used by ContinuationContextSerializer, a deserialized context can contain frames of the classes which are not
+    // loaded yet, their saved frame context classes are generated from the field descriptors then
+    public Class<?> loadSavedFrameContextClass(String className, String fieldDescriptors)
+            throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(className)) {
+            Class<?> result = findLoadedClass(className);
+            if (result != null) {
+                return result;
+            }
+            if (!methodTransformer.isAuxiliaryClass(className)) {
+                List<Type> sortedTypes = Arrays.asList(Type.getArgumentTypes("(" + fieldDescriptors + ")V"));
+                if (!sortedTypes.isEmpty()
+                        && className.equals(ContinuationClassTransformerUtils.getSavedContextClassName(sortedTypes))) {
+                    byte[] classBody = ContinuationClassTransformerUtils.getSavedFrameContextClassBody(sortedTypes);
+                    return defineClass(className, classBody, 0, classBody.length);
+                }
+            }
+            return loadClass(className);
+        }
+    }
+
     // private methods
 
+    // nothing is measured while the listener is null
+    private byte[] transformClass(String className, byte[] originalClassBody) {
+        ContinuationClassTransformerListener listener = this.listener;
+        if (timingMethodAnalyzer != null) {
+            timingMethodAnalyzer.timed = listener != null;
+        }
+        long readStart = listener != null ? System.nanoTime() : 0;
+        ClassReader reader = new ClassReader(originalClassBody);
+        ClassNode clazz = new ClassNode(Opcodes.ASM5);
+        reader.accept(clazz, 0);
+        long readTime = listener != null ? System.nanoTime() - readStart : 0;
+        List<ContinuationClassTransformationMetrics.MethodMetrics> methodsMetrics = new ArrayList<>();
+        for (MethodNode method : (List<MethodNode>) clazz.methods) {
+            if (registry.doTransformMethod(clazz, method)) {
+                if (listener != null) {
+                    methodsMetrics.add(transformMethod(className, method));
+                } else {
+                    methodTransformer.transformMethod(className, method);
+                }
+            }
+        }
+        long writeStart = listener != null ? System.nanoTime() : 0;
+        ClassWriter writer = new CustomClassWriter();
+        clazz.accept(writer);
+        byte[] result = writer.toByteArray();
+        if (listener != null) {
+            listener.classTransformed(new ContinuationClassTransformationMetrics(className, readTime,
+                    System.nanoTime() - writeStart, originalClassBody.length, result.length, methodsMetrics));
+        }
+        return result;
+    }
+
+    private ContinuationClassTransformationMetrics.MethodMetrics transformMethod(String className,
+            MethodNode method) {
+        int originalCodeSize = AsmUtils.getCodeSize(method);
+        int auxiliaryClassesNumber = methodTransformer.getAuxiliaryClasses().size();
+        long analysisTimeBefore = timingMethodAnalyzer == null ? 0 : timingMethodAnalyzer.time;
+        long start = System.nanoTime();
+        methodTransformer.transformMethod(className, method);
+        long time = System.nanoTime() - start;
+        long analysisTime = timingMethodAnalyzer == null ? 0 : timingMethodAnalyzer.time - analysisTimeBefore;
+        return new ContinuationClassTransformationMetrics.MethodMetrics(method.name, method.desc, analysisTime,
+                time - analysisTime, ContinuationClassTransformerUtils.getPointcutsNumber(method),
+                methodTransformer.getAuxiliaryClasses().size() - auxiliaryClassesNumber, originalCodeSize,
+                AsmUtils.getCodeSize(method));
+    }
+
+    // the class loader is not parallel capable, so the classes are transformed one after another
+    private static class TimingMethodAnalyzer implements MethodAnalyzer {
+        private final MethodAnalyzer methodAnalyzer;
+        private boolean timed;
+        private long time;
+
+        private TimingMethodAnalyzer(MethodAnalyzer methodAnalyzer) {
+            this.methodAnalyzer = methodAnalyzer;
+        }
+
+        @Override
+        public AnalyzeMethodResult analyzeMethod(String ownerClassName, MethodNode method) {
+            if (!timed) {
+                return methodAnalyzer.analyzeMethod(ownerClassName, method);
+            }
+            long start = System.nanoTime();
+            try {
+                return methodAnalyzer.analyzeMethod(ownerClassName, method);
+            } finally {
+                time += System.nanoTime() - start;
+            }
+        }
+    }
+
     private class CustomClassWriter extends ClassWriter {
 
         private CustomClassWriter() {
@@ -106,6 +216,9 @@ public class ContinuationClassTransformerClassLoader extends ClassLoader {
 
         @Override
         protected String getCommonSuperClass(String type1, String type2) {
+            if (type1.equals(type2)) {
+                return type1;
+            }
             String className1 = type1.replace('/', '.');
             String className2 = type2.replace('/', '.');
             ObjectFrameItem object1 = objectFactory.getObjectFrameItem(className1);
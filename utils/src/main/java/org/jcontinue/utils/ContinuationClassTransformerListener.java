@@ -0,0 +1,6 @@
+package org.jcontinue.utils;
+
+// is called by the loading thread before the class is defined
+public interface ContinuationClassTransformerListener {
+    void classTransformed(ContinuationClassTransformationMetrics metrics);
+}
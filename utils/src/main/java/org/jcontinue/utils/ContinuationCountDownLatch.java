@@ -0,0 +1,40 @@
+package org.jcontinue.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// await suspends the continuation instead of parking the thread
+public class ContinuationCountDownLatch {
+
+    private final AtomicInteger count;
+    private final ContinuationWaitQueue waiters = new ContinuationWaitQueue();
+
+    public ContinuationCountDownLatch(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count cannot be negative");
+        }
+        this.count = new AtomicInteger(count);
+    }
+
+    public void await() {
+        while (count.get() > 0) {
+            waiters.await(() -> count.get() == 0);
+        }
+    }
+
+    public void countDown() {
+        int currentCount = count.get();
+        while (currentCount > 0) {
+            if (count.compareAndSet(currentCount, currentCount - 1)) {
+                if (currentCount == 1) {
+                    waiters.resumeAll();
+                }
+                return;
+            }
+            currentCount = count.get();
+        }
+    }
+
+    public int getCount() {
+        return count.get();
+    }
+}
@@ -0,0 +1,16 @@
+package org.jcontinue.utils;
+
+import org.jcontinue.continuation.Continuation;
+
+import java.util.concurrent.Executor;
+
+public interface ContinuationExecutor extends Executor {
+    void resume(Continuation.Context context);
+
+    // the executors resume a batch of contexts back-to-back in one task
+    default void resumeAll(Iterable<? extends Continuation.Context> contexts) {
+        for (Continuation.Context context : contexts) {
+            resume(context);
+        }
+    }
+}
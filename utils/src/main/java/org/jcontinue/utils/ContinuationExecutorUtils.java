@@ -0,0 +1,88 @@
+package org.jcontinue.utils;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.continuation.Continuation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+class ContinuationExecutorUtils {
+
+    private static final Logger log = LoggerFactory.getLogger(ContinuationExecutorUtils.class);
+
+    // the other workers can take the next batches meanwhile
+    private static final int RESUME_BATCH_SIZE = 64;
+
+    static void applyPostSuspendAction(Continuation.Context context) {
+        Consumer<? super Continuation.Context> postSuspendAction =
+                context.get(ContinuableThreadPoolExecutor.postSuspendAction);
+        if (postSuspendAction != null) {
+            // the action can resume the context at once, so it is cleared before
+            context.set(ContinuableThreadPoolExecutor.postSuspendAction, null);
+            postSuspendAction.accept(context);
+        } else {
+            log.warn("post suspend action is null for context {}", context);
+        }
+    }
+
+    static void handleContext(Continuation.Context context) {
+        if (context.isFinished()) {
+            if (!context.isSucceed()) {
+                throw Throwables.propagate(context.getException());
+            }
+        } else {
+            applyPostSuspendAction(context);
+        }
+    }
+
+    // the contexts are resumed on their current executors, a batch per executor
+    static void resumeAll(Iterable<? extends Continuation.Context> contexts) {
+        Map<ContinuationExecutor, List<Continuation.Context>> executorContexts = new IdentityHashMap<>();
+        for (Continuation.Context context : contexts) {
+            executorContexts.computeIfAbsent(context.get(ContinuableThreadPoolExecutor.currentExecutor),
+                    executor -> new ArrayList<>()).add(context);
+        }
+        for (Map.Entry<ContinuationExecutor, List<Continuation.Context>> entry : executorContexts.entrySet()) {
+            entry.getKey().resumeAll(entry.getValue());
+        }
+    }
+
+    // the contexts of the suspended futures are resumed by the futures, the other ones in batches
+    static void resumeAll(ContinuationExecutor executor, Iterable<? extends Continuation.Context> contexts,
+            Consumer<? super Runnable> futureScheduler, Consumer<? super List<Continuation.Context>> batchScheduler) {
+        List<Continuation.Context> batch = new ArrayList<>();
+        for (Continuation.Context context : contexts) {
+            context.set(ContinuableThreadPoolExecutor.currentExecutor, executor);
+            ContinuationAwareRunnableFuture<?> future = context.get(ContinuationAwareRunnableFuture.suspendedFuture);
+            if (future != null) {
+                futureScheduler.accept(future);
+            } else {
+                batch.add(context);
+                if (batch.size() == RESUME_BATCH_SIZE) {
+                    batchScheduler.accept(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchScheduler.accept(batch);
+        }
+    }
+
+    // a failed context is reported as by a thread pool, the rest of the batch is resumed
+    static void resumeBatch(List<Continuation.Context> batch) {
+        Continuation.resumeAll(batch, context -> {
+            try {
+                handleContext(context);
+            } catch (Throwable e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        });
+    }
+}
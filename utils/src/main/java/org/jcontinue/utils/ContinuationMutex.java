@@ -0,0 +1,31 @@
+package org.jcontinue.utils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// not reentrant
+public class ContinuationMutex {
+
+    private final AtomicBoolean locked = new AtomicBoolean();
+    private final ContinuationWaitQueue waiters = new ContinuationWaitQueue();
+
+    public void lock() {
+        while (!tryLock()) {
+            waiters.await(() -> !locked.get());
+        }
+    }
+
+    public boolean tryLock() {
+        return !locked.get() && locked.compareAndSet(false, true);
+    }
+
+    public void unlock() {
+        if (!locked.compareAndSet(true, false)) {
+            throw new IllegalStateException("mutex is not locked");
+        }
+        waiters.resumeOne();
+    }
+
+    public boolean isLocked() {
+        return locked.get();
+    }
+}
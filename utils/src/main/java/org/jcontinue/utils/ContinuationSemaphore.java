@@ -0,0 +1,49 @@
+package org.jcontinue.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// permits are acquired one by one
+public class ContinuationSemaphore {
+
+    private final AtomicInteger permits;
+    private final ContinuationWaitQueue waiters = new ContinuationWaitQueue();
+
+    public ContinuationSemaphore(int permits) {
+        this.permits = new AtomicInteger(permits);
+    }
+
+    public void acquire() {
+        while (!tryAcquire()) {
+            waiters.await(() -> permits.get() > 0);
+        }
+    }
+
+    public boolean tryAcquire() {
+        int currentPermits = permits.get();
+        while (currentPermits > 0) {
+            if (permits.compareAndSet(currentPermits, currentPermits - 1)) {
+                return true;
+            }
+            currentPermits = permits.get();
+        }
+        return false;
+    }
+
+    public void release() {
+        permits.incrementAndGet();
+        waiters.resumeOne();
+    }
+
+    public void release(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException("permits cannot be negative");
+        }
+        for (int i = 0; i < permits; i++) {
+            release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.get();
+    }
+}
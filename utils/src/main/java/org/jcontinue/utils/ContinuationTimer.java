@@ -0,0 +1,347 @@
+package org.jcontinue.utils;
+
+import org.jcontinue.continuation.Continuation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+// hashed hierarchical timing wheel
+public class ContinuationTimer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ContinuationTimer.class);
+
+    private static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int LEVEL_BITS = 6;
+    private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+    private static final int LEVEL_MASK = LEVEL_SIZE - 1;
+    // enough to hold any non-negative tick
+    private static final int LEVELS = (Long.SIZE - 1 + LEVEL_BITS - 1) / LEVEL_BITS;
+    // bounds the ticker delay when timeouts are added faster than they are transferred
+    private static final int MAX_TRANSFERRED_PER_TICK = 100_000;
+
+    // set on the contexts which are resumed by close() before their timeouts expire
+    private static final Continuation.Local<Boolean> timerClosed = new Continuation.Local<>();
+
+    private final long tickNanos;
+    private final long startTime = System.nanoTime();
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread ticker;
+    private volatile boolean idle;
+    private volatile boolean closed;
+    // owned by the ticker thread
+    private final Timeout[] buckets = new Timeout[LEVELS * LEVEL_SIZE];
+    // the contexts expired by a tick or closed are resumed in batches
+    private final List<Continuation.Context> resumedContexts = new ArrayList<>();
+    private long currentTick;
+    private int timeoutsNumber;
+
+    private static class DefaultTimerHolder {
+        private static final ContinuationTimer timer = new ContinuationTimer();
+    }
+
+    public ContinuationTimer(long tickDuration, TimeUnit unit) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive");
+        }
+        tickNanos = unit.toNanos(tickDuration);
+        ticker = new Thread(this::run, "continuation-timer");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    public ContinuationTimer() {
+        this(DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    public static ContinuationTimer getDefaultTimer() {
+        return DefaultTimerHolder.timer;
+    }
+
+    // the task is run by the ticker thread and should only hand the work over to an executor
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Objects.requireNonNull(task);
+        return schedule(task, null, delay, unit);
+    }
+
+    // the context is resumed at once if the timer is closed
+    public Timeout resumeAfter(Continuation.Context context, long delay, TimeUnit unit) {
+        if (context.get(ContinuableThreadPoolExecutor.currentExecutor) == null) {
+            throw new IllegalStateException("context is not performed by a continuation executor");
+        }
+        return schedule(null, context, delay, unit);
+    }
+
+    public void sleep(long delay, TimeUnit unit) {
+        if (ContinuableThreadPoolExecutor.currentExecutor.get() == null) {
+            throw new IllegalStateException("sleep is called outside of a continuation executor");
+        }
+        ContinuableThreadPoolExecutor.postSuspendAction.set(context -> resumeAfter(context, delay, unit));
+        Continuation.suspend();
+        if (timerClosed.get() != null) {
+            timerClosed.set(null);
+            throw new IllegalStateException("timer is closed");
+        }
+    }
+
+    public void sleep(Duration duration) {
+        sleep(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // the contexts of the not expired timeouts are resumed and their sleeps throw, the tasks are not run
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(ticker);
+    }
+
+    // private methods
+
+    private Timeout schedule(Runnable task, Continuation.Context context, long delay, TimeUnit unit) {
+        long delayNanos = Math.max(unit.toNanos(delay), 0);
+        // rounded up, a timeout never expires earlier than requested
+        Timeout timeout = new Timeout(this, task, context,
+                (System.nanoTime() - startTime + delayNanos + tickNanos - 1) / tickNanos);
+        pendingTimeouts.add(timeout);
+        // the ticker closes the pending timeouts once it stops, a timeout added after that is closed here
+        if (closed && Timeout.stateUpdater.compareAndSet(timeout, Timeout.WAITING, Timeout.CLOSED)) {
+            pendingTimeouts.remove(timeout);
+            if (context == null) {
+                throw new IllegalStateException("timer is closed");
+            }
+            context.set(timerClosed, Boolean.TRUE);
+            ContinuationExecutorUtils.resumeAll(Collections.singletonList(context));
+            return timeout;
+        }
+        if (idle) {
+            idle = false;
+            LockSupport.unpark(ticker);
+        }
+        return timeout;
+    }
+
+    private void run() {
+        while (!closed) {
+            transferCancelled();
+            long tick = getTick(System.nanoTime());
+            if (timeoutsNumber == 0) {
+                // nothing to expire, the wheel can jump
+                currentTick = Math.max(currentTick, tick);
+            }
+            while (currentTick < tick) {
+                advance();
+            }
+            transferPending();
+            if (timeoutsNumber > 0 || !pendingTimeouts.isEmpty()) {
+                LockSupport.parkNanos(this, startTime + (currentTick + 1) * tickNanos - System.nanoTime());
+            } else {
+                idle = true;
+                // rechecked after the flag is set, a timeout added before is not missed
+                if (pendingTimeouts.isEmpty() && !closed) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+        closeTimeouts();
+    }
+
+    private long getTick(long time) {
+        return (time - startTime) / tickNanos;
+    }
+
+    private void advance() {
+        long tick = ++currentTick;
+        // the upper level buckets which start at the tick are cascaded down
+        int cascadedLevel = Math.min(Long.numberOfTrailingZeros(tick) / LEVEL_BITS, LEVELS - 1);
+        for (int level = cascadedLevel; level > 0; level--) {
+            Timeout timeout = detachBucket(level * LEVEL_SIZE + ((int) (tick >>> (level * LEVEL_BITS)) & LEVEL_MASK));
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state == Timeout.WAITING) {
+                    insert(timeout, timeout.deadlineTick);
+                } else {
+                    timeoutsNumber--;
+                }
+                timeout = next;
+            }
+        }
+        Timeout timeout = detachBucket((int) tick & LEVEL_MASK);
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeoutsNumber--;
+            if (Timeout.stateUpdater.compareAndSet(timeout, Timeout.WAITING, Timeout.EXPIRED)) {
+                if (timeout.context != null) {
+                    resumedContexts.add(timeout.context);
+                } else {
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable e) {
+                        log.error("timeout task failed", e);
+                    }
+                }
+            }
+            timeout = next;
+        }
+        resumeContexts();
+    }
+
+    private void closeTimeouts() {
+        for (int i = 0; i < buckets.length; i++) {
+            for (Timeout timeout = detachBucket(i); timeout != null; timeout = timeout.next) {
+                close(timeout);
+            }
+        }
+        for (Timeout timeout = pendingTimeouts.poll(); timeout != null; timeout = pendingTimeouts.poll()) {
+            close(timeout);
+        }
+        cancelledTimeouts.clear();
+        timeoutsNumber = 0;
+        resumeContexts();
+    }
+
+    private void close(Timeout timeout) {
+        if (Timeout.stateUpdater.compareAndSet(timeout, Timeout.WAITING, Timeout.CLOSED) && timeout.context != null) {
+            timeout.context.set(timerClosed, Boolean.TRUE);
+            resumedContexts.add(timeout.context);
+        }
+    }
+
+    private void resumeContexts() {
+        if (!resumedContexts.isEmpty()) {
+            try {
+                ContinuationExecutorUtils.resumeAll(resumedContexts);
+            } catch (Throwable e) {
+                log.error("timeout resume failed", e);
+            }
+            resumedContexts.clear();
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERRED_PER_TICK; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state == Timeout.WAITING) {
+                timeoutsNumber++;
+                // the bucket of the current tick is already expired
+                insert(timeout, Math.max(timeout.deadlineTick, currentTick + 1));
+            }
+        }
+    }
+
+    private void transferCancelled() {
+        for (int i = 0; i < MAX_TRANSFERRED_PER_TICK; i++) {
+            Timeout timeout = cancelledTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.bucketIndex >= 0) {
+                unlink(timeout);
+                timeoutsNumber--;
+            }
+        }
+    }
+
+    // the level is the highest group of bits where the deadline differs from the current tick
+    private void insert(Timeout timeout, long deadlineTick) {
+        long difference = deadlineTick ^ currentTick;
+        int level = difference == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(difference)) / LEVEL_BITS;
+        int bucketIndex = level * LEVEL_SIZE + ((int) (deadlineTick >>> (level * LEVEL_BITS)) & LEVEL_MASK);
+        Timeout head = buckets[bucketIndex];
+        timeout.bucketIndex = bucketIndex;
+        timeout.previous = null;
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        buckets[bucketIndex] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            buckets[timeout.bucketIndex] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.bucketIndex = -1;
+        timeout.previous = null;
+        timeout.next = null;
+    }
+
+    // the detached timeouts stay linked through the next references
+    private Timeout detachBucket(int bucketIndex) {
+        Timeout head = buckets[bucketIndex];
+        buckets[bucketIndex] = null;
+        for (Timeout timeout = head; timeout != null; timeout = timeout.next) {
+            timeout.bucketIndex = -1;
+        }
+        return head;
+    }
+
+    public static class Timeout {
+        private static final int WAITING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+        private static final int CLOSED = 3;
+
+        // a field updater instead of an atomic per timeout, there can be millions of them
+        private static final AtomicIntegerFieldUpdater<Timeout> stateUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final ContinuationTimer timer;
+        // either the task is run or the context is resumed
+        private final Runnable task;
+        private final Continuation.Context context;
+        private final long deadlineTick;
+        private volatile int state = WAITING;
+        // owned by the ticker thread, the index of the bucket is -1 if the timeout is not in the wheel
+        private int bucketIndex = -1;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(ContinuationTimer timer, Runnable task, Continuation.Context context, long deadlineTick) {
+            this.timer = timer;
+            this.task = task;
+            this.context = context;
+            this.deadlineTick = deadlineTick;
+        }
+
+        // the timeout is unlinked from the wheel by the ticker thread on the next tick
+        public boolean cancel() {
+            if (!stateUpdater.compareAndSet(this, WAITING, CANCELLED)) {
+                return false;
+            }
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        // the timer is closed before the timeout expires
+        public boolean isClosed() {
+            return state == CLOSED;
+        }
+    }
+}
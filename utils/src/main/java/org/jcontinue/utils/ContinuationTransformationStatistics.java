@@ -0,0 +1,207 @@
+package org.jcontinue.utils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ContinuationTransformationStatistics implements ContinuationClassTransformerListener,
+        ContinuationTransformationStatisticsMXBean {
+
+    private static final int SLOWEST_CLASSES_NUMBER = 10;
+
+    private final List<ContinuationClassTransformationMetrics> classes = new ArrayList<>();
+
+    @Override
+    public synchronized void classTransformed(ContinuationClassTransformationMetrics metrics) {
+        classes.add(metrics);
+    }
+
+    public synchronized List<ContinuationClassTransformationMetrics> getClasses() {
+        return new ArrayList<>(classes);
+    }
+
+    @Override
+    public synchronized long getClassesNumber() {
+        return classes.size();
+    }
+
+    @Override
+    public synchronized long getMethodsNumber() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getMethods().size();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getPointcutsNumber() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getPointcutsNumber();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getSavedFrameClassesNumber() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getSavedFrameClassesNumber();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getReadTime() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getReadTime();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getAnalysisTime() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getAnalysisTime();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getTransformTime() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getTransformTime();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getWriteTime() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getWriteTime();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getOriginalSize() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getOriginalSize();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getTransformedSize() {
+        long result = 0;
+        for (ContinuationClassTransformationMetrics clazz : classes) {
+            result += clazz.getTransformedSize();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String[] getSlowestClasses() {
+        List<ContinuationClassTransformationMetrics> sortedClasses = new ArrayList<>(classes);
+        sortedClasses.sort(Comparator.comparingLong(ContinuationClassTransformationMetrics::getTotalTime).reversed());
+        int resultSize = Math.min(SLOWEST_CLASSES_NUMBER, sortedClasses.size());
+        String[] result = new String[resultSize];
+        for (int i = 0; i < resultSize; i++) {
+            result[i] = sortedClasses.get(i).toString();
+        }
+        return result;
+    }
+
+    // the totals and the metrics of every class and its transformed methods
+    @Override
+    public synchronized String getJson() {
+        StringBuilder result = new StringBuilder();
+        result.append("{\"classesNumber\":").append(getClassesNumber())
+                .append(",\"methodsNumber\":").append(getMethodsNumber())
+                .append(",\"pointcutsNumber\":").append(getPointcutsNumber())
+                .append(",\"savedFrameClassesNumber\":").append(getSavedFrameClassesNumber())
+                .append(",\"readTime\":").append(getReadTime())
+                .append(",\"analysisTime\":").append(getAnalysisTime())
+                .append(",\"transformTime\":").append(getTransformTime())
+                .append(",\"writeTime\":").append(getWriteTime())
+                .append(",\"originalSize\":").append(getOriginalSize())
+                .append(",\"transformedSize\":").append(getTransformedSize())
+                .append(",\"classes\":[");
+        for (int i = 0; i < classes.size(); i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            appendJson(result, classes.get(i));
+        }
+        return result.append("]}").toString();
+    }
+
+    @Override
+    public synchronized void reset() {
+        classes.clear();
+    }
+
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("org.jcontinue:type=" + getClass().getSimpleName() + ",name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    // private methods
+
+    private static void appendJson(StringBuilder builder, ContinuationClassTransformationMetrics clazz) {
+        builder.append("{\"className\":");
+        appendJsonString(builder, clazz.getClassName());
+        builder.append(",\"readTime\":").append(clazz.getReadTime())
+                .append(",\"analysisTime\":").append(clazz.getAnalysisTime())
+                .append(",\"transformTime\":").append(clazz.getTransformTime())
+                .append(",\"writeTime\":").append(clazz.getWriteTime())
+                .append(",\"originalSize\":").append(clazz.getOriginalSize())
+                .append(",\"transformedSize\":").append(clazz.getTransformedSize())
+                .append(",\"methods\":[");
+        List<ContinuationClassTransformationMetrics.MethodMetrics> methods = clazz.getMethods();
+        for (int i = 0; i < methods.size(); i++) {
+            ContinuationClassTransformationMetrics.MethodMetrics method = methods.get(i);
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"name\":");
+            appendJsonString(builder, method.getName());
+            builder.append(",\"descriptor\":");
+            appendJsonString(builder, method.getDescriptor());
+            builder.append(",\"analysisTime\":").append(method.getAnalysisTime())
+                    .append(",\"transformTime\":").append(method.getTransformTime())
+                    .append(",\"pointcutsNumber\":").append(method.getPointcutsNumber())
+                    .append(",\"savedFrameClassesNumber\":").append(method.getSavedFrameClassesNumber())
+                    .append(",\"originalCodeSize\":").append(method.getOriginalCodeSize())
+                    .append(",\"transformedCodeSize\":").append(method.getTransformedCodeSize())
+                    .append('}');
+        }
+        builder.append("]}");
+    }
+
+    private static void appendJsonString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+}
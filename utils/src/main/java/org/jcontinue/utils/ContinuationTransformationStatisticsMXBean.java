@@ -0,0 +1,31 @@
+package org.jcontinue.utils;
+
+// the times are in nanoseconds, the sizes are in bytes
+public interface ContinuationTransformationStatisticsMXBean {
+    long getClassesNumber();
+
+    long getMethodsNumber();
+
+    long getPointcutsNumber();
+
+    long getSavedFrameClassesNumber();
+
+    long getReadTime();
+
+    long getAnalysisTime();
+
+    long getTransformTime();
+
+    long getWriteTime();
+
+    long getOriginalSize();
+
+    long getTransformedSize();
+
+    // the classes with the longest transformation, the slowest first
+    String[] getSlowestClasses();
+
+    String getJson();
+
+    void reset();
+}
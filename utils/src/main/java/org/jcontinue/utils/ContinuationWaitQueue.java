@@ -0,0 +1,84 @@
+package org.jcontinue.utils;
+
+import org.jcontinue.continuation.Continuation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.BooleanSupplier;
+
+// lock-free queue of suspended contexts, they are resumed on their current executors
+class ContinuationWaitQueue {
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    // a waiter is resumed by whoever claims it first, the claimed waiters are skipped when they are polled
+    private static class Waiter {
+        private static final AtomicIntegerFieldUpdater<Waiter> claimedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(Waiter.class, "claimed");
+
+        private final Continuation.Context context;
+        private volatile int claimed;
+
+        private Waiter(Continuation.Context context) {
+            this.context = context;
+        }
+
+        private boolean claim() {
+            return claimedUpdater.compareAndSet(this, 0, 1);
+        }
+    }
+
+    // the condition is checked once more after the context is queued, so a racing resume is not lost
+    void await(BooleanSupplier ready) {
+        if (ContinuableThreadPoolExecutor.currentExecutor.get() == null) {
+            throw new IllegalStateException("continuation is not performed by a continuation executor");
+        }
+        ContinuableThreadPoolExecutor.postSuspendAction.set(context -> {
+            Waiter waiter = new Waiter(context);
+            waiters.add(waiter);
+            if (ready.getAsBoolean() && waiter.claim()) {
+                resume(context);
+            }
+        });
+        Continuation.suspend();
+    }
+
+    void resumeOne() {
+        resumeSome(1);
+    }
+
+    // resumes up to the given number of waiters
+    void resumeSome(int count) {
+        int resumed = 0;
+        while (resumed < count) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null) {
+                return;
+            }
+            if (waiter.claim()) {
+                resume(waiter.context);
+                resumed++;
+            }
+        }
+    }
+
+    // the contexts are resumed in batches on their executors
+    void resumeAll() {
+        List<Continuation.Context> contexts = new ArrayList<>();
+        for (Waiter waiter = waiters.poll(); waiter != null; waiter = waiters.poll()) {
+            if (waiter.claim()) {
+                contexts.add(waiter.context);
+            }
+        }
+        ContinuationExecutorUtils.resumeAll(contexts);
+    }
+
+    // private methods
+
+    private static void resume(Continuation.Context context) {
+        context.get(ContinuableThreadPoolExecutor.currentExecutor).resume(context);
+    }
+}
@@ -0,0 +1,158 @@
+package org.jcontinue.utils;
+
+import org.jcontinue.continuation.Continuation;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+
+// work-stealing, each worker keeps its own deque
+public class ForkJoinContinuationExecutor extends AbstractExecutorService implements ContinuationExecutor {
+
+    private final ForkJoinPool pool;
+
+    public ForkJoinContinuationExecutor(int parallelism) {
+        // async mode: never joined tasks are taken in FIFO order, as event-style tasks should be
+        this(new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true));
+    }
+
+    public ForkJoinContinuationExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ForkJoinContinuationExecutor(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        this.pool = pool;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Objects.requireNonNull(command);
+        schedule(new ContinuationTask(command, null, null));
+    }
+
+    @Override
+    public void resume(Continuation.Context context) {
+        context.set(ContinuableThreadPoolExecutor.currentExecutor, this);
+        ContinuationAwareRunnableFuture<?> future = context.get(ContinuationAwareRunnableFuture.suspendedFuture);
+        if (future != null) {
+            schedule(new ContinuationTask(future, null, null));
+        } else {
+            schedule(new ContinuationTask(null, context, null));
+        }
+    }
+
+    @Override
+    public void resumeAll(Iterable<? extends Continuation.Context> contexts) {
+        ContinuationExecutorUtils.resumeAll(this, contexts,
+                future -> schedule(new ContinuationTask(future, null, null)),
+                batch -> schedule(new ContinuationTask(null, null, batch)));
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return pool.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return pool.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return newTaskFor(Executors.callable(runnable, value));
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new ContinuationAwareRunnableFuture<>(() -> {
+            ContinuableThreadPoolExecutor.currentExecutor.set(this);
+            return callable.call();
+        });
+    }
+
+    // private methods
+
+    private void schedule(ContinuationTask task) {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == pool) {
+            task.fork();
+        } else {
+            pool.execute(task);
+        }
+    }
+
+    private class ContinuationTask extends ForkJoinTask<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final Runnable command;
+        private final Continuation.Context context;
+        private final List<Continuation.Context> contexts;
+
+        private ContinuationTask(Runnable command, Continuation.Context context, List<Continuation.Context> contexts) {
+            this.command = command;
+            this.context = context;
+            this.contexts = contexts;
+        }
+
+        @Override
+        public Void getRawResult() {
+            return null;
+        }
+
+        @Override
+        protected void setRawResult(Void value) {
+        }
+
+        @Override
+        protected boolean exec() {
+            try {
+                if (command instanceof ContinuationAwareRunnableFuture) {
+                    // the future performs the continuation by itself
+                    command.run();
+                } else if (command != null) {
+                    ContinuationExecutorUtils.handleContext(Continuation.perform(() -> {
+                        ContinuableThreadPoolExecutor.currentExecutor.set(ForkJoinContinuationExecutor.this);
+                        command.run();
+                    }));
+                } else if (context != null) {
+                    ContinuationExecutorUtils.handleContext(Continuation.resume(context));
+                } else {
+                    ContinuationExecutorUtils.resumeBatch(contexts);
+                }
+            } catch (Throwable e) {
+                // nobody joins the task, so the failure is reported as by a thread pool
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.jcontinue.utils;
+
+import com.google.common.base.Throwables;
+import org.jcontinue.continuation.Continuation;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// the body is suspended by yield() and resumed when the next value is requested
+public class Generator<T> implements Iterator<T>, Spliterator<T> {
+
+    private final Body<T> body;
+    private final Object[] buffer;
+    private int size;
+    private int index;
+    private Continuation.Context context;
+
+    @FunctionalInterface
+    public interface Body<T> {
+        void generate(Generator<T> generator) throws Throwable;
+    }
+
+    public Generator(int batchSize, Body<T> body) {
+        Objects.requireNonNull(body);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.body = body;
+        buffer = new Object[batchSize];
+    }
+
+    public Generator(Body<T> body) {
+        this(1, body);
+    }
+
+    // called by the body, suspends it when the batch is full
+    public void yield(T value) {
+        buffer[size++] = value;
+        if (size == buffer.length) {
+            Continuation.suspend();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index == size) {
+            if (context != null && context.isFinished()) {
+                return false;
+            }
+            index = 0;
+            size = 0;
+            // the first values are generated on the first request
+            if (context == null) {
+                context = Continuation.perform(() -> body.generate(this));
+            } else {
+                context = Continuation.resume(context);
+            }
+            if (context.isFinished() && !context.isSucceed()) {
+                throw Throwables.propagate(context.getException());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T value = (T) buffer[index];
+        buffer[index++] = null;
+        return value;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (!hasNext()) {
+            return false;
+        }
+        action.accept(next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (hasNext()) {
+            action.accept(next());
+        }
+    }
+
+    // the values are generated sequentially
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(this, false);
+    }
+}
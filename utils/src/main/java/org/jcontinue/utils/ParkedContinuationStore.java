@@ -0,0 +1,328 @@
+package org.jcontinue.utils;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.ContinuationContextSerializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// keeps suspended contexts serialized in memory-mapped segment files
+public class ParkedContinuationStore implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.25;
+
+    // record: int length of the serialized context, long id, serialized context
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private final ContinuationContextSerializer serializer;
+    private final int segmentSize;
+    private final double compactionThreshold;
+    // the location is the segment number in the high half and the record offset in the low half
+    private final LocationIndex index = new LocationIndex();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment lastSegment;
+    private int nextSegmentNumber;
+    private long nextId;
+    private boolean closed;
+
+    private static class Segment {
+        private final int number;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int liveBytes;
+
+        private Segment(int number, Path path, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    // an open addressing map of the ids to the locations without boxing, the locations are never negative
+    private static class LocationIndex {
+        private static final long NO_LOCATION = -1;
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long[] locations = newLocations(INITIAL_CAPACITY);
+        private int size;
+
+        private long get(long id) {
+            for (int i = getSlot(id, ids.length); locations[i] != NO_LOCATION; i = (i + 1) & (ids.length - 1)) {
+                if (ids[i] == id) {
+                    return locations[i];
+                }
+            }
+            return NO_LOCATION;
+        }
+
+        private void put(long id, long location) {
+            int i = getSlot(id, ids.length);
+            while (locations[i] != NO_LOCATION && ids[i] != id) {
+                i = (i + 1) & (ids.length - 1);
+            }
+            if (locations[i] == NO_LOCATION) {
+                size++;
+            }
+            ids[i] = id;
+            locations[i] = location;
+            if (size * 2 > ids.length) {
+                resize(ids.length * 2);
+            }
+        }
+
+        private long remove(long id) {
+            int mask = ids.length - 1;
+            int i = getSlot(id, ids.length);
+            while (locations[i] != NO_LOCATION && ids[i] != id) {
+                i = (i + 1) & mask;
+            }
+            long result = locations[i];
+            if (result == NO_LOCATION) {
+                return NO_LOCATION;
+            }
+            size--;
+            // the following entries of the run are shifted back, so the lookups never stop at a hole
+            for (int j = (i + 1) & mask; locations[j] != NO_LOCATION; j = (j + 1) & mask) {
+                int slot = getSlot(ids[j], ids.length);
+                if (((j - slot) & mask) >= ((j - i) & mask)) {
+                    ids[i] = ids[j];
+                    locations[i] = locations[j];
+                    i = j;
+                }
+            }
+            locations[i] = NO_LOCATION;
+            return result;
+        }
+
+        private void clear() {
+            Arrays.fill(locations, NO_LOCATION);
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            long[] oldIds = ids;
+            long[] oldLocations = locations;
+            ids = new long[capacity];
+            locations = newLocations(capacity);
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldLocations[i] != NO_LOCATION) {
+                    int j = getSlot(oldIds[i], capacity);
+                    while (locations[j] != NO_LOCATION) {
+                        j = (j + 1) & (capacity - 1);
+                    }
+                    ids[j] = oldIds[i];
+                    locations[j] = oldLocations[i];
+                }
+            }
+        }
+
+        private static long[] newLocations(int capacity) {
+            long[] result = new long[capacity];
+            Arrays.fill(result, NO_LOCATION);
+            return result;
+        }
+
+        // the ids are sequential, so they are spread by the multiplicative hashing
+        private static int getSlot(long id, int capacity) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ hash >>> Integer.SIZE) & (capacity - 1);
+        }
+    }
+
+    public ParkedContinuationStore(Path directory, ContinuationContextSerializer serializer, int segmentSize,
+            double compactionThreshold) throws IOException {
+        Objects.requireNonNull(serializer);
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small");
+        }
+        if (compactionThreshold < 0 || compactionThreshold > 1) {
+            throw new IllegalArgumentException("compactionThreshold must be in [0, 1]");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.serializer = serializer;
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public ParkedContinuationStore(Path directory, ContinuationContextSerializer serializer) throws IOException {
+        this(directory, serializer, DEFAULT_SEGMENT_SIZE, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public synchronized long park(Continuation.Context context) throws IOException {
+        checkNotClosed();
+        long id = nextId++;
+        append(id, serializer.serialize(context));
+        return id;
+    }
+
+    // removes the context from the store and deserializes it, returns null if there is no context with the id
+    public Continuation.Context unpark(long id) throws IOException {
+        byte[] bytes;
+        synchronized (this) {
+            checkNotClosed();
+            long location = index.remove(id);
+            if (location == LocationIndex.NO_LOCATION) {
+                return null;
+            }
+            Segment segment = segments.get(getSegmentNumber(location));
+            ByteBuffer record = segment.buffer.duplicate();
+            record.position(getOffset(location));
+            bytes = new byte[record.getInt()];
+            record.getLong();
+            record.get(bytes);
+            release(segment, bytes.length);
+        }
+        return serializer.deserialize(bytes);
+    }
+
+    public synchronized boolean remove(long id) throws IOException {
+        checkNotClosed();
+        long location = index.remove(id);
+        if (location == LocationIndex.NO_LOCATION) {
+            return false;
+        }
+        Segment segment = segments.get(getSegmentNumber(location));
+        release(segment, segment.buffer.getInt(getOffset(location)));
+        return true;
+    }
+
+    public synchronized boolean contains(long id) {
+        return index.get(id) != LocationIndex.NO_LOCATION;
+    }
+
+    public synchronized int size() {
+        return index.size;
+    }
+
+    public synchronized int getSegmentsNumber() {
+        return segments.size();
+    }
+
+    // moves the live records of the segments which live part is below the compaction threshold to the last segment,
+    // a segment is also compacted as soon as a release takes it below the threshold
+    public synchronized void compact() throws IOException {
+        checkNotClosed();
+        List<Segment> sparseSegments = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (isSparse(segment)) {
+                sparseSegments.add(segment);
+            }
+        }
+        for (Segment segment : sparseSegments) {
+            compact(segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            index.clear();
+            for (Iterator<Segment> i = segments.values().iterator(); i.hasNext();) {
+                Files.deleteIfExists(i.next().path);
+                i.remove();
+            }
+            lastSegment = null;
+        }
+    }
+
+    // private methods
+
+    private void append(long id, byte[] bytes) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + bytes.length;
+        if (lastSegment == null || lastSegment.buffer.remaining() < recordSize) {
+            Segment previousSegment = lastSegment;
+            lastSegment = createSegment(Math.max(segmentSize, recordSize));
+            if (previousSegment != null && previousSegment.liveBytes == 0) {
+                delete(previousSegment);
+            }
+        }
+        MappedByteBuffer buffer = lastSegment.buffer;
+        long location = getLocation(lastSegment.number, buffer.position());
+        buffer.putInt(bytes.length);
+        buffer.putLong(id);
+        buffer.put(bytes);
+        lastSegment.liveBytes += recordSize;
+        index.put(id, location);
+    }
+
+    private Segment createSegment(int size) throws IOException {
+        int number = nextSegmentNumber++;
+        Path path = directory.resolve("segment-" + number);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        // the mapping stays valid after the channel is closed
+        Segment result = new Segment(number, path, buffer);
+        segments.put(number, result);
+        return result;
+    }
+
+    private void release(Segment segment, int length) throws IOException {
+        segment.liveBytes -= RECORD_HEADER_SIZE + length;
+        if (segment.liveBytes == 0 && segment != lastSegment) {
+            delete(segment);
+        } else if (isSparse(segment)) {
+            compact(segment);
+        }
+    }
+
+    private boolean isSparse(Segment segment) {
+        return segment != lastSegment && segment.liveBytes < segment.buffer.capacity() * compactionThreshold;
+    }
+
+    private void compact(Segment segment) throws IOException {
+        ByteBuffer records = segment.buffer.duplicate();
+        records.flip();
+        while (records.hasRemaining()) {
+            int offset = records.position();
+            byte[] bytes = new byte[records.getInt()];
+            long id = records.getLong();
+            records.get(bytes);
+            if (index.get(id) == getLocation(segment.number, offset)) {
+                append(id, bytes);
+            }
+        }
+        delete(segment);
+    }
+
+    // the mapping is released by the garbage collector of the buffer
+    private void delete(Segment segment) throws IOException {
+        segments.remove(segment.number);
+        Files.deleteIfExists(segment.path);
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("store is closed");
+        }
+    }
+
+    private static long getLocation(int segmentNumber, int offset) {
+        return (long) segmentNumber << Integer.SIZE | offset;
+    }
+
+    private static int getSegmentNumber(long location) {
+        return (int) (location >>> Integer.SIZE);
+    }
+
+    private static int getOffset(long location) {
+        return (int) location;
+    }
+}
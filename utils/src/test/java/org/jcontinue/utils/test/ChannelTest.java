@@ -0,0 +1,188 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.utils.Channel;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ForkJoinContinuationExecutor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ChannelTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testOfferAndPoll() {
+        Channel<Integer> channel = new Channel<>(3);
+        Assert.assertEquals(4, channel.getCapacity());
+        Assert.assertNull(channel.poll());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(channel.offer(i));
+        }
+        Assert.assertFalse(channel.offer(4));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(i, channel.poll().intValue());
+        }
+        Assert.assertNull(channel.poll());
+        channel.close();
+        try {
+            channel.offer(0);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSendAllAndReceiveBatch() {
+        Channel<Integer> channel = new Channel<>(8);
+        channel.sendAll(IntStream.range(0, 6).boxed().collect(Collectors.toList()));
+        Assert.assertTrue(channel.offer(6));
+        List<Integer> values = new ArrayList<>();
+        Assert.assertEquals(4, channel.receive(values, 4));
+        Assert.assertEquals(3, channel.receive(values, 10));
+        Assert.assertEquals(IntStream.range(0, 7).boxed().collect(Collectors.toList()), values);
+        // the run of the free slots wraps around the ring
+        channel.sendAll(IntStream.range(0, 8).boxed().collect(Collectors.toList()));
+        Assert.assertFalse(channel.offer(8));
+        values.clear();
+        Assert.assertEquals(8, channel.receive(values, 10));
+        Assert.assertEquals(IntStream.range(0, 8).boxed().collect(Collectors.toList()), values);
+        Assert.assertNull(channel.poll());
+    }
+
+    @Test
+    public void testProducersAndConsumers() throws ClassNotFoundException, IllegalAccessException,
+            InstantiationException, NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(ProducersAndConsumersTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testClose() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(CloseTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class ProducersAndConsumersTest {
+
+        private static final int PRODUCERS = 1000;
+        private static final int CONSUMERS = 100;
+        private static final int VALUES = 100;
+
+        public void start() throws Exception {
+            // much more tasks than threads, the waiting tasks must not occupy them
+            ForkJoinContinuationExecutor executor = new ForkJoinContinuationExecutor(2);
+            try {
+                Channel<Integer> channel = new Channel<>(16);
+                List<Future<?>> producers = new ArrayList<>();
+                for (int i = 0; i < PRODUCERS; i++) {
+                    int producer = i;
+                    producers.add(executor.submit(() -> {
+                        if (producer % 2 == 0) {
+                            for (int j = 0; j < VALUES; j++) {
+                                channel.send(producer * VALUES + j);
+                            }
+                        } else {
+                            channel.sendAll(IntStream.range(0, VALUES).map(j -> producer * VALUES + j).boxed()
+                                    .collect(Collectors.toList()));
+                        }
+                    }));
+                }
+                List<Future<Long>> consumers = new ArrayList<>();
+                for (int i = 0; i < CONSUMERS; i++) {
+                    int consumer = i;
+                    consumers.add(executor.submit(() -> {
+                        long sum = 0;
+                        if (consumer % 2 == 0) {
+                            for (Integer value = channel.receive(); value != null; value = channel.receive()) {
+                                sum += value;
+                            }
+                        } else {
+                            List<Integer> values = new ArrayList<>();
+                            while (channel.receive(values, 10) > 0) {
+                                for (Integer value : values) {
+                                    sum += value;
+                                }
+                                values.clear();
+                            }
+                        }
+                        return sum;
+                    }));
+                }
+
+                for (Future<?> producer : producers) {
+                    producer.get(30, TimeUnit.SECONDS);
+                }
+                channel.close();
+                long sum = 0;
+                for (Future<Long> consumer : consumers) {
+                    sum += consumer.get(30, TimeUnit.SECONDS);
+                }
+                long count = (long) PRODUCERS * VALUES;
+                Assert.assertEquals(count * (count - 1) / 2, sum);
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    public static class CloseTest {
+
+        public void start() throws Exception {
+            ContinuableThreadPoolExecutor executor = new ContinuableThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            try {
+                Channel<String> channel = new Channel<>(1);
+                Assert.assertEquals(2, channel.getCapacity());
+                Future<?> sender = executor.submit(() -> {
+                    channel.send("first");
+                    channel.send("second");
+                    channel.send("third");
+                });
+                Future<String> receiver = executor.submit(() -> {
+                    Channel<String> emptyChannel = new Channel<>(1);
+                    executor.execute(emptyChannel::close);
+                    return emptyChannel.receive();
+                });
+                Assert.assertNull(receiver.get(10, TimeUnit.SECONDS));
+                while (!executor.getQueue().isEmpty() || executor.getActiveCount() > 0) {
+                    Thread.sleep(10);
+                }
+                Assert.assertFalse(sender.isDone());
+
+                channel.close();
+                try {
+                    sender.get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+                Assert.assertEquals("first", channel.receive());
+                Assert.assertEquals("second", channel.receive());
+                Assert.assertNull(channel.receive());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
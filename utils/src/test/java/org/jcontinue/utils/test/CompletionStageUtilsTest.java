@@ -0,0 +1,106 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.utils.CompletionStageUtils;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class CompletionStageUtilsTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testOutsideOfContinuation() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        new Thread(() -> future.complete("value")).start();
+        Assert.assertEquals("value!", CompletionStageUtils.await(future.thenApply(value -> value + "!")));
+        CompletableFuture<String> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new IllegalStateException("failed"));
+        try {
+            CompletionStageUtils.await(failedFuture.thenApply(value -> value));
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAwait() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(AwaitTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class AwaitTest {
+
+        private static final int TASKS = 100;
+
+        public void start() throws Exception {
+            // a single thread, it would be pinned by the first waiting task
+            ContinuableThreadPoolExecutor executor = new ContinuableThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            try {
+                List<CompletableFuture<Integer>> stages = new ArrayList<>();
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    CompletableFuture<Integer> stage = new CompletableFuture<>();
+                    stages.add(stage);
+                    futures.add(executor.submit(() ->
+                            CompletionStageUtils.await(stage.thenApply(value -> value * 2))));
+                }
+                Future<Integer> completedFuture = executor.submit(() ->
+                        CompletionStageUtils.await(CompletableFuture.completedFuture(1)));
+                Assert.assertEquals(1, completedFuture.get(10, TimeUnit.SECONDS).intValue());
+                for (int i = 0; i < TASKS; i++) {
+                    stages.get(i).complete(i);
+                }
+                for (int i = 0; i < TASKS; i++) {
+                    Assert.assertEquals(i * 2, futures.get(i).get(10, TimeUnit.SECONDS).intValue());
+                }
+
+                CompletableFuture<Integer> failedStage = new CompletableFuture<>();
+                Future<Integer> failedFuture = executor.submit(() ->
+                        CompletionStageUtils.await(failedStage.thenApply(value -> value)));
+                CompletableFuture<Integer> checkedFailedStage = new CompletableFuture<>();
+                Future<Integer> checkedFailedFuture = executor.submit(() ->
+                        CompletionStageUtils.await(checkedFailedStage));
+                failedStage.completeExceptionally(new IllegalStateException("failed"));
+                checkedFailedStage.completeExceptionally(new IOException("failed"));
+                try {
+                    failedFuture.get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+                try {
+                    checkedFailedFuture.get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof CompletionException);
+                    Assert.assertTrue(e.getCause().getCause() instanceof IOException);
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationAwareRunnableFuture;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ContinuationExecutor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ContinuationAwareRunnableFutureTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testSuspendAndResume() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(SuspendAndResumeTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testCancel() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(CancelTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    // the interrupt of cancel(true) is delivered before the runner leaves the cancelled future, the runner is a
+    // plain thread as a pool worker clears the interrupt before its next task
+    @Test
+    public void testCancelInterrupt() throws InterruptedException {
+        for (int i = 0; i < 10000; i++) {
+            AtomicReference<Future<?>> futureReference = new AtomicReference<>();
+            ContinuationAwareRunnableFuture<Object> future = new ContinuationAwareRunnableFuture<>(() -> {
+                // returns as soon as the cancellation starts, the interrupt is still on its way
+                while (!futureReference.get().isCancelled()) {
+                    Thread.yield();
+                }
+                return null;
+            });
+            futureReference.set(future);
+            Thread canceller = new Thread(() -> future.cancel(true));
+            canceller.start();
+            future.run();
+            Thread.interrupted();
+            canceller.join();
+            Assert.assertFalse(Thread.interrupted());
+        }
+    }
+
+    public static class SuspendAndResumeTest {
+
+        private final BlockingQueue<Continuation.Context> suspendedContexts = new LinkedBlockingQueue<>();
+
+        private String suspendingCall(String value) {
+            ContinuationExecutor executor = ContinuableThreadPoolExecutor.currentExecutor.get();
+            Assert.assertNotNull(executor);
+            ContinuableThreadPoolExecutor.postSuspendAction.set(suspendedContexts::add);
+            Continuation.suspend();
+            Assert.assertNotNull(ContinuableThreadPoolExecutor.currentExecutor.get());
+            return value + "!";
+        }
+
+        public void start() throws Exception {
+            ContinuableThreadPoolExecutor executor1 = newExecutor();
+            ContinuableThreadPoolExecutor executor2 = newExecutor();
+            ExecutorService waitersExecutor = Executors.newFixedThreadPool(4);
+            try {
+                Future<String> future = executor1.submit(() -> suspendingCall(suspendingCall("value")));
+                Future<?> failingFuture = executor1.submit(() -> {
+                    suspendingCall("value");
+                    throw new IllegalStateException("failed");
+                });
+                List<Future<?>> waiters = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    waiters.add(waitersExecutor.submit(() -> future.get()));
+                }
+
+                // the tasks are suspended in any order
+                Continuation.Context context1 = suspendedContexts.poll(10, TimeUnit.SECONDS);
+                Continuation.Context context2 = suspendedContexts.poll(10, TimeUnit.SECONDS);
+                Assert.assertNotNull(context1);
+                Assert.assertNotNull(context2);
+                Assert.assertFalse(future.isDone());
+                try {
+                    future.get(10, TimeUnit.MILLISECONDS);
+                    Assert.fail();
+                } catch (TimeoutException e) {
+                    // expected
+                }
+
+                // resumes on other executor
+                executor2.resume(context1);
+                executor2.resume(context2);
+                Continuation.Context context = suspendedContexts.poll(10, TimeUnit.SECONDS);
+                Assert.assertNotNull(context);
+                Assert.assertTrue(((ContinuationAwareRunnableFuture<?>) future).isSuspended());
+                executor1.resume(context);
+
+                Assert.assertEquals("value!!", future.get(10, TimeUnit.SECONDS));
+                for (Future<?> waiter : waiters) {
+                    Assert.assertEquals("value!!", waiter.get(10, TimeUnit.SECONDS));
+                }
+                try {
+                    failingFuture.get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertEquals("failed", e.getCause().getMessage());
+                }
+                Assert.assertTrue(future.isDone());
+                Assert.assertFalse(future.cancel(true));
+            } finally {
+                executor1.shutdown();
+                executor2.shutdown();
+                waitersExecutor.shutdownNow();
+            }
+        }
+    }
+
+    public static class CancelTest {
+
+        private final BlockingQueue<Continuation.Context> suspendedContexts = new LinkedBlockingQueue<>();
+
+        private volatile boolean resumed;
+
+        public void start() throws Exception {
+            ContinuableThreadPoolExecutor executor = newExecutor();
+            try {
+                Future<String> future = executor.submit(() -> {
+                    ContinuableThreadPoolExecutor.postSuspendAction.set(suspendedContexts::add);
+                    Continuation.suspend();
+                    resumed = true;
+                    return "value";
+                });
+                Continuation.Context context = suspendedContexts.poll(10, TimeUnit.SECONDS);
+                Assert.assertNotNull(context);
+                Assert.assertTrue(future.cancel(false));
+                Assert.assertTrue(future.isCancelled());
+                Assert.assertTrue(future.isDone());
+                try {
+                    future.get();
+                    Assert.fail();
+                } catch (CancellationException e) {
+                    // expected
+                }
+                executor.resume(context);
+
+                Future<?> blockedFuture = executor.submit(() -> {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    return null;
+                });
+                Assert.assertTrue(blockedFuture.cancel(true));
+                executor.shutdown();
+                Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+                Assert.assertFalse(resumed);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static ContinuableThreadPoolExecutor newExecutor() {
+        return new ContinuableThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    }
+}
@@ -0,0 +1,136 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.ContinuationCheckpointRestorer;
+import org.jcontinue.continuation.ContinuationCheckpointer;
+import org.jcontinue.continuation.ContinuationContextSerializer;
+import org.jcontinue.continuation.ContinuationSerializableObjectCodec;
+import org.jcontinue.continuation.Task;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ContinuationCheckpointerTest {
+
+    @Test
+    public void testCheckpoints() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        ClassLoader continuationClassLoader = new ContinuationClassTransformerClassLoader();
+        Class<?> testClass = continuationClassLoader.loadClass(CheckpointerTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class CheckpointerTest {
+
+        private static final int DEPTH = 30;
+        private static final int STEPS = 20;
+        private static final int FULL_CHECKPOINT_INTERVAL = 8;
+
+        private static final List<Long> results = new ArrayList<>();
+
+        public void start() throws IOException {
+            ContinuationContextSerializer serializer =
+                    new ContinuationContextSerializer(getClass().getClassLoader(), Collections.emptyMap());
+            ContinuationCheckpointer checkpointer = new ContinuationCheckpointer(serializer, FULL_CHECKPOINT_INTERVAL);
+            List<byte[]> records = new ArrayList<>();
+            Continuation.Context context = Continuation.perform(new RecursiveTask());
+            int fullSize = 0;
+            int maxDeltaSize = 0;
+            for (int i = 0; !context.isFinished(); i++) {
+                byte[] record = checkpointer.checkpoint(context);
+                records.add(record);
+                if (i % (FULL_CHECKPOINT_INTERVAL + 1) == 0) {
+                    fullSize = Math.max(fullSize, record.length);
+                } else {
+                    maxDeltaSize = Math.max(maxDeltaSize, record.length);
+                }
+                context = Continuation.resume(context);
+            }
+            Assert.assertTrue(context.isSucceed());
+            Assert.assertEquals(STEPS, records.size());
+            Assert.assertTrue(maxDeltaSize * 10 < fullSize);
+            List<Long> expectedResults = new ArrayList<>(results);
+            Assert.assertEquals(1, expectedResults.size());
+
+            // every record restores the context suspended at the step
+            for (int from = 0; from < STEPS; from++) {
+                ContinuationCheckpointRestorer restorer = new ContinuationCheckpointRestorer(serializer);
+                int fullRecord = from / (FULL_CHECKPOINT_INTERVAL + 1) * (FULL_CHECKPOINT_INTERVAL + 1);
+                for (int i = fullRecord; i <= from; i++) {
+                    restorer.apply(records.get(i));
+                }
+                Assert.assertEquals(from, restorer.getSequence());
+                results.clear();
+                context = restorer.getContext();
+                while (!context.isFinished()) {
+                    context = Continuation.resume(context);
+                }
+                Assert.assertTrue(context.isSucceed());
+                Assert.assertEquals(expectedResults, results);
+            }
+
+            ContinuationCheckpointRestorer restorer = new ContinuationCheckpointRestorer(serializer);
+            try {
+                restorer.apply(records.get(1));
+                Assert.fail();
+            } catch (IOException e) {
+                // expected
+            }
+
+            // a compressed body has no common prefix with the previous one
+            try {
+                new ContinuationCheckpointer(new ContinuationContextSerializer(new ContinuationSerializableObjectCodec(),
+                        getClass().getClassLoader(), Collections.emptyMap(), null, true));
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public static class RecursiveTask implements Task, Serializable {
+
+        @Override
+        public void perform() {
+            // the restored frames hold the copies of the saved references, so the static list is not on the stack
+            long result = recurse(PAYLOAD_SIZE, CheckpointerTest.DEPTH);
+            CheckpointerTest.results.add(result);
+        }
+
+        private static final int PAYLOAD_SIZE = 16;
+
+        private long recurse(int payloadSize, int depth) {
+            long[] payload = new long[payloadSize];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = depth * 1000L + i;
+            }
+            long result;
+            if (depth == 0) {
+                // only the top frame changes between the suspensions
+                List<Long> history = new ArrayList<>();
+                for (int step = 0; step < CheckpointerTest.STEPS; step++) {
+                    Continuation.suspend();
+                    history.add((long) step);
+                }
+                result = 0;
+                for (long value : history) {
+                    result += value;
+                }
+            } else {
+                result = recurse(payloadSize, depth - 1);
+            }
+            for (long value : payload) {
+                result += value;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.ContinuationCompressionUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+public class ContinuationCompressionUtilsTest {
+
+    @Test
+    public void testRoundTrip() throws StreamCorruptedException {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 100_000) {
+            text.append("__SavedFrameContext$").append(random.nextInt(8)).append(";I;J;Ljava/lang/Object;");
+        }
+        byte[] repetitive = text.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] randomBytes = new byte[100_000];
+        random.nextBytes(randomBytes);
+        byte[] zeros = new byte[100_000];
+        for (byte[] bytes : Arrays.asList(new byte[0], new byte[] {1}, Arrays.copyOf(repetitive, 12),
+                Arrays.copyOf(repetitive, 13), Arrays.copyOf(repetitive, 300), repetitive, randomBytes, zeros)) {
+            byte[] compressed = ContinuationCompressionUtils.compress(bytes, 0, bytes.length);
+            Assert.assertTrue(compressed.length <= ContinuationCompressionUtils.getMaxCompressedLength(bytes.length));
+            Assert.assertArrayEquals(bytes, ContinuationCompressionUtils.decompress(compressed, 0, compressed.length,
+                    bytes.length));
+        }
+        Assert.assertTrue(ContinuationCompressionUtils.compress(repetitive, 0, repetitive.length).length
+                < repetitive.length / 4);
+        Assert.assertTrue(ContinuationCompressionUtils.compress(zeros, 0, zeros.length).length < 1000);
+
+        // a part of an array
+        byte[] compressed = ContinuationCompressionUtils.compress(repetitive, 1000, 5000);
+        Assert.assertArrayEquals(Arrays.copyOfRange(repetitive, 1000, 6000),
+                ContinuationCompressionUtils.decompress(compressed, 0, compressed.length, 5000));
+    }
+
+    @Test
+    public void testCorrupted() {
+        byte[] bytes = "abcdabcdabcdabcdabcdabcdabcdabcd".getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = ContinuationCompressionUtils.compress(bytes, 0, bytes.length);
+        for (int length = 0; length < compressed.length; length++) {
+            try {
+                ContinuationCompressionUtils.decompress(compressed, 0, length, bytes.length);
+                Assert.fail();
+            } catch (StreamCorruptedException e) {
+                // expected
+            }
+        }
+        try {
+            ContinuationCompressionUtils.decompress(compressed, 0, compressed.length, bytes.length - 1);
+            Assert.fail();
+        } catch (StreamCorruptedException e) {
+            // expected
+        }
+    }
+}
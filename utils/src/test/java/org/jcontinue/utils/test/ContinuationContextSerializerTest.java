@@ -0,0 +1,245 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.ContinuationContextSerializer;
+import org.jcontinue.continuation.ContinuationFrameClassDictionary;
+import org.jcontinue.continuation.ContinuationSerializableObjectCodec;
+import org.jcontinue.continuation.Task;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ContinuationContextSerializerTest {
+
+    @Test
+    public void testSameClassLoader() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        ClassLoader continuationClassLoader = new ContinuationClassTransformerClassLoader();
+        Class<?> testClass = continuationClassLoader.loadClass(SerializerTest.class.getName());
+        Object testInst = testClass.newInstance();
+        byte[] bytes = (byte[]) testClass.getMethod("suspend").invoke(testInst);
+        testClass.getMethod("resume", byte[].class).invoke(testInst, (Object) bytes);
+    }
+
+    // the frame classes of the restored context are not loaded by the fresh class loader yet
+    @Test
+    public void testFreshClassLoader() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> suspendingClass = new ContinuationClassTransformerClassLoader()
+                .loadClass(SerializerTest.class.getName());
+        byte[] bytes = (byte[]) suspendingClass.getMethod("suspend").invoke(suspendingClass.newInstance());
+        Class<?> resumingClass = new ContinuationClassTransformerClassLoader()
+                .loadClass(SerializerTest.class.getName());
+        resumingClass.getMethod("resume", byte[].class).invoke(resumingClass.newInstance(), (Object) bytes);
+    }
+
+    // the dictionary is passed to the fresh class loader in its serialized form
+    @Test
+    public void testFrameClassDictionary() throws ClassNotFoundException, IllegalAccessException,
+            InstantiationException, NoSuchMethodException, InvocationTargetException {
+        Class<?> suspendingClass = new ContinuationClassTransformerClassLoader()
+                .loadClass(SerializerTest.class.getName());
+        Object suspendingInst = suspendingClass.newInstance();
+        byte[] plainBytes = (byte[]) suspendingClass.getMethod("suspend").invoke(suspendingInst);
+        suspendingClass.getMethod("configure", boolean.class, boolean.class).invoke(suspendingInst, true, false);
+        byte[] bytes = (byte[]) suspendingClass.getMethod("suspend").invoke(suspendingInst);
+        Assert.assertTrue(bytes.length < plainBytes.length);
+        byte[] dictionaryBytes = (byte[]) suspendingClass.getMethod("getDictionary").invoke(suspendingInst);
+
+        Class<?> resumingClass = new ContinuationClassTransformerClassLoader()
+                .loadClass(SerializerTest.class.getName());
+        Object resumingInst = resumingClass.newInstance();
+        try {
+            resumingClass.getMethod("resume", byte[].class).invoke(resumingInst, (Object) bytes);
+            Assert.fail();
+        } catch (InvocationTargetException e) {
+            Assert.assertTrue(e.getCause() instanceof StreamCorruptedException);
+        }
+        resumingClass.getMethod("loadDictionary", byte[].class).invoke(resumingInst, (Object) dictionaryBytes);
+        resumingClass.getMethod("resume", byte[].class).invoke(resumingInst, (Object) bytes);
+    }
+
+    @Test
+    public void testCompression() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> suspendingClass = new ContinuationClassTransformerClassLoader()
+                .loadClass(SerializerTest.class.getName());
+        Object suspendingInst = suspendingClass.newInstance();
+        byte[] plainBytes = (byte[]) suspendingClass.getMethod("suspend").invoke(suspendingInst);
+        suspendingClass.getMethod("configure", boolean.class, boolean.class).invoke(suspendingInst, false, true);
+        byte[] bytes = (byte[]) suspendingClass.getMethod("suspend").invoke(suspendingInst);
+        Assert.assertTrue(bytes.length < plainBytes.length);
+
+        // the compressed contexts are read by any serializer
+        Class<?> resumingClass = new ContinuationClassTransformerClassLoader()
+                .loadClass(SerializerTest.class.getName());
+        resumingClass.getMethod("resume", byte[].class).invoke(resumingClass.newInstance(), (Object) bytes);
+    }
+
+    @Test
+    public void testAliasing() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = new ContinuationClassTransformerClassLoader().loadClass(SerializerTest.class.getName());
+        testClass.getMethod("alias").invoke(testClass.newInstance());
+    }
+
+    public static class SerializerTest {
+
+        private static final Continuation.Local<String> name = new Continuation.Local<>();
+        private static final Continuation.Local<Object> transientLocal = new Continuation.Local<>();
+        private static final List<String> trace = new ArrayList<>();
+
+        private ContinuationFrameClassDictionary dictionary;
+        private ContinuationContextSerializer serializer = new ContinuationContextSerializer(
+                getClass().getClassLoader(), Collections.singletonMap("name", name));
+
+        public void configure(boolean dictionaryUsed, boolean compressed) {
+            dictionary = dictionaryUsed ? new ContinuationFrameClassDictionary() : null;
+            serializer = new ContinuationContextSerializer(new ContinuationSerializableObjectCodec(),
+                    getClass().getClassLoader(), Collections.singletonMap("name", name), dictionary, compressed);
+        }
+
+        public void loadDictionary(byte[] dictionaryBytes) throws IOException {
+            dictionary = ContinuationFrameClassDictionary.read(new DataInputStream(
+                    new ByteArrayInputStream(dictionaryBytes)));
+            serializer = new ContinuationContextSerializer(new ContinuationSerializableObjectCodec(),
+                    getClass().getClassLoader(), Collections.singletonMap("name", name), dictionary, false);
+        }
+
+        public byte[] getDictionary() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            dictionary.write(new DataOutputStream(bytes));
+            return bytes.toByteArray();
+        }
+
+        public byte[] suspend() throws IOException {
+            trace.clear();
+            Continuation.Context context = Continuation.perform(new SerializableTask("task"));
+            Assert.assertFalse(context.isFinished());
+            Assert.assertEquals(Arrays.asList("started", "worker"), trace);
+            context.set(transientLocal, new Object());
+            context.set(name, "name");
+            byte[] bytes = serializer.serialize(context);
+            try {
+                serializer.serialize(Continuation.perform(() -> { }));
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            return bytes;
+        }
+
+        // the task is written before the frame, its field is a back reference in the frame then
+        public void alias() throws IOException {
+            Continuation.Context context = Continuation.perform(new AliasingTask());
+            Assert.assertFalse(context.isFinished());
+            context = Continuation.resume(serializer.deserialize(serializer.serialize(context)));
+            Assert.assertTrue(context.isFinished());
+            if (!context.isSucceed()) {
+                throw new AssertionError(context.getException());
+            }
+        }
+
+        public void resume(byte[] bytes) throws IOException {
+            trace.clear();
+            Continuation.Context context = serializer.deserialize(bytes);
+            Assert.assertFalse(context.isFinished());
+            Assert.assertEquals("name", context.get(name));
+            Assert.assertNull(context.get(transientLocal));
+            context = Continuation.resume(context);
+            Assert.assertTrue(context.isFinished());
+            if (!context.isSucceed()) {
+                throw new AssertionError(context.getException());
+            }
+            Assert.assertEquals(Arrays.asList("resumed worker", "resumed task"), trace);
+        }
+    }
+
+    public static class SerializableTask implements Task, Serializable {
+
+        private final String id;
+
+        public SerializableTask(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void perform() {
+            SerializerTest.trace.add("started");
+            int intValue = -42;
+            long longValue = Long.MIN_VALUE;
+            double doubleValue = 0.5;
+            List<String> shared = new ArrayList<>(Collections.singletonList(id));
+            int[] values = {1, 2, 3};
+            Worker worker = new Worker(id);
+            String result = worker.work(intValue, 1.5F, shared);
+            Assert.assertEquals("task:7:1.5", result);
+            Assert.assertEquals(-42, intValue);
+            Assert.assertEquals(Long.MIN_VALUE, longValue);
+            Assert.assertEquals(0.5, doubleValue, 0);
+            Assert.assertArrayEquals(new int[] {1, 2, 3}, values);
+            Assert.assertEquals("name", SerializerTest.name.get());
+            // the references shared by the frames stay shared
+            Assert.assertSame(shared, worker.lastShared);
+            SerializerTest.trace.add("resumed task");
+        }
+    }
+
+    public static class AliasingTask implements Task, Serializable {
+
+        private final List<String> values = new ArrayList<>();
+        private final Holder holder = new Holder();
+
+        @Override
+        public void perform() {
+            List<String> local = values;
+            Holder localHolder = new Holder();
+            localHolder.values = values;
+            holder.values = values;
+            local.add("suspended");
+            Continuation.suspend();
+            Assert.assertSame(values, local);
+            Assert.assertSame(values, localHolder.values);
+            Assert.assertSame(values, holder.values);
+            local.add("resumed");
+            Assert.assertEquals(Arrays.asList("suspended", "resumed"), values);
+        }
+    }
+
+    public static class Holder implements Serializable {
+        private List<String> values;
+    }
+
+    public static class Worker implements Serializable {
+
+        private final String prefix;
+        private List<String> lastShared;
+
+        public Worker(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String work(int intValue, float floatValue, List<String> shared) {
+            SerializerTest.trace.add("worker");
+            long counter = 7;
+            Continuation.suspend();
+            lastShared = shared;
+            Assert.assertEquals(-42, intValue);
+            SerializerTest.trace.add("resumed worker");
+            return prefix + ":" + counter + ":" + floatValue;
+        }
+    }
+}
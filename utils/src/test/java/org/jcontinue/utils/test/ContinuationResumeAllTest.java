@@ -0,0 +1,88 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.ContinuationException;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ContinuationResumeAllTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testResumeAll() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(ResumeAllTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class ResumeAllTest {
+
+        private static final int CONTEXTS = 100;
+        private static final int STEPS = 3;
+
+        private final Continuation.Local<Integer> step = new Continuation.Local<>();
+
+        public void start() {
+            int[] counters = new int[CONTEXTS];
+            List<Continuation.Context> contexts = new ArrayList<>();
+            for (int i = 0; i < CONTEXTS; i++) {
+                int index = i;
+                contexts.add(Continuation.perform(() -> {
+                    for (int j = 0; j < STEPS; j++) {
+                        step.set(j);
+                        Continuation.suspend();
+                        counters[index]++;
+                        Assert.assertEquals(j + 1, step.get().intValue());
+                    }
+                    if (index % 10 == 0) {
+                        throw new IllegalStateException("failed " + index);
+                    }
+                }));
+            }
+            List<Continuation.Context> finished = new ArrayList<>();
+            while (!contexts.isEmpty()) {
+                List<Continuation.Context> suspended = new ArrayList<>();
+                for (Continuation.Context context : contexts) {
+                    context.set(step, context.get(step) + 1);
+                }
+                Continuation.resumeAll(contexts, context -> {
+                    Assert.assertFalse(Continuation.isInContext());
+                    (context.isFinished() ? finished : suspended).add(context);
+                });
+                contexts = suspended;
+            }
+            Assert.assertEquals(CONTEXTS, finished.size());
+            int failed = 0;
+            for (Continuation.Context context : finished) {
+                if (!context.isSucceed()) {
+                    Assert.assertTrue(context.getException() instanceof IllegalStateException);
+                    failed++;
+                }
+            }
+            Assert.assertEquals(CONTEXTS / 10, failed);
+            for (int counter : counters) {
+                Assert.assertEquals(STEPS, counter);
+            }
+            try {
+                Continuation.resumeAll(Collections.singletonList(finished.get(0)), context -> Assert.fail());
+                Assert.fail();
+            } catch (ContinuationException e) {
+                // expected
+            }
+        }
+    }
+}
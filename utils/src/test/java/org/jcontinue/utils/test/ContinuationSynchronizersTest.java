@@ -0,0 +1,182 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ContinuationCountDownLatch;
+import org.jcontinue.utils.ContinuationExecutor;
+import org.jcontinue.utils.ContinuationMutex;
+import org.jcontinue.utils.ContinuationSemaphore;
+import org.jcontinue.utils.ForkJoinContinuationExecutor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ContinuationSynchronizersTest {
+
+    private static final int TASKS = 1000;
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testMutex() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(MutexTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testSemaphore() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(SemaphoreTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testCountDownLatch() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(CountDownLatchTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    // lets the other tasks run while a resource is held
+    private static void yield() {
+        ContinuationExecutor executor = ContinuableThreadPoolExecutor.currentExecutor.get();
+        ContinuableThreadPoolExecutor.postSuspendAction.set(executor::resume);
+        Continuation.suspend();
+    }
+
+    public static class MutexTest {
+
+        private final ContinuationMutex mutex = new ContinuationMutex();
+        private final AtomicInteger holders = new AtomicInteger();
+        private int counter;
+
+        public void start() throws Exception {
+            ForkJoinContinuationExecutor executor = new ForkJoinContinuationExecutor(2);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    futures.add(executor.submit(() -> {
+                        for (int j = 0; j < 10; j++) {
+                            mutex.lock();
+                            try {
+                                Assert.assertEquals(1, holders.incrementAndGet());
+                                int value = counter;
+                                yield();
+                                counter = value + 1;
+                                holders.decrementAndGet();
+                            } finally {
+                                mutex.unlock();
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+                Assert.assertEquals(TASKS * 10, counter);
+                Assert.assertFalse(mutex.isLocked());
+                Assert.assertTrue(mutex.tryLock());
+                Assert.assertFalse(mutex.tryLock());
+                mutex.unlock();
+                try {
+                    mutex.unlock();
+                    Assert.fail();
+                } catch (IllegalStateException e) {
+                    // expected
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    public static class SemaphoreTest {
+
+        private static final int PERMITS = 3;
+
+        private final ContinuationSemaphore semaphore = new ContinuationSemaphore(PERMITS);
+        // the first holders wait for each other, all the permits must be acquirable at once
+        private final ContinuationCountDownLatch allAcquired = new ContinuationCountDownLatch(PERMITS);
+        private final AtomicInteger holders = new AtomicInteger();
+        private final AtomicInteger maximumHolders = new AtomicInteger();
+
+        public void start() throws Exception {
+            ForkJoinContinuationExecutor executor = new ForkJoinContinuationExecutor(2);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    futures.add(executor.submit(() -> {
+                        semaphore.acquire();
+                        try {
+                            int currentHolders = holders.incrementAndGet();
+                            Assert.assertTrue(currentHolders <= PERMITS);
+                            maximumHolders.accumulateAndGet(currentHolders, Math::max);
+                            allAcquired.countDown();
+                            allAcquired.await();
+                            yield();
+                            holders.decrementAndGet();
+                        } finally {
+                            semaphore.release();
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+                Assert.assertEquals(PERMITS, maximumHolders.get());
+                Assert.assertEquals(PERMITS, semaphore.availablePermits());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    public static class CountDownLatchTest {
+
+        public void start() throws Exception {
+            ForkJoinContinuationExecutor executor = new ForkJoinContinuationExecutor(2);
+            try {
+                ContinuationCountDownLatch latch = new ContinuationCountDownLatch(TASKS);
+                AtomicInteger countedDown = new AtomicInteger();
+                List<Future<Integer>> waiters = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    waiters.add(executor.submit(() -> {
+                        latch.await();
+                        return countedDown.get();
+                    }));
+                }
+                for (int i = 0; i < TASKS; i++) {
+                    executor.execute(() -> {
+                        countedDown.incrementAndGet();
+                        latch.countDown();
+                    });
+                }
+                for (Future<Integer> waiter : waiters) {
+                    Assert.assertEquals(TASKS, waiter.get(30, TimeUnit.SECONDS).intValue());
+                }
+                Assert.assertEquals(0, latch.getCount());
+                latch.countDown();
+                Assert.assertEquals(0, latch.getCount());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
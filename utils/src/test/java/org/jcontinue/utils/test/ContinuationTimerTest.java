@@ -0,0 +1,179 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ContinuationTimer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ContinuationTimerTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testSchedule() throws InterruptedException {
+        // small ticks, the delays span several levels of the wheel
+        try (ContinuationTimer timer = new ContinuationTimer(10, TimeUnit.MICROSECONDS)) {
+            int timeoutsNumber = 1000;
+            CountDownLatch latch = new CountDownLatch(timeoutsNumber / 2);
+            AtomicInteger early = new AtomicInteger();
+            AtomicBoolean cancelledExpired = new AtomicBoolean();
+            List<ContinuationTimer.Timeout> timeouts = new ArrayList<>();
+            for (int i = 0; i < timeoutsNumber; i++) {
+                long delay = TimeUnit.MICROSECONDS.toNanos(i * 97 % 100_000);
+                long deadline = System.nanoTime() + delay;
+                if (i % 2 == 0) {
+                    timeouts.add(timer.schedule(() -> {
+                        if (System.nanoTime() < deadline) {
+                            early.incrementAndGet();
+                        }
+                        latch.countDown();
+                    }, delay, TimeUnit.NANOSECONDS));
+                } else {
+                    // cancelled before they can expire
+                    timeouts.add(timer.schedule(() -> cancelledExpired.set(true), delay + TimeUnit.SECONDS.toNanos(1),
+                            TimeUnit.NANOSECONDS));
+                }
+            }
+            for (int i = 1; i < timeoutsNumber; i += 2) {
+                Assert.assertTrue(timeouts.get(i).cancel());
+                Assert.assertTrue(timeouts.get(i).isCancelled());
+            }
+
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(0, early.get());
+            Thread.sleep(200);
+            Assert.assertFalse(cancelledExpired.get());
+            for (int i = 0; i < timeoutsNumber; i += 2) {
+                Assert.assertTrue(timeouts.get(i).isExpired());
+                Assert.assertFalse(timeouts.get(i).cancel());
+            }
+        }
+    }
+
+    @Test
+    public void testIdle() throws InterruptedException {
+        try (ContinuationTimer timer = new ContinuationTimer()) {
+            for (int i = 0; i < 3; i++) {
+                CountDownLatch latch = new CountDownLatch(1);
+                timer.schedule(latch::countDown, 10, TimeUnit.MILLISECONDS);
+                Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    @Test
+    public void testSleep() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(SleepTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testClose() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(CloseTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class SleepTest {
+
+        private static final int TASKS = 100;
+        private static final long SLEEP_MILLIS = 100;
+
+        public void start() throws Exception {
+            // a single thread, the sleeping tasks would take seconds if they blocked it
+            ContinuableThreadPoolExecutor executor = new ContinuableThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            try {
+                long start = System.nanoTime();
+                List<Future<Long>> futures = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    futures.add(executor.submit(() -> {
+                        long sleepStart = System.nanoTime();
+                        ContinuationTimer.getDefaultTimer().sleep(Duration.ofMillis(SLEEP_MILLIS));
+                        return System.nanoTime() - sleepStart;
+                    }));
+                }
+                for (Future<Long> future : futures) {
+                    Assert.assertTrue(future.get(10, TimeUnit.SECONDS) >= TimeUnit.MILLISECONDS.toNanos(SLEEP_MILLIS));
+                }
+                Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(TASKS * SLEEP_MILLIS / 2));
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    public static class CloseTest {
+
+        private static final int TASKS = 100;
+
+        public void start() throws Exception {
+            ContinuableThreadPoolExecutor executor = new ContinuableThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            ContinuationTimer timer = new ContinuationTimer();
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    futures.add(executor.submit(() -> timer.sleep(1, TimeUnit.MINUTES)));
+                }
+                ContinuationTimer.Timeout timeout = timer.schedule(() -> { }, 1, TimeUnit.MINUTES);
+                while (!executor.getQueue().isEmpty() || executor.getActiveCount() > 0) {
+                    Thread.sleep(10);
+                }
+
+                // the sleeping tasks are woken up by the close and fail
+                timer.close();
+                for (Future<?> future : futures) {
+                    try {
+                        future.get(10, TimeUnit.SECONDS);
+                        Assert.fail();
+                    } catch (ExecutionException e) {
+                        Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                    }
+                }
+                Assert.assertTrue(timeout.isClosed());
+                Assert.assertFalse(timeout.cancel());
+
+                // a sleep on the closed timer fails at once
+                try {
+                    executor.submit(() -> timer.sleep(1, TimeUnit.MINUTES)).get(10, TimeUnit.SECONDS);
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+                try {
+                    timer.schedule(() -> { }, 1, TimeUnit.MINUTES);
+                    Assert.fail();
+                } catch (IllegalStateException e) {
+                    // expected
+                }
+            } finally {
+                timer.close();
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.utils.ContinuationClassTransformationMetrics;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ContinuationTransformationStatistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class ContinuationTransformationStatisticsTest {
+    private ContinuationClassTransformerClassLoader continuationClassLoader;
+    private ContinuationTransformationStatistics statistics;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+        statistics = new ContinuationTransformationStatistics();
+        continuationClassLoader.setListener(statistics);
+    }
+
+    @Test
+    public void testMetrics() throws ClassNotFoundException {
+        continuationClassLoader.loadClass(Suspending.class.getName());
+        ContinuationClassTransformationMetrics suspendingMetrics = null;
+        for (ContinuationClassTransformationMetrics metrics : statistics.getClasses()) {
+            if (metrics.getClassName().equals(Suspending.class.getName())) {
+                suspendingMetrics = metrics;
+            }
+        }
+        Assert.assertNotNull(suspendingMetrics);
+        Assert.assertTrue(suspendingMetrics.getTransformedSize() > suspendingMetrics.getOriginalSize());
+        Assert.assertTrue(suspendingMetrics.getSavedFrameClassesNumber() > 0);
+
+        ContinuationClassTransformationMetrics.MethodMetrics runMetrics = null;
+        for (ContinuationClassTransformationMetrics.MethodMetrics metrics : suspendingMetrics.getMethods()) {
+            if (metrics.getName().equals("run")) {
+                runMetrics = metrics;
+            }
+        }
+        Assert.assertNotNull(runMetrics);
+        Assert.assertEquals("(I)Ljava/lang/String;", runMetrics.getDescriptor());
+        Assert.assertTrue(runMetrics.getPointcutsNumber() >= 2);
+        Assert.assertTrue(runMetrics.getSavedFrameClassesNumber() > 0);
+        Assert.assertTrue(runMetrics.getAnalysisTime() > 0);
+        Assert.assertTrue(runMetrics.getTransformTime() > 0);
+        Assert.assertTrue(runMetrics.getTransformedCodeSize() > runMetrics.getOriginalCodeSize());
+
+        Assert.assertEquals(statistics.getClasses().size(), statistics.getClassesNumber());
+        Assert.assertTrue(statistics.getPointcutsNumber() >= suspendingMetrics.getPointcutsNumber());
+        String json = statistics.getJson();
+        Assert.assertTrue(json.startsWith("{\"classesNumber\":" + statistics.getClassesNumber() + ","));
+        Assert.assertTrue(json.contains("{\"className\":\"" + Suspending.class.getName() + "\""));
+        Assert.assertTrue(json.contains("\"descriptor\":\"(I)Ljava/lang/String;\""));
+
+        statistics.reset();
+        Assert.assertEquals(0, statistics.getClassesNumber());
+        Assert.assertEquals("{\"classesNumber\":0,", statistics.getJson().substring(0, 19));
+    }
+
+    @Test
+    public void testMXBean() throws ClassNotFoundException, JMException {
+        continuationClassLoader.loadClass(Suspending.class.getName());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = statistics.registerMBean("test");
+        try {
+            Assert.assertEquals(statistics.getClassesNumber(), server.getAttribute(objectName, "ClassesNumber"));
+            Assert.assertEquals(statistics.getPointcutsNumber(), server.getAttribute(objectName, "PointcutsNumber"));
+            String[] slowestClasses = (String[]) server.getAttribute(objectName, "SlowestClasses");
+            Assert.assertEquals(Math.min(10, statistics.getClassesNumber()), slowestClasses.length);
+            server.invoke(objectName, "reset", new Object[0], new String[0]);
+            Assert.assertEquals(0L, server.getAttribute(objectName, "ClassesNumber"));
+        } finally {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    @Test
+    public void testWithoutListener() throws ClassNotFoundException {
+        continuationClassLoader.setListener(null);
+        continuationClassLoader.loadClass(Suspending.class.getName());
+        Assert.assertEquals(0, statistics.getClassesNumber());
+    }
+
+    public static class Suspending {
+        public String run(int value) {
+            String text = String.valueOf(value);
+            Continuation.suspend();
+            value++;
+            Continuation.suspend();
+            return text + value;
+        }
+    }
+}
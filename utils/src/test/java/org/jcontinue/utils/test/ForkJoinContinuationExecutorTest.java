@@ -0,0 +1,84 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ContinuationExecutor;
+import org.jcontinue.utils.ForkJoinContinuationExecutor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ForkJoinContinuationExecutorTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testYield() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(YieldTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class YieldTest {
+
+        private static final int TASKS = 100;
+        private static final int YIELDS = 100;
+
+        private final AtomicInteger yields = new AtomicInteger();
+
+        private void yield() {
+            ContinuationExecutor executor = ContinuableThreadPoolExecutor.currentExecutor.get();
+            Assert.assertNotNull(executor);
+            ContinuableThreadPoolExecutor.postSuspendAction.set(executor::resume);
+            Continuation.suspend();
+            yields.incrementAndGet();
+        }
+
+        public void start() throws Exception {
+            ForkJoinContinuationExecutor executor = new ForkJoinContinuationExecutor(4);
+            try {
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int i = 0; i < TASKS; i++) {
+                    int value = i;
+                    futures.add(executor.submit(() -> {
+                        for (int j = 0; j < YIELDS; j++) {
+                            yield();
+                        }
+                        return value;
+                    }));
+                }
+                CountDownLatch latch = new CountDownLatch(TASKS);
+                for (int i = 0; i < TASKS; i++) {
+                    executor.execute(() -> {
+                        yield();
+                        latch.countDown();
+                    });
+                }
+
+                for (int i = 0; i < TASKS; i++) {
+                    Assert.assertEquals(i, futures.get(i).get(10, TimeUnit.SECONDS).intValue());
+                }
+                Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+                Assert.assertEquals(TASKS * YIELDS + TASKS, yields.get());
+            } finally {
+                executor.shutdown();
+            }
+            Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.Generator;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+public class GeneratorTest {
+
+    private ClassLoader continuationClassLoader;
+
+    @Before
+    public void setUp() {
+        continuationClassLoader = new ContinuationClassTransformerClassLoader();
+    }
+
+    @Test
+    public void testGenerator() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(GeneratorTestClass.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class GeneratorTestClass {
+
+        public void start() {
+            testIterator();
+            testBatches();
+            testStream();
+            testException();
+            testNested();
+        }
+
+        private static void generateRange(Generator<Integer> generator, int from, int to) {
+            for (int i = from; i < to; i++) {
+                generator.yield(i);
+            }
+        }
+
+        private void testIterator() {
+            List<Integer> generated = new ArrayList<>();
+            List<Integer> values = new ArrayList<>();
+            Generator<Integer> generator = new Generator<>(gen -> {
+                for (int i = 0; i < 5; i++) {
+                    generated.add(i);
+                    gen.yield(i);
+                }
+            });
+            Assert.assertTrue(generated.isEmpty());
+            while (generator.hasNext()) {
+                values.add(generator.next());
+                // values are generated lazily
+                Assert.assertEquals(values.size(), generated.size());
+            }
+            Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), values);
+            Assert.assertFalse(generator.hasNext());
+            try {
+                generator.next();
+                Assert.fail();
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+        }
+
+        private void testBatches() {
+            List<Integer> generated = new ArrayList<>();
+            Generator<Integer> generator = new Generator<>(4, gen -> {
+                for (int i = 0; i < 10; i++) {
+                    generated.add(i);
+                    gen.yield(i);
+                }
+            });
+            Assert.assertEquals(Integer.valueOf(0), generator.next());
+            Assert.assertEquals(4, generated.size());
+            List<Integer> values = new ArrayList<>();
+            generator.forEachRemaining(values::add);
+            Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9), values);
+        }
+
+        private void testStream() {
+            Generator<Integer> generator = new Generator<>(16, gen -> generateRange(gen, 0, 1000));
+            Assert.assertEquals(499500, generator.stream().mapToInt(Integer::intValue).sum());
+            Generator<Integer> infinite = new Generator<>(gen -> {
+                for (int i = 0; ; i++) {
+                    gen.yield(i);
+                }
+            });
+            Assert.assertEquals(Arrays.asList(0, 2, 4), infinite.stream()
+                    .filter(i -> i % 2 == 0)
+                    .limit(3)
+                    .collect(Collectors.toList()));
+        }
+
+        private void testException() {
+            Generator<Integer> generator = new Generator<>(gen -> {
+                gen.yield(1);
+                throw new IllegalStateException("expected");
+            });
+            Assert.assertEquals(Integer.valueOf(1), generator.next());
+            try {
+                generator.hasNext();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("expected", e.getMessage());
+            }
+        }
+
+        private void testNested() {
+            Generator<Integer> generator = new Generator<>(gen -> {
+                Generator<Integer> inner = new Generator<>(2, innerGen -> generateRange(innerGen, 0, 5));
+                while (inner.hasNext()) {
+                    gen.yield(inner.next() * 10);
+                }
+            });
+            List<Integer> values = new ArrayList<>();
+            generator.forEachRemaining(values::add);
+            Assert.assertEquals(Arrays.asList(0, 10, 20, 30, 40), values);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.jcontinue.utils.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.ContinuationContextSerializer;
+import org.jcontinue.continuation.Task;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.utils.ParkedContinuationStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ParkedContinuationStoreTest {
+
+    @Test
+    public void testStore() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        ClassLoader continuationClassLoader = new ContinuationClassTransformerClassLoader();
+        Class<?> testClass = continuationClassLoader.loadClass(StoreTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class StoreTest {
+
+        private static final int CONTEXTS = 1000;
+
+        private static final List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+
+        public void start() throws IOException {
+            Path directory = Files.createTempDirectory("parked-continuations");
+            ContinuationContextSerializer serializer =
+                    new ContinuationContextSerializer(getClass().getClassLoader(), Collections.emptyMap());
+            try (ParkedContinuationStore store = new ParkedContinuationStore(directory, serializer, 16 * 1024, 0.5)) {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < CONTEXTS; i++) {
+                    Continuation.Context context = Continuation.perform(new CountingTask(i));
+                    ids.add(store.park(context));
+                }
+                Assert.assertEquals(CONTEXTS, store.size());
+                int segmentsNumber = store.getSegmentsNumber();
+                Assert.assertTrue(segmentsNumber > 2);
+                Assert.assertEquals(segmentsNumber, countFiles(directory));
+
+                // every second context is resumed, the odd ones are dropped
+                for (int i = 0; i < CONTEXTS; i += 2) {
+                    resume(store.unpark(ids.get(i)));
+                    Assert.assertTrue(store.remove(ids.get(i + 1)));
+                    if (i % 100 == 0) {
+                        store.compact();
+                        Assert.assertEquals(store.getSegmentsNumber(), countFiles(directory));
+                    }
+                }
+                Assert.assertNull(store.unpark(ids.get(0)));
+                Assert.assertFalse(store.remove(ids.get(1)));
+                Assert.assertEquals(0, store.size());
+                Assert.assertTrue(store.getSegmentsNumber() <= 1);
+                Assert.assertEquals(CONTEXTS / 2, results.size());
+                for (int i = 0; i < CONTEXTS / 2; i++) {
+                    Assert.assertEquals(2 * i * 3, results.get(i).intValue());
+                }
+
+                // a context is parked again after every suspension
+                long id = store.park(Continuation.perform(new CountingTask(1)));
+                for (int i = 0; i < 2; i++) {
+                    Continuation.Context context = Continuation.resume(store.unpark(id));
+                    Assert.assertFalse(context.isFinished());
+                    id = store.park(context);
+                }
+                resume(store.unpark(id));
+                Assert.assertEquals(Integer.valueOf(3), results.get(results.size() - 1));
+
+                // the segments are compacted by the removals without compact()
+                ids.clear();
+                for (int i = 0; i < CONTEXTS; i++) {
+                    ids.add(store.park(Continuation.perform(new CountingTask(i))));
+                }
+                segmentsNumber = store.getSegmentsNumber();
+                for (int i = 0; i < CONTEXTS; i++) {
+                    if (i % 4 != 0) {
+                        Assert.assertTrue(store.remove(ids.get(i)));
+                    }
+                }
+                Assert.assertEquals(CONTEXTS / 4, store.size());
+                Assert.assertTrue(store.getSegmentsNumber() < segmentsNumber / 2);
+                Assert.assertEquals(store.getSegmentsNumber(), countFiles(directory));
+                for (int i = 0; i < CONTEXTS; i += 4) {
+                    Assert.assertTrue(store.contains(ids.get(i)));
+                    resume(store.unpark(ids.get(i)));
+                }
+                Assert.assertEquals(0, store.size());
+            }
+            Assert.assertEquals(0, countFiles(directory));
+            Files.delete(directory);
+        }
+
+        private static void resume(Continuation.Context context) {
+            while (!context.isFinished()) {
+                context = Continuation.resume(context);
+            }
+            if (!context.isSucceed()) {
+                throw new AssertionError(context.getException());
+            }
+        }
+
+        private static long countFiles(Path directory) throws IOException {
+            try (Stream<Path> files = Files.list(directory)) {
+                return files.count();
+            }
+        }
+    }
+
+    public static class CountingTask implements Task, Serializable {
+
+        private final int value;
+
+        public CountingTask(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public void perform() {
+            int sum = 0;
+            for (int i = 0; i < 3; i++) {
+                Continuation.suspend();
+                sum += value;
+            }
+            StoreTest.results.add(sum);
+        }
+    }
+}
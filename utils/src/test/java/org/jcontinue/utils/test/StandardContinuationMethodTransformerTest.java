@@ -15,6 +15,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class StandardContinuationMethodTransformerTest {
 
@@ -51,6 +53,30 @@ public class StandardContinuationMethodTransformerTest {
         testClass.getMethod("start").invoke(testInst);
     }
 
+    @Test
+    public void testLambdaInvocation() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(LambdaInvocationTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testTryWithResources() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(TryWithResourcesTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testInterfaceLocals() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        Class<?> testClass = continuationClassLoader.loadClass(InterfaceLocalsTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
     public static class Tes1 {
 
         private final List<Integer> array = new ArrayList<>();
@@ -116,6 +142,107 @@ public class StandardContinuationMethodTransformerTest {
         }
     }
 
+    public static class InterfaceLocalsTest {
+
+        private final StringBuilder log = new StringBuilder();
+
+        private class EvenAction implements Runnable {
+            @Override
+            public void run() {
+                log.append('e');
+            }
+        }
+
+        private class OddAction implements Runnable {
+            @Override
+            public void run() {
+                log.append('o');
+            }
+        }
+
+        private void rec(int deep) {
+            CharSequence value = deep % 2 == 0 ? new StringBuilder("b" + deep) : "s" + deep;
+            Runnable action = deep % 2 == 0 ? new EvenAction() : new OddAction();
+            Continuation.suspend();
+            action.run();
+            log.append(value.charAt(0));
+            if (deep < 3) {
+                rec(deep + 1);
+            }
+        }
+
+        public void start() {
+            Continuation.Context context = Continuation.perform(() -> rec(0));
+            while (!context.isFinished()) {
+                context = Continuation.resume(context);
+            }
+            Assert.assertTrue(context.isSucceed());
+            Assert.assertEquals("ebosebos", log.toString());
+        }
+    }
+
+    public static class LambdaInvocationTest {
+
+        private final StringBuilder log = new StringBuilder();
+
+        private String suspendAndGet(String value) {
+            Continuation.suspend();
+            return value;
+        }
+
+        public void start() {
+            // the lambda classes are not transformed, the callers save their invocation objects themselves
+            Supplier<String> staticSupplier = () -> {
+                Continuation.suspend();
+                return "s";
+            };
+            Function<String, String> instanceFunction = value -> suspendAndGet(value + "i");
+            Continuation.Context context = Continuation.perform(() -> {
+                log.append(instanceFunction.apply(staticSupplier.get()));
+                log.append(instanceFunction.apply(staticSupplier.get()));
+            });
+            int resumes = 0;
+            while (!context.isFinished()) {
+                context = Continuation.resume(context);
+                resumes++;
+            }
+            Assert.assertTrue(context.isSucceed());
+            Assert.assertEquals(4, resumes);
+            Assert.assertEquals("sisi", log.toString());
+        }
+    }
+
+    public static class TryWithResourcesTest {
+
+        private final StringBuilder log = new StringBuilder();
+
+        private class Resource implements AutoCloseable {
+            @Override
+            public void close() {
+                Continuation.suspend();
+                log.append("c");
+            }
+        }
+
+        public void start() {
+            // the suppressed exception handling invokes a method on a null local
+            Continuation.Context context = Continuation.perform(() -> {
+                try (Resource resource = new Resource()) {
+                    Continuation.suspend();
+                    log.append("b");
+                }
+            });
+            int resumes = 0;
+            while (!context.isFinished()) {
+                context = Continuation.resume(context);
+                resumes++;
+            }
+            Assert.assertTrue(context.isSucceed());
+            Assert.assertEquals(2, resumes);
+            Assert.assertEquals("bc", log.toString());
+        }
+    }
+
     public static class ReflectionInvokeTest {
         public void start() {
             MutableInt counter = new MutableInt(1);
@@ -0,0 +1,373 @@
+package org.jcontinue.workflow;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.ContinuationCheckpointRestorer;
+import org.jcontinue.continuation.ContinuationCheckpointer;
+import org.jcontinue.continuation.ContinuationContextSerializer;
+import org.jcontinue.continuation.ContinuationObjectCodec;
+import org.jcontinue.continuation.ContinuationSerializableObjectCodec;
+import org.jcontinue.continuation.Task;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// performs the tasks as durable workflows, checkpoint() suspensions are their recovery points
+public class WorkflowEngine implements ContinuationExecutor, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkflowEngine.class);
+
+    public static final long DEFAULT_COMPACTION_SIZE = 64L * 1024 * 1024;
+
+    private static final int STARTED_RECORD = 0;
+    private static final int CHECKPOINT_RECORD = 1;
+    private static final int COMPLETED_RECORD = 2;
+    private static final int FAILED_RECORD = 3;
+    // record type, workflow id
+    private static final int RECORD_HEADER_SIZE = Byte.BYTES + Long.BYTES;
+
+    private static final Continuation.Local<Long> workflowId = new Continuation.Local<>();
+    // set by checkpoint(), the other suspensions are not logged
+    private static final Continuation.Local<Boolean> checkpointRequested = new Continuation.Local<>();
+
+    private final WriteAheadLog writeAheadLog;
+    private final ContinuationObjectCodec codec;
+    private final ClassLoader classLoader;
+    private final ContinuationContextSerializer serializer;
+    private final ExecutorService executor;
+    private final Map<Long, Workflow> workflows = new ConcurrentHashMap<>();
+    private final AtomicLong nextWorkflowId = new AtomicLong();
+    // the incomplete workflows read from the log on open
+    private final Map<Long, LoggedWorkflow> loggedWorkflows;
+    private final long minCompactionSize;
+    // the log is compacted when it grows over twice its compacted size
+    private volatile long compactionSize;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private static class Workflow {
+        private final ContinuationCheckpointer checkpointer;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        private Workflow(ContinuationContextSerializer serializer) {
+            checkpointer = new ContinuationCheckpointer(serializer);
+        }
+    }
+
+    // the records of a workflow which are needed to recover it
+    private static class LoggedWorkflow {
+        private final byte[] startedRecord;
+        // the last full checkpoint and the deltas after it
+        private final List<byte[]> checkpointRecords = new ArrayList<>();
+
+        private LoggedWorkflow(byte[] startedRecord) {
+            this.startedRecord = startedRecord;
+        }
+    }
+
+    // collects the records of the incomplete workflows of the log
+    private static class LoggedWorkflows implements Consumer<byte[]> {
+        private final Map<Long, LoggedWorkflow> workflows = new LinkedHashMap<>();
+        private long maxId = -1;
+
+        @Override
+        public void accept(byte[] record) {
+            if (record.length < RECORD_HEADER_SIZE) {
+                throw new UncheckedIOException(new StreamCorruptedException("truncated workflow record"));
+            }
+            ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+            int recordType = recordBuffer.get() & 0xFF;
+            long id = recordBuffer.getLong();
+            maxId = Math.max(maxId, id);
+            LoggedWorkflow workflow = workflows.get(id);
+            switch (recordType) {
+                case STARTED_RECORD:
+                    workflows.put(id, new LoggedWorkflow(record));
+                    break;
+                case CHECKPOINT_RECORD:
+                    if (record.length == RECORD_HEADER_SIZE) {
+                        throw new UncheckedIOException(new StreamCorruptedException("empty checkpoint record"));
+                    }
+                    if (workflow != null) {
+                        if (ContinuationCheckpointer.isFullRecord(record, RECORD_HEADER_SIZE)) {
+                            workflow.checkpointRecords.clear();
+                        }
+                        workflow.checkpointRecords.add(record);
+                    }
+                    break;
+                case COMPLETED_RECORD:
+                case FAILED_RECORD:
+                    workflows.remove(id);
+                    break;
+                default:
+                    throw new UncheckedIOException(new StreamCorruptedException("invalid workflow record type "
+                            + recordType));
+            }
+        }
+
+        private List<byte[]> getRecords() {
+            List<byte[]> result = new ArrayList<>();
+            for (LoggedWorkflow workflow : workflows.values()) {
+                result.add(workflow.startedRecord);
+                result.addAll(workflow.checkpointRecords);
+            }
+            return result;
+        }
+    }
+
+    // the log is compacted on recover() and when it grows over the compaction size
+    public WorkflowEngine(Path directory, ContinuationObjectCodec codec, ClassLoader classLoader,
+            Map<String, ? extends Continuation.Local<?>> locals, int parallelism, int maxBatchSize,
+            long compactionSize) throws IOException {
+        Objects.requireNonNull(codec);
+        Objects.requireNonNull(classLoader);
+        if (compactionSize <= 0) {
+            throw new IllegalArgumentException("compactionSize must be positive");
+        }
+        this.codec = codec;
+        this.classLoader = classLoader;
+        minCompactionSize = compactionSize;
+        serializer = new ContinuationContextSerializer(codec, classLoader, locals);
+        writeAheadLog = new WriteAheadLog(Files.createDirectories(directory).resolve("workflows.log"), maxBatchSize);
+        this.compactionSize = Math.max(minCompactionSize, 2 * writeAheadLog.getSize());
+        LoggedWorkflows logged = new LoggedWorkflows();
+        try {
+            writeAheadLog.replay(logged);
+        } catch (UncheckedIOException e) {
+            writeAheadLog.close();
+            throw e.getCause();
+        } catch (IOException e) {
+            writeAheadLog.close();
+            throw e;
+        }
+        loggedWorkflows = logged.workflows;
+        nextWorkflowId.set(logged.maxId + 1);
+        executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    public WorkflowEngine(Path directory, ClassLoader classLoader, int parallelism) throws IOException {
+        this(directory, new ContinuationSerializableObjectCodec(), classLoader, Collections.emptyMap(), parallelism,
+                WriteAheadLog.DEFAULT_MAX_BATCH_SIZE, DEFAULT_COMPACTION_SIZE);
+    }
+
+    // the future is completed when the workflow is completed and its completion is logged
+    public CompletableFuture<Void> start(Task task) {
+        long id = nextWorkflowId.getAndIncrement();
+        Workflow workflow = new Workflow(serializer);
+        workflows.put(id, workflow);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            writeRecordHeader(output, STARTED_RECORD, id);
+            codec.write(output, task);
+            appendRecord(id, bytes.toByteArray(), () -> executor.execute(() -> step(id, null, task)));
+        } catch (IOException | RuntimeException e) {
+            fail(id, e);
+        }
+        return workflow.completion;
+    }
+
+    // resumes the incomplete workflows of the log, the futures are completed when they are completed
+    public synchronized Map<Long, CompletableFuture<Void>> recover() throws IOException {
+        // the records of the completed workflows and the superseded checkpoints are dropped
+        compact().exceptionally(exception -> null).join();
+        Map<Long, CompletableFuture<Void>> result = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<Long, LoggedWorkflow>> i = loggedWorkflows.entrySet().iterator(); i.hasNext();) {
+            Map.Entry<Long, LoggedWorkflow> loggedWorkflowEntry = i.next();
+            long id = loggedWorkflowEntry.getKey();
+            LoggedWorkflow loggedWorkflow = loggedWorkflowEntry.getValue();
+            i.remove();
+            Workflow workflow = new Workflow(serializer);
+            workflows.put(id, workflow);
+            result.put(id, workflow.completion);
+            if (loggedWorkflow.checkpointRecords.isEmpty()) {
+                Task task = (Task) codec.read(new DataInputStream(new ByteArrayInputStream(
+                        loggedWorkflow.startedRecord, RECORD_HEADER_SIZE,
+                        loggedWorkflow.startedRecord.length - RECORD_HEADER_SIZE)), classLoader);
+                executor.execute(() -> step(id, null, task));
+            } else {
+                ContinuationCheckpointRestorer restorer = new ContinuationCheckpointRestorer(serializer);
+                for (byte[] checkpointRecord : loggedWorkflow.checkpointRecords) {
+                    restorer.apply(Arrays.copyOfRange(checkpointRecord, RECORD_HEADER_SIZE, checkpointRecord.length));
+                }
+                Continuation.Context context = restorer.getContext();
+                context.set(workflowId, id);
+                resume(context);
+            }
+        }
+        return result;
+    }
+
+    // the workflow is resumed as soon as the checkpoint is synced
+    public static void checkpoint() {
+        if (!(ContinuableThreadPoolExecutor.currentExecutor.get() instanceof WorkflowEngine)) {
+            throw new IllegalStateException("continuation is not performed by a workflow engine");
+        }
+        checkpointRequested.set(true);
+        ContinuableThreadPoolExecutor.postSuspendAction.set(
+                context -> context.get(ContinuableThreadPoolExecutor.currentExecutor).resume(context));
+        Continuation.suspend();
+    }
+
+    // the command is not a workflow, it is not logged
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public void resume(Continuation.Context context) {
+        context.set(ContinuableThreadPoolExecutor.currentExecutor, this);
+        long id = context.get(workflowId);
+        try {
+            executor.execute(() -> step(id, context, null));
+        } catch (RejectedExecutionException e) {
+            fail(id, e);
+        }
+    }
+
+    public int getActiveWorkflowsNumber() {
+        return workflows.size();
+    }
+
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    // the incomplete workflows stay in the log, their futures are failed
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeAheadLog.close();
+        IllegalStateException exception = new IllegalStateException("workflow engine is closed");
+        for (Long id : new ArrayList<>(workflows.keySet())) {
+            fail(id, exception);
+        }
+    }
+
+    // private methods
+
+    private void step(long id, Continuation.Context context, Task task) {
+        Workflow workflow = workflows.get(id);
+        Continuation.Context result;
+        if (context == null) {
+            Map<Continuation.Local<?>, Object> locals = new HashMap<>();
+            locals.put(ContinuableThreadPoolExecutor.currentExecutor, this);
+            locals.put(workflowId, id);
+            result = Continuation.perform(task, locals);
+        } else {
+            result = Continuation.resume(context);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            if (!result.isFinished() && result.get(checkpointRequested) == null) {
+                // e.g. awaiting a future, such frames cannot be recovered
+                applyPostSuspendAction(result);
+            } else if (!result.isFinished()) {
+                result.set(checkpointRequested, null);
+                writeRecordHeader(output, CHECKPOINT_RECORD, id);
+                output.write(workflow.checkpointer.checkpoint(result));
+                appendRecord(id, bytes.toByteArray(), () -> applyPostSuspendAction(result));
+            } else if (result.isSucceed()) {
+                writeRecordHeader(output, COMPLETED_RECORD, id);
+                appendRecord(id, bytes.toByteArray(), () -> {
+                    workflows.remove(id);
+                    workflow.completion.complete(null);
+                });
+            } else {
+                writeRecordHeader(output, FAILED_RECORD, id);
+                appendRecord(id, bytes.toByteArray(), () -> fail(id, result.getException()));
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(id, e);
+        }
+    }
+
+    private void appendRecord(long id, byte[] record, Runnable onSynced) {
+        writeAheadLog.append(record).whenComplete((value, exception) -> {
+            if (exception != null) {
+                fail(id, exception);
+            } else {
+                try {
+                    onSynced.run();
+                } catch (RuntimeException e) {
+                    // e.g. the engine is closed while the record is synced
+                    fail(id, e);
+                }
+                if (writeAheadLog.getSize() >= compactionSize && compacting.compareAndSet(false, true)) {
+                    compact();
+                }
+            }
+        });
+    }
+
+    // the log is rewritten by its writer, so the records appended concurrently are kept
+    private CompletableFuture<Void> compact() {
+        LoggedWorkflows logged = new LoggedWorkflows();
+        return writeAheadLog.rewrite(logged, logged::getRecords).whenComplete((value, exception) -> {
+            if (exception != null) {
+                log.warn("failed to compact the workflow log", exception);
+            }
+            compactionSize = Math.max(minCompactionSize, 2 * writeAheadLog.getSize());
+            compacting.set(false);
+        });
+    }
+
+    private void fail(long id, Throwable exception) {
+        Workflow workflow = workflows.remove(id);
+        if (workflow != null) {
+            workflow.completion.completeExceptionally(exception);
+        }
+    }
+
+    private static void applyPostSuspendAction(Continuation.Context context) {
+        Consumer<? super Continuation.Context> postSuspendAction =
+                context.get(ContinuableThreadPoolExecutor.postSuspendAction);
+        if (postSuspendAction != null) {
+            // the action can resume the context at once, so it is cleared before
+            context.set(ContinuableThreadPoolExecutor.postSuspendAction, null);
+            postSuspendAction.accept(context);
+        } else {
+            log.warn("post suspend action is null for context {}", context);
+        }
+    }
+
+    private static void writeRecordHeader(DataOutputStream output, int recordType, long id) throws IOException {
+        output.writeByte(recordType);
+        output.writeLong(id);
+    }
+}
@@ -0,0 +1,376 @@
+package org.jcontinue.workflow;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+// append-only log file with group commit, it is compacted by rewriting
+public class WriteAheadLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+    // record: int length of the payload, int crc32 of the payload, payload
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+
+    private final Path file;
+    // the channels are replaced by the writer thread on rewrite
+    private volatile FileChannel channel;
+    private volatile long recoveredSize;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingRecord> pendingRecords = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // guarded by this, no record is appended after the close record
+    private boolean closed;
+    // guarded by this, the log cannot be written after the rollback of a failed write fails
+    private Throwable failure;
+    // the size of the synced records, is written by the writer thread
+    private volatile long size;
+    private volatile long syncsNumber;
+    private volatile long recordsNumber;
+
+    private static class PendingRecord {
+        private final byte[] payload;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingRecord(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+
+    private static class PendingRewrite extends PendingRecord {
+        private final Consumer<? super byte[]> consumer;
+        private final Supplier<? extends Iterable<byte[]>> payloads;
+
+        private PendingRewrite(Consumer<? super byte[]> consumer, Supplier<? extends Iterable<byte[]>> payloads) {
+            super(null);
+            this.consumer = consumer;
+            this.payloads = payloads;
+        }
+    }
+
+    // the stop mark of the writer thread
+    private static final PendingRecord closeRecord = new PendingRecord(new byte[0]);
+
+    public WriteAheadLog(Path file, int maxBatchSize) throws IOException {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.file = file;
+        // the log is replaced only after its rewrite is synced
+        Files.deleteIfExists(getRewriteFile());
+        channel = openChannel(file);
+        recoveredSize = scan(null, channel, channel.size());
+        if (recoveredSize < channel.size()) {
+            log.warn("truncating torn tail of log {} at {}", file, recoveredSize);
+            channel.truncate(recoveredSize);
+            channel.force(true);
+        }
+        channel.position(recoveredSize);
+        size = recoveredSize;
+        writer = new Thread(this::write, "write-ahead-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public WriteAheadLog(Path file) throws IOException {
+        this(file, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    // passes the payloads of the records which were in the log when it was opened or last rewritten
+    public void replay(Consumer<? super byte[]> consumer) throws IOException {
+        Objects.requireNonNull(consumer);
+        scan(consumer, channel, recoveredSize);
+    }
+
+    // the future is completed when the record is synced to the disk
+    public CompletableFuture<Void> append(byte[] payload) {
+        Objects.requireNonNull(payload);
+        return enqueue(new PendingRecord(payload));
+    }
+
+    // passes the payloads of the log to the consumer, then replaces them with the supplied ones,
+    // the records appended after the rewrite are written after them
+    public CompletableFuture<Void> rewrite(Consumer<? super byte[]> consumer,
+            Supplier<? extends Iterable<byte[]>> payloads) {
+        Objects.requireNonNull(consumer);
+        Objects.requireNonNull(payloads);
+        return enqueue(new PendingRewrite(consumer, payloads));
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getSyncsNumber() {
+        return syncsNumber;
+    }
+
+    public long getRecordsNumber() {
+        return recordsNumber;
+    }
+
+    // the records appended before are synced, the ones which are not written are failed
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pendingRecords.add(closeRecord);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        for (PendingRecord record = pendingRecords.poll(); record != null; record = pendingRecords.poll()) {
+            record.future.completeExceptionally(new IllegalStateException("log is closed"));
+        }
+    }
+
+    // the log and the rewritten log files are opened for reading and writing
+    protected FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // private methods
+
+    private CompletableFuture<Void> enqueue(PendingRecord record) {
+        synchronized (this) {
+            if (failure != null) {
+                record.future.completeExceptionally(new IllegalStateException("log has failed", failure));
+                return record.future;
+            }
+            if (!closed) {
+                pendingRecords.add(record);
+                return record.future;
+            }
+        }
+        record.future.completeExceptionally(new IllegalStateException("log is closed"));
+        return record.future;
+    }
+
+    private Path getRewriteFile() {
+        return file.resolveSibling(file.getFileName() + ".rewrite");
+    }
+
+    // returns the size of the valid records prefix of the log
+    private static long scan(Consumer<? super byte[]> consumer, FileChannel channel, long size)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        long position = 0;
+        while (position + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + RECORD_HEADER_SIZE);
+            if (getChecksum(payload.array()) != checksum) {
+                break;
+            }
+            if (consumer != null) {
+                consumer.accept(payload.array());
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("unexpected end of log");
+            }
+            position += read;
+        }
+    }
+
+    private void write() {
+        List<PendingRecord> pending = new ArrayList<>(maxBatchSize);
+        List<PendingRecord> batch = new ArrayList<>(maxBatchSize);
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                pending.add(pendingRecords.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            pendingRecords.drainTo(pending, maxBatchSize - 1);
+            for (PendingRecord record : pending) {
+                if (record == closeRecord) {
+                    // no record is appended after it
+                    stopped = true;
+                } else if (record instanceof PendingRewrite) {
+                    if (!batch.isEmpty()) {
+                        writeBatch(batch);
+                        batch.clear();
+                    }
+                    rewrite(record);
+                } else {
+                    batch.add(record);
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+            pending.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingRecord> batch) {
+        Throwable logFailure = getFailure();
+        if (logFailure != null) {
+            for (PendingRecord record : batch) {
+                record.future.completeExceptionally(new IllegalStateException("log has failed", logFailure));
+            }
+            return;
+        }
+        try {
+            int batchSize = 0;
+            for (PendingRecord record : batch) {
+                batchSize += RECORD_HEADER_SIZE + record.payload.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(batchSize);
+            for (PendingRecord record : batch) {
+                buffer.putInt(record.payload.length);
+                buffer.putInt(getChecksum(record.payload));
+                buffer.put(record.payload);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            size += batchSize;
+            syncsNumber++;
+            recordsNumber += batch.size();
+        } catch (IOException | RuntimeException e) {
+            // the appends after the failure see the state of the log after the rollback
+            rollBack(e);
+            for (PendingRecord record : batch) {
+                record.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (PendingRecord record : batch) {
+            record.future.complete(null);
+        }
+    }
+
+    // the torn bytes of a failed write would hide the records written after them on the next open
+    private void rollBack(Exception exception) {
+        try {
+            channel.truncate(size);
+            channel.position(size);
+        } catch (IOException | RuntimeException e) {
+            exception.addSuppressed(e);
+            log.error("log has failed, the next records are rejected", exception);
+            synchronized (this) {
+                failure = exception;
+            }
+        }
+    }
+
+    // the rewritten log is synced and then renamed over the log, the log is intact if the rewrite fails
+    private void rewrite(PendingRecord record) {
+        PendingRewrite rewrite = (PendingRewrite) record;
+        Throwable logFailure = getFailure();
+        if (logFailure != null) {
+            record.future.completeExceptionally(new IllegalStateException("log has failed", logFailure));
+            return;
+        }
+        Path rewriteFile = getRewriteFile();
+        long rewriteSize = 0;
+        try {
+            scan(rewrite.consumer, channel, size);
+            try (FileChannel rewriteChannel = openChannel(rewriteFile)) {
+                rewriteChannel.truncate(0);
+                for (byte[] payload : rewrite.payloads.get()) {
+                    ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+                    buffer.putInt(payload.length);
+                    buffer.putInt(getChecksum(payload));
+                    buffer.put(payload);
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        rewriteChannel.write(buffer);
+                    }
+                    rewriteSize += buffer.capacity();
+                }
+                rewriteChannel.force(true);
+            }
+            Files.move(rewriteFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(rewriteFile);
+            } catch (IOException deleteException) {
+                e.addSuppressed(deleteException);
+            }
+            record.future.completeExceptionally(e);
+            return;
+        }
+        // the old channel refers to the replaced file now
+        try {
+            FileChannel rewrittenChannel = openChannel(file);
+            rewrittenChannel.position(rewriteSize);
+            channel.close();
+            channel = rewrittenChannel;
+            syncDirectory();
+        } catch (IOException | RuntimeException e) {
+            log.error("log has failed, the next records are rejected", e);
+            synchronized (this) {
+                failure = e;
+            }
+            record.future.completeExceptionally(e);
+            return;
+        }
+        log.debug("rewrote log {} from {} to {} bytes", file, size, rewriteSize);
+        size = rewriteSize;
+        recoveredSize = rewriteSize;
+        record.future.complete(null);
+    }
+
+    // the rename is durable when the directory is synced
+    private void syncDirectory() throws IOException {
+        try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    private synchronized Throwable getFailure() {
+        return failure;
+    }
+
+    private static int getChecksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
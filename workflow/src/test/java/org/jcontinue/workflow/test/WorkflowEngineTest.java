@@ -0,0 +1,276 @@
+package org.jcontinue.workflow.test;
+
+import org.jcontinue.continuation.Continuation;
+import org.jcontinue.continuation.ContinuationSerializableObjectCodec;
+import org.jcontinue.continuation.Task;
+import org.jcontinue.utils.CompletionStageUtils;
+import org.jcontinue.utils.ContinuableThreadPoolExecutor;
+import org.jcontinue.utils.ContinuationClassTransformerClassLoader;
+import org.jcontinue.workflow.WorkflowEngine;
+import org.jcontinue.workflow.WriteAheadLog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class WorkflowEngineTest {
+
+    @Test
+    public void testRecovery() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        ClassLoader continuationClassLoader = new ContinuationClassTransformerClassLoader();
+        Class<?> testClass = continuationClassLoader.loadClass(RecoveryTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testAwait() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        ClassLoader continuationClassLoader = new ContinuationClassTransformerClassLoader();
+        Class<?> testClass = continuationClassLoader.loadClass(AwaitTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    @Test
+    public void testCompaction() throws ClassNotFoundException, IllegalAccessException, InstantiationException,
+            NoSuchMethodException, InvocationTargetException {
+        ClassLoader continuationClassLoader = new ContinuationClassTransformerClassLoader();
+        Class<?> testClass = continuationClassLoader.loadClass(CompactionTest.class.getName());
+        Object testInst = testClass.newInstance();
+        testClass.getMethod("start").invoke(testInst);
+    }
+
+    public static class RecoveryTest {
+
+        private static final int WORKFLOWS = 50;
+        private static final int STEPS = 5;
+
+        private static final Map<Integer, Integer> results = new ConcurrentHashMap<>();
+        private static volatile CountDownLatch parked;
+        private static volatile boolean parking;
+
+        public void start() throws Exception {
+            Path directory = Files.createTempDirectory("workflows");
+            ClassLoader classLoader = getClass().getClassLoader();
+
+            // the workflows are parked at the last step when the engine is closed
+            parked = new CountDownLatch(WORKFLOWS);
+            parking = true;
+            WorkflowEngine engine = new WorkflowEngine(directory, classLoader, 2);
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < WORKFLOWS; i++) {
+                futures.add(engine.start(new CountingWorkflow(i)));
+            }
+            Assert.assertTrue(parked.await(30, TimeUnit.SECONDS));
+            engine.close();
+            Assert.assertTrue(results.isEmpty());
+            // the futures of the incomplete workflows are failed on close
+            for (CompletableFuture<Void> future : futures) {
+                Assert.assertTrue(future.isCompletedExceptionally());
+            }
+
+            // the workflows are recovered from their last checkpoints, the parking is not a checkpoint
+            parking = false;
+            engine = new WorkflowEngine(directory, classLoader, 2);
+            Map<Long, CompletableFuture<Void>> recovered = engine.recover();
+            Assert.assertEquals(WORKFLOWS, recovered.size());
+            for (CompletableFuture<Void> future : recovered.values()) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(WORKFLOWS, results.size());
+            for (int i = 0; i < WORKFLOWS; i++) {
+                Assert.assertEquals(i * STEPS, results.get(i).intValue());
+            }
+
+            // the new workflows do not reuse the ids of the logged ones
+            parked = new CountDownLatch(1);
+            parking = true;
+            CompletableFuture<Void> failingFuture = engine.start(new FailingWorkflow());
+            engine.start(new CountingWorkflow(WORKFLOWS));
+            try {
+                failingFuture.get(30, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            Assert.assertTrue(parked.await(30, TimeUnit.SECONDS));
+            engine.close();
+
+            // the parked workflow is completed on recovery, the failed one is not recovered
+            parking = false;
+            engine = new WorkflowEngine(directory, classLoader, 2);
+            recovered = engine.recover();
+            Assert.assertEquals(1, recovered.size());
+            recovered.values().iterator().next().get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(WORKFLOWS * STEPS, results.get(WORKFLOWS).intValue());
+            engine.close();
+            engine = new WorkflowEngine(directory, classLoader, 2);
+            Assert.assertTrue(engine.recover().isEmpty());
+            engine.close();
+
+            Files.delete(directory.resolve("workflows.log"));
+            Files.delete(directory);
+        }
+
+        // suspends the workflow until the engine is closed
+        private static void park() {
+            if (!parking) {
+                return;
+            }
+            ContinuableThreadPoolExecutor.postSuspendAction.set(context -> parked.countDown());
+            Continuation.suspend();
+        }
+    }
+
+    public static class CompactionTest {
+
+        private static final int WORKFLOWS = 50;
+
+        public void start() throws Exception {
+            Path directory = Files.createTempDirectory("workflows");
+
+            // the log is compacted while the workflows are logging
+            RecoveryTest.parked = new CountDownLatch(WORKFLOWS);
+            RecoveryTest.parking = true;
+            WorkflowEngine engine = newEngine(directory);
+            for (int i = 0; i < WORKFLOWS; i++) {
+                engine.start(new CountingWorkflow(i));
+            }
+            Assert.assertTrue(RecoveryTest.parked.await(30, TimeUnit.SECONDS));
+            engine.close();
+
+            // only the started records and the last checkpoints of the incomplete workflows are kept
+            RecoveryTest.parking = false;
+            engine = newEngine(directory);
+            Map<Long, CompletableFuture<Void>> recovered = engine.recover();
+            Assert.assertEquals(WORKFLOWS, recovered.size());
+            for (CompletableFuture<Void> future : recovered.values()) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            for (int i = 0; i < WORKFLOWS; i++) {
+                Assert.assertEquals(i * RecoveryTest.STEPS, RecoveryTest.results.get(i).intValue());
+            }
+            engine.close();
+
+            // the completed workflows are dropped
+            engine = newEngine(directory);
+            Assert.assertTrue(engine.recover().isEmpty());
+            Assert.assertEquals(0, engine.getWriteAheadLog().getSize());
+            engine.close();
+
+            Files.delete(directory.resolve("workflows.log"));
+            Files.delete(directory);
+        }
+
+        // private methods
+
+        private WorkflowEngine newEngine(Path directory) throws IOException {
+            return new WorkflowEngine(directory, new ContinuationSerializableObjectCodec(),
+                    getClass().getClassLoader(), Collections.emptyMap(), 2, WriteAheadLog.DEFAULT_MAX_BATCH_SIZE, 1);
+        }
+    }
+
+    public static class AwaitTest {
+
+        private static final Map<Integer, String> results = new ConcurrentHashMap<>();
+        private static volatile CountDownLatch awaiting;
+        private static volatile CompletableFuture<String> awaited;
+
+        public void start() throws Exception {
+            Path directory = Files.createTempDirectory("workflows");
+            ClassLoader classLoader = getClass().getClassLoader();
+
+            WorkflowEngine engine = new WorkflowEngine(directory, classLoader, 2);
+            awaiting = new CountDownLatch(1);
+            awaited = new CompletableFuture<>();
+            CompletableFuture<Void> future = engine.start(new AwaitingWorkflow(0));
+            Assert.assertTrue(awaiting.await(30, TimeUnit.SECONDS));
+            awaited.complete("first");
+            future.get(30, TimeUnit.SECONDS);
+            Assert.assertEquals("first", results.get(0));
+
+            // the awaiting workflow is recovered from the checkpoint before the awaiting
+            awaiting = new CountDownLatch(1);
+            awaited = new CompletableFuture<>();
+            future = engine.start(new AwaitingWorkflow(1));
+            Assert.assertTrue(awaiting.await(30, TimeUnit.SECONDS));
+            engine.close();
+            Assert.assertTrue(future.isCompletedExceptionally());
+            awaiting = new CountDownLatch(1);
+            awaited = new CompletableFuture<>();
+            engine = new WorkflowEngine(directory, classLoader, 2);
+            Map<Long, CompletableFuture<Void>> recovered = engine.recover();
+            Assert.assertEquals(1, recovered.size());
+            Assert.assertTrue(awaiting.await(30, TimeUnit.SECONDS));
+            awaited.complete("second");
+            recovered.values().iterator().next().get(30, TimeUnit.SECONDS);
+            Assert.assertEquals("second", results.get(1));
+            engine.close();
+
+            Files.delete(directory.resolve("workflows.log"));
+            Files.delete(directory);
+        }
+    }
+
+    public static class AwaitingWorkflow implements Task, Serializable {
+
+        private final int id;
+
+        public AwaitingWorkflow(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void perform() {
+            WorkflowEngine.checkpoint();
+            AwaitTest.awaiting.countDown();
+            String value = CompletionStageUtils.await(AwaitTest.awaited);
+            WorkflowEngine.checkpoint();
+            AwaitTest.results.put(id, value);
+        }
+    }
+
+    public static class CountingWorkflow implements Task, Serializable {
+
+        private final int id;
+
+        public CountingWorkflow(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void perform() throws IOException {
+            int sum = 0;
+            for (int i = 0; i < RecoveryTest.STEPS; i++) {
+                sum += id;
+                WorkflowEngine.checkpoint();
+            }
+            RecoveryTest.park();
+            RecoveryTest.results.put(id, sum);
+        }
+    }
+
+    public static class FailingWorkflow implements Task, Serializable {
+
+        @Override
+        public void perform() {
+            WorkflowEngine.checkpoint();
+            throw new IllegalStateException("expected");
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package org.jcontinue.workflow.test;
+
+import org.jcontinue.workflow.WriteAheadLog;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class WriteAheadLogTest {
+
+    private static final int THREADS = 4;
+    private static final int RECORDS_PER_THREAD = 500;
+
+    private Path directory;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("write-ahead-log");
+        file = directory.resolve("test.log");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testAppendAndReplay() throws IOException, InterruptedException, ExecutionException,
+            TimeoutException {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(file, 64)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                threads.add(new Thread(() -> {
+                    List<CompletableFuture<Void>> threadFutures = new ArrayList<>();
+                    for (int j = 0; j < RECORDS_PER_THREAD; j++) {
+                        threadFutures.add(log.append(getRecord(thread, j)));
+                    }
+                    synchronized (futures) {
+                        futures.addAll(threadFutures);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (CompletableFuture<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(THREADS * RECORDS_PER_THREAD, log.getRecordsNumber());
+            Assert.assertTrue(log.getSyncsNumber() <= log.getRecordsNumber());
+        }
+
+        // a torn record at the end is dropped
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 100, 1, 2, 3}));
+        }
+        long validSize;
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            validSize = Files.size(file);
+            Set<String> replayed = new HashSet<>();
+            List<Integer> lastRecords = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                lastRecords.add(-1);
+            }
+            log.replay(record -> {
+                String value = new String(record, StandardCharsets.UTF_8);
+                Assert.assertTrue(replayed.add(value));
+                // the records of a thread are in the append order
+                String[] parts = value.split(":");
+                int thread = Integer.parseInt(parts[0]);
+                int index = Integer.parseInt(parts[1]);
+                Assert.assertEquals(lastRecords.get(thread) + 1, index);
+                lastRecords.set(thread, index);
+            });
+            Assert.assertEquals(THREADS * RECORDS_PER_THREAD, replayed.size());
+            log.append(getRecord(THREADS, 0)).get(30, TimeUnit.SECONDS);
+        }
+        Assert.assertTrue(Files.size(file) > validSize);
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            List<byte[]> replayed = new ArrayList<>();
+            log.replay(replayed::add);
+            Assert.assertEquals(THREADS * RECORDS_PER_THREAD + 1, replayed.size());
+            Assert.assertArrayEquals(getRecord(THREADS, 0), replayed.get(replayed.size() - 1));
+        }
+        try {
+            WriteAheadLog log = new WriteAheadLog(file);
+            log.close();
+            log.append(getRecord(0, 0)).get(30, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    // every record is either synced or failed, the synced ones are replayed
+    @Test
+    public void testAppendConcurrentlyWithClose() throws IOException, InterruptedException, TimeoutException {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        WriteAheadLog log = new WriteAheadLog(file, 16);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            threads.add(new Thread(() -> {
+                List<CompletableFuture<Void>> threadFutures = new ArrayList<>();
+                for (int j = 0; j < RECORDS_PER_THREAD; j++) {
+                    threadFutures.add(log.append(getRecord(thread, j)));
+                }
+                synchronized (futures) {
+                    futures.addAll(threadFutures);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        log.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int syncedNumber = 0;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                syncedNumber++;
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        try (WriteAheadLog reopenedLog = new WriteAheadLog(file)) {
+            List<byte[]> replayed = new ArrayList<>();
+            reopenedLog.replay(replayed::add);
+            Assert.assertEquals(syncedNumber, replayed.size());
+        }
+    }
+
+    // the records appended concurrently with the rewrite are kept after the rewritten ones
+    @Test
+    public void testRewrite() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        try (WriteAheadLog log = new WriteAheadLog(file, 16)) {
+            for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+                log.append(getRecord(0, i));
+            }
+            List<byte[]> rewritten = new ArrayList<>();
+            CompletableFuture<Void> rewrite = log.rewrite(record -> {
+                if (Integer.parseInt(new String(record, StandardCharsets.UTF_8).split(":")[1]) % 2 == 0) {
+                    rewritten.add(record);
+                }
+            }, () -> rewritten);
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+                futures.add(log.append(getRecord(1, i)));
+            }
+            rewrite.get(30, TimeUnit.SECONDS);
+            for (CompletableFuture<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(RECORDS_PER_THREAD / 2, rewritten.size());
+            Assert.assertFalse(Files.exists(directory.resolve("test.log.rewrite")));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            List<String> replayed = new ArrayList<>();
+            log.replay(record -> replayed.add(new String(record, StandardCharsets.UTF_8)));
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < RECORDS_PER_THREAD; i += 2) {
+                expected.add(new String(getRecord(0, i), StandardCharsets.UTF_8));
+            }
+            for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+                expected.add(new String(getRecord(1, i), StandardCharsets.UTF_8));
+            }
+            Assert.assertEquals(expected, replayed);
+        }
+    }
+
+    // the torn bytes of a failed write are truncated, the log is failed if they cannot be
+    @Test
+    public void testFailedWrite() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        try (WriteAheadLog log = new WriteAheadLog(file, 16) {
+            @Override
+            protected FileChannel openChannel(Path file) throws IOException {
+                return new FailingFileChannel(super.openChannel(file));
+            }
+        }) {
+            log.append(getRecord(0, 0)).get(30, TimeUnit.SECONDS);
+            FailingFileChannel.failingWrites = true;
+            try {
+                log.append(getRecord(0, 1)).get(30, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertEquals("injected", e.getCause().getMessage());
+            } finally {
+                FailingFileChannel.failingWrites = false;
+            }
+            log.append(getRecord(0, 2)).get(30, TimeUnit.SECONDS);
+
+            FailingFileChannel.failingWrites = true;
+            FailingFileChannel.failingTruncates = true;
+            try {
+                log.append(getRecord(0, 3)).get(30, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertEquals("injected", e.getCause().getMessage());
+            } finally {
+                FailingFileChannel.failingWrites = false;
+                FailingFileChannel.failingTruncates = false;
+            }
+            try {
+                log.append(getRecord(0, 4)).get(30, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            List<byte[]> replayed = new ArrayList<>();
+            log.replay(replayed::add);
+            Assert.assertEquals(2, replayed.size());
+            Assert.assertArrayEquals(getRecord(0, 0), replayed.get(0));
+            Assert.assertArrayEquals(getRecord(0, 2), replayed.get(1));
+        }
+    }
+
+    private static byte[] getRecord(int thread, int index) {
+        return (thread + ":" + index).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // writes a half of the buffer before failing
+    private static class FailingFileChannel extends FileChannel {
+
+        private static volatile boolean failingWrites;
+        private static volatile boolean failingTruncates;
+
+        private final FileChannel channel;
+
+        private FailingFileChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return channel.read(dsts, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failingWrites) {
+                ByteBuffer half = src.duplicate();
+                half.limit(half.position() + half.remaining() / 2);
+                channel.write(half);
+                throw new IOException("injected");
+            }
+            return channel.write(src);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failingTruncates) {
+                throw new IOException("injected truncate");
+            }
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            channel.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return channel.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return channel.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return channel.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return channel.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return channel.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return channel.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            channel.close();
+        }
+    }
+}